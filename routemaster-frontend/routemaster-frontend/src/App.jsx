@@ -1,4 +1,4 @@
-import React, { useState } from "react";
+import React, { useEffect, useState } from "react";
 import {
   Container,
   Row,
@@ -209,24 +209,15 @@ function RouteMasterFrontend() {
   // ===== DATA LOADING FUNCTIONS =====
   const loadDashboard = async (authToken) => {
     try {
-      const [customersRes, parcelsRes, paymentRes, routesRes] =
-        await Promise.all([
-          fetch(`${API_BASE}/dashboard/customercount`),
-          fetch(`${API_BASE}/dashboard/parcelscount`),
-          fetch(`${API_BASE}/dashboard/parcelpayment`),
-          fetch(`${API_BASE}/dashboard/parcelroutecount`),
-        ]);
-
-      const customers = await customersRes.json();
-      const parcels = await parcelsRes.json();
-      const payment = await paymentRes.json();
-      const routes = await routesRes.json();
+      // One request for all totals; the browser revalidates it with the ETag
+      const response = await fetch(`${API_BASE}/dashboard/snapshot`);
+      const snapshot = await response.json();
 
       setDashboardStats({
-        totalCustomers: customers,
-        totalParcels: parcels,
-        totalPayment: payment,
-        parcelsByRoute: routes,
+        totalCustomers: snapshot.customerCount,
+        totalParcels: snapshot.parcelCount,
+        totalPayment: snapshot.totalPayment,
+        parcelsByRoute: snapshot.parcelCountPerRoute,
       });
     } catch (error) {
       console.error("Dashboard load error:", error);
@@ -237,7 +228,7 @@ function RouteMasterFrontend() {
     if (!token) return;
     try {
       const response = await fetch(
-        `${API_BASE}/api/parcels?pageNumber=0&size=20`,
+        `${API_BASE}/api/parcels?size=20`,
         {
           headers: { Authorization: `Bearer ${token}` },
         }
@@ -249,6 +240,81 @@ function RouteMasterFrontend() {
     }
   };
 
+  // Status changes of the listed parcels are pushed over SSE instead of polled.
+  // fetch() instead of EventSource, which cannot send the Authorization header.
+  const listedParcelIds = parcels.map((parcel) => parcel.parcelId).join(",");
+  const [streamAttempt, setStreamAttempt] = useState(0);
+  useEffect(() => {
+    if (!token || currentPage !== "parcels" || !listedParcelIds) return;
+    const controller = new AbortController();
+    let retryTimer;
+    const query = listedParcelIds
+      .split(",")
+      .map((id) => `parcelId=${id}`)
+      .join("&");
+
+    const handleEvent = (name, data) => {
+      if (name === "resync") {
+        loadParcels();
+      } else if (name === "parcel") {
+        const change = JSON.parse(data);
+        if (change.change === "DELETED") {
+          setParcels((prev) => prev.filter((p) => p.parcelId !== change.parcelId));
+        } else {
+          setParcels((prev) =>
+            prev.map((p) =>
+              p.parcelId === change.parcelId
+                ? { ...p, parcelStatus: change.parcelStatus }
+                : p
+            )
+          );
+        }
+      }
+    };
+
+    const listen = async () => {
+      try {
+        const response = await fetch(`${API_BASE}/api/stream/status?${query}`, {
+          headers: { Authorization: `Bearer ${token}` },
+          signal: controller.signal,
+        });
+        if (!response.ok || !response.body) throw new Error(`HTTP ${response.status}`);
+        const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = "";
+        for (;;) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buffer += value;
+          // Events are separated by a blank line; comments (":ping") are skipped
+          let end;
+          while ((end = buffer.indexOf("\n\n")) >= 0) {
+            const block = buffer.slice(0, end);
+            buffer = buffer.slice(end + 2);
+            let name = "message";
+            const data = [];
+            block.split("\n").forEach((line) => {
+              if (line.startsWith("event:")) name = line.slice(6).trim();
+              else if (line.startsWith("data:")) data.push(line.slice(5).replace(/^ /, ""));
+            });
+            if (data.length) handleEvent(name, data.join("\n"));
+          }
+        }
+        // Server closed the stream (timeout): catch up on what was missed
+        if (!controller.signal.aborted) loadParcels();
+      } catch (error) {
+        if (controller.signal.aborted) return;
+        console.error("Status stream error:", error);
+      }
+      retryTimer = setTimeout(() => setStreamAttempt((n) => n + 1), 5000);
+    };
+    listen();
+    return () => {
+      controller.abort();
+      clearTimeout(retryTimer);
+    };
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [token, currentPage, listedParcelIds, streamAttempt]);
+
   const loadCustomers = async () => {
     if (!token) return;
     try {
@@ -0,0 +1,99 @@
+package com.routemasterapi.api.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.routemasterapi.api.entity.RouterEntity;
+import com.routemasterapi.api.model.OptimizerParcel;
+import com.routemasterapi.api.repositories.ParcelRepository;
+import com.routemasterapi.api.repositories.RouterRepository;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Wires services for benchmarks without a Spring context or database:
+ * field injection by reflection and in-memory repository stand-ins.
+ */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Sets a (possibly private, possibly inherited) field, as Spring would
+     * for {@code @Autowired} and {@code @Value} fields.
+     */
+    public static void inject(Object target, String fieldName, Object value) {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                // Keep looking in the superclass
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot set " + fieldName, e);
+            }
+        }
+        throw new IllegalArgumentException("No field " + fieldName + " on " + target.getClass().getName());
+    }
+
+    /**
+     * ParcelRepository serving the optimizer's parcel stream from memory.
+     * Any other repository method throws.
+     */
+    @SuppressWarnings("unchecked")
+    public static ParcelRepository parcelRepository(List<OptimizerParcel> parcels) {
+        return (ParcelRepository) Proxy.newProxyInstance(ParcelRepository.class.getClassLoader(),
+            new Class<?>[] { ParcelRepository.class }, (proxy, method, args) -> {
+                if (method.getName().equals("streamOptimizerParcels")) {
+                    Consumer<OptimizerParcel> consumer = (Consumer<OptimizerParcel>) args[1];
+                    parcels.forEach(consumer);
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    /**
+     * RouterRepository answering {@code findAll()} from memory.
+     * Any other repository method throws.
+     */
+    public static RouterRepository routerRepository(List<RouterEntity> routes) {
+        return (RouterRepository) Proxy.newProxyInstance(RouterRepository.class.getClassLoader(),
+            new Class<?>[] { RouterRepository.class }, (proxy, method, args) -> {
+                if (method.getName().equals("findAll") && (args == null || args.length == 0)) {
+                    return routes;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    /**
+     * HttpServletRequest answering {@code getHeader} from the given map.
+     * Any other method returns null (or false / 0 for primitives).
+     */
+    public static HttpServletRequest httpRequest(Map<String, String> headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+            new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                if (method.getName().equals("getHeader")) {
+                    return headers.get((String) args[0]);
+                }
+                Class<?> type = method.getReturnType();
+                if (type == boolean.class) {
+                    return false;
+                }
+                if (type == int.class) {
+                    return 0;
+                }
+                if (type == long.class) {
+                    return 0L;
+                }
+                return null;
+            });
+    }
+}
@@ -0,0 +1,151 @@
+package com.routemasterapi.api.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import com.routemasterapi.api.entity.RouterEntity;
+import com.routemasterapi.api.model.OptimizerParcel;
+
+/**
+ * Deterministic synthetic parcels, routes and pincode table for benchmarks.
+ *
+ * Pincodes are spread over Indian postal circles so that numerically close
+ * pincodes are geographically close, as in the real numbering. Parcel
+ * destinations follow a Zipf distribution over the pincodes: skew 0 is
+ * uniform, around 1 a few busy pincodes take most parcels. Route capacity is
+ * set so the routes together carry {@code capacityRatio} of the total weight.
+ */
+public final class SyntheticDataset {
+
+    public enum WeightDistribution {
+        // 0.5 - 20.5 kg
+        UNIFORM,
+        // Mostly small parcels with a long tail, mean 5 kg
+        EXPONENTIAL,
+        // 80% envelopes and small boxes, 20% 10 - 40 kg freight
+        BIMODAL
+    }
+
+    public static final int DEFAULT_DISTINCT_PINCODES = 20000;
+    public static final double DEFAULT_CAPACITY_RATIO = 0.95;
+
+    private final int[] pincodes;
+    private final float[] latitudes;
+    private final float[] longitudes;
+    private final List<OptimizerParcel> parcels;
+    private final List<RouterEntity> routes;
+
+    private SyntheticDataset(int[] pincodes, float[] latitudes, float[] longitudes,
+            List<OptimizerParcel> parcels, List<RouterEntity> routes) {
+        this.pincodes = pincodes;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.parcels = parcels;
+        this.routes = routes;
+    }
+
+    public static SyntheticDataset generate(int parcelCount, int routeCount, WeightDistribution weights,
+            double pincodeSkew, long seed) {
+        return generate(parcelCount, routeCount, weights, pincodeSkew, DEFAULT_DISTINCT_PINCODES,
+            DEFAULT_CAPACITY_RATIO, seed);
+    }
+
+    public static SyntheticDataset generate(int parcelCount, int routeCount, WeightDistribution weights,
+            double pincodeSkew, int distinctPincodes, double capacityRatio, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        // Unique pincodes in the 11xxxx - 85xxxx range used by the postal circles
+        int[] pincodes = random.ints(110_000, 860_000).distinct().limit(distinctPincodes).toArray();
+        Arrays.sort(pincodes);
+        float[] latitudes = new float[pincodes.length];
+        float[] longitudes = new float[pincodes.length];
+        for (int i = 0; i < pincodes.length; i++) {
+            // Circle centre from the 2-digit prefix, district offset from the 3rd digit, jitter per pincode
+            SplittableRandom circle = new SplittableRandom(pincodes[i] / 10000);
+            SplittableRandom district = new SplittableRandom(pincodes[i] / 1000 + 1_000_000L);
+            latitudes[i] = (float) (10 + circle.nextDouble() * 22 + district.nextDouble(-0.6, 0.6)
+                + random.nextDouble(-0.1, 0.1));
+            longitudes[i] = (float) (72 + circle.nextDouble() * 18 + district.nextDouble(-0.6, 0.6)
+                + random.nextDouble(-0.1, 0.1));
+        }
+
+        // Zipf CDF over pincode ranks; ranks are shuffled so busy pincodes are spread out
+        double[] cdf = new double[pincodes.length];
+        double sum = 0;
+        for (int rank = 0; rank < pincodes.length; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, pincodeSkew);
+            cdf[rank] = sum;
+        }
+        int[] byRank = pincodes.clone();
+        for (int i = byRank.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = byRank[i];
+            byRank[i] = byRank[j];
+            byRank[j] = swap;
+        }
+
+        List<OptimizerParcel> parcels = new ArrayList<>(parcelCount);
+        double totalWeight = 0;
+        for (int i = 0; i < parcelCount; i++) {
+            int rank = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            rank = Math.min(rank < 0 ? -rank - 1 : rank, byRank.length - 1);
+            double weight = nextWeight(random, weights);
+            totalWeight += weight;
+            parcels.add(new OptimizerParcel(i + 1, weight, format(byRank[rank]), null));
+        }
+
+        List<RouterEntity> routes = new ArrayList<>(routeCount);
+        for (int r = 0; r < routeCount; r++) {
+            RouterEntity route = new RouterEntity();
+            route.setRouteId(r + 1);
+            route.setName("Route-" + (r + 1));
+            route.setPincode(format(pincodes[random.nextInt(pincodes.length)]));
+            route.setTotalDistance(totalWeight * capacityRatio / routeCount);
+            routes.add(route);
+        }
+
+        return new SyntheticDataset(pincodes, latitudes, longitudes, parcels, routes);
+    }
+
+    public List<OptimizerParcel> getParcels() {
+        return parcels;
+    }
+
+    public List<RouterEntity> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * The pincode table as a {@code pincode,latitude,longitude} CSV, the
+     * format read by PincodeGeocoder.
+     */
+    public Resource pincodeCsv() {
+        StringBuilder csv = new StringBuilder(pincodes.length * 24).append("pincode,latitude,longitude\n");
+        for (int i = 0; i < pincodes.length; i++) {
+            csv.append(format(pincodes[i])).append(',').append(latitudes[i]).append(',').append(longitudes[i]).append('\n');
+        }
+        return new ByteArrayResource(csv.toString().getBytes(StandardCharsets.US_ASCII), "synthetic pincodes");
+    }
+
+    private static double nextWeight(SplittableRandom random, WeightDistribution weights) {
+        switch (weights) {
+            case EXPONENTIAL:
+                return 0.1 - 4.9 * Math.log(1 - random.nextDouble());
+            case BIMODAL:
+                return random.nextDouble() < 0.8 ? random.nextDouble(0.2, 3) : random.nextDouble(10, 40);
+            case UNIFORM:
+            default:
+                return random.nextDouble(0.5, 20.5);
+        }
+    }
+
+    private static String format(int pincode) {
+        return String.format("%06d", pincode);
+    }
+}
@@ -0,0 +1,88 @@
+package com.routemasterapi.api.security;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.routemasterapi.api.benchmark.BenchmarkSupport;
+import com.routemasterapi.api.service.CustomUserDetailsService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * One authenticated request through JwtRequestFilter, with the verified
+ * token served from the cache (steady state) and with the cache emptied
+ * before every request (first request with a token). The principal lookup
+ * is an in-memory stand-in, so only the token handling is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+
+    private static final String USERNAME = "customer@example.com";
+
+    private JwtRequestFilter filter;
+    private JwtTokenCache jwtTokenCache;
+    private HttpServletRequest request;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil();
+        BenchmarkSupport.inject(jwtTokenUtil, "secret",
+            "Benchmark_RouteMaster_JWTKey_ThisIsAVeryLongSecretKeyForHS256Algorithm_MustBe256BitsOrMore_");
+        BenchmarkSupport.inject(jwtTokenUtil, "expiration", 86400000L);
+        jwtTokenUtil.init();
+
+        jwtTokenCache = new JwtTokenCache();
+        BenchmarkSupport.inject(jwtTokenCache, "jwtTokenUtil", jwtTokenUtil);
+        BenchmarkSupport.inject(jwtTokenCache, "maxEntries", 10000);
+
+        CustomerPrincipal principal = new CustomerPrincipal(1, USERNAME, "USER", "1");
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService() {
+            @Override
+            public CustomerPrincipal loadPrincipal(String email) {
+                return principal;
+            }
+        };
+
+        filter = new JwtRequestFilter();
+        BenchmarkSupport.inject(filter, "jwtTokenCache", jwtTokenCache);
+        BenchmarkSupport.inject(filter, "userDetailsService", userDetailsService);
+
+        String token = jwtTokenUtil.generateToken(USERNAME, principal.getPasswordVersion());
+        request = BenchmarkSupport.httpRequest(Map.of("Authorization", "Bearer " + token));
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public Object cachedToken() throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilterInternal(request, null, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object uncachedToken() throws Exception {
+        SecurityContextHolder.clearContext();
+        jwtTokenCache.clear();
+        filter.doFilterInternal(request, null, chain);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
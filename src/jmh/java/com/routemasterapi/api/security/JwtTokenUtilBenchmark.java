@@ -0,0 +1,72 @@
+package com.routemasterapi.api.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.routemasterapi.api.benchmark.BenchmarkSupport;
+
+/**
+ * Token issue and the per-request work of JwtRequestFilter: extracting the
+ * subject and validating the token.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenUtilBenchmark {
+
+    private static final String USERNAME = "customer@example.com";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenUtil = new JwtTokenUtil();
+        // Same length as the configured jwt.secret
+        BenchmarkSupport.inject(jwtTokenUtil, "secret",
+            "Benchmark_RouteMaster_JWTKey_ThisIsAVeryLongSecretKeyForHS256Algorithm_MustBe256BitsOrMore_");
+        BenchmarkSupport.inject(jwtTokenUtil, "expiration", 86400000L);
+        jwtTokenUtil.init();
+        token = jwtTokenUtil.generateToken(USERNAME);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenUtil.generateToken(USERNAME);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtTokenUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtTokenUtil.verify(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtTokenUtil.validateToken(token, USERNAME);
+    }
+
+    // What the filter did per authenticated request before the verified-token cache
+    @Benchmark
+    public Boolean extractAndValidate() {
+        String username = jwtTokenUtil.extractUsername(token);
+        return jwtTokenUtil.validateToken(token, username);
+    }
+}
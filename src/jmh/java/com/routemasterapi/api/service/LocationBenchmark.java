@@ -0,0 +1,57 @@
+package com.routemasterapi.api.service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.routemasterapi.api.service.RouteOptimizerService.Location;
+
+/**
+ * Cost of one {@link Location#distanceTo} (haversine) call, averaged over a
+ * fixed set of point pairs across India.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private Location[] from;
+    private Location[] to;
+
+    @Setup
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(42);
+        from = new Location[PAIRS];
+        to = new Location[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = new Location(random.nextDouble(8, 35), random.nextDouble(68, 97));
+            to[i] = new Location(random.nextDouble(8, 35), random.nextDouble(68, 97));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double distanceTo() {
+        double total = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            total += from[i].distanceTo(to[i]);
+        }
+        return total;
+    }
+}
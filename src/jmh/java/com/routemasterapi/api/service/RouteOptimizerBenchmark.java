@@ -0,0 +1,82 @@
+package com.routemasterapi.api.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+import com.routemasterapi.api.benchmark.BenchmarkSupport;
+import com.routemasterapi.api.benchmark.SyntheticDataset;
+import com.routemasterapi.api.service.RouteOptimizerService.OptimizationResult;
+
+/**
+ * End-to-end optimizer runs on synthetic data: load (from in-memory
+ * repositories), geocode, assign and sequence. The persistent distance
+ * matrix is left disabled so every invocation does the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RouteOptimizerBenchmark {
+
+    @Param({"10000", "100000"})
+    public int parcels;
+
+    @Param({"300"})
+    public int routes;
+
+    @Param({"UNIFORM", "BIMODAL"})
+    public SyntheticDataset.WeightDistribution weights;
+
+    @Param({"0.0", "1.0"})
+    public double pincodeSkew;
+
+    private RouteOptimizerService optimizer;
+
+    @Setup
+    public void setUp() {
+        SyntheticDataset data = SyntheticDataset.generate(parcels, routes, weights, pincodeSkew, 42);
+
+        PincodeGeocoder geocoder = new PincodeGeocoder();
+        BenchmarkSupport.inject(geocoder, "pincodeFiles",
+            new Resource[] { new ClassPathResource("geo/pincode-centroids.csv"), data.pincodeCsv() });
+        geocoder.load();
+
+        optimizer = new RouteOptimizerService();
+        BenchmarkSupport.inject(optimizer, "parcelRepository", BenchmarkSupport.parcelRepository(data.getParcels()));
+        BenchmarkSupport.inject(optimizer, "routerRepository", BenchmarkSupport.routerRepository(data.getRoutes()));
+        BenchmarkSupport.inject(optimizer, "pincodeGeocoder", geocoder);
+        BenchmarkSupport.inject(optimizer, "pincodeDistanceMatrix", new PincodeDistanceMatrix());
+        // Defaults from application.properties
+        BenchmarkSupport.inject(optimizer, "parcelFetchSize", Integer.MIN_VALUE);
+        BenchmarkSupport.inject(optimizer, "clusteringMaxIterations", 25);
+        BenchmarkSupport.inject(optimizer, "clusteringTimeBudgetMs", 10000L);
+        BenchmarkSupport.inject(optimizer, "clusteringConvergenceThreshold", 0.001);
+        BenchmarkSupport.inject(optimizer, "clusteringSeed", 42L);
+        BenchmarkSupport.inject(optimizer, "sequencingTimeBudgetMs", 100L);
+    }
+
+    @Benchmark
+    public OptimizationResult floodFill() {
+        return optimizer.optimizeRoutesUsingFloodFill();
+    }
+
+    @Benchmark
+    public OptimizationResult clustering() {
+        return optimizer.optimizeWithClustering();
+    }
+}
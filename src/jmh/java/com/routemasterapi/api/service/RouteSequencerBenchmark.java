@@ -0,0 +1,78 @@
+package com.routemasterapi.api.service;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sequencing one route: the nearest-neighbour construction alone versus
+ * construction plus 2-opt / Or-opt run to a local optimum. The tour lengths
+ * of both are printed at teardown so the quality gain can be read next to
+ * the time it costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RouteSequencerBenchmark {
+
+    @Param({"50", "200", "1000"})
+    public int stops;
+
+    private double depotLat;
+    private double depotLon;
+    private double[] stopLat;
+    private double[] stopLon;
+
+    private RouteSequencer constructionOnly;
+    private RouteSequencer localSearch;
+
+    @Setup
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(42);
+        // One city-sized delivery area around the depot
+        depotLat = 12.97;
+        depotLon = 77.59;
+        stopLat = new double[stops];
+        stopLon = new double[stops];
+        for (int i = 0; i < stops; i++) {
+            stopLat[i] = depotLat - 0.25 + random.nextDouble() * 0.5;
+            stopLon[i] = depotLon - 0.25 + random.nextDouble() * 0.5;
+        }
+
+        constructionOnly = new RouteSequencer(ForkJoinPool.commonPool(), 0);
+        // Large enough that the search always stops at a local optimum
+        localSearch = new RouteSequencer(ForkJoinPool.commonPool(), 60_000);
+    }
+
+    @TearDown
+    public void report() {
+        System.out.printf("%n%d stops: nearest neighbour %.1f km, 2-opt/Or-opt %.1f km%n", stops,
+            nearestNeighbour().length, improved().length);
+    }
+
+    @Benchmark
+    public RouteSequencer.Tour nearestNeighbour() {
+        return constructionOnly.sequence(depotLat, depotLon, stopLat, stopLon);
+    }
+
+    @Benchmark
+    public RouteSequencer.Tour improved() {
+        return localSearch.sequence(depotLat, depotLon, stopLat, stopLon);
+    }
+}
@@ -0,0 +1,129 @@
+package com.routemasterapi.api.service;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Flood fill assignment of a full parcel set: k-d tree lookup versus the
+ * original linear scan over every route. Each invocation assigns every parcel
+ * once, so the score is the cost of one optimization run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RouteSpatialIndexBenchmark {
+
+    private static final double EARTH_RADIUS_KM = 6371;
+
+    @Param({"10000", "100000", "1000000"})
+    public int parcels;
+
+    @Param({"3000"})
+    public int routes;
+
+    private double[] parcelLat;
+    private double[] parcelLon;
+    private double[] parcelWeight;
+    private double[] routeLat;
+    private double[] routeLon;
+    private double[] routeCapacity;
+
+    @Setup
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(42);
+
+        parcelLat = new double[parcels];
+        parcelLon = new double[parcels];
+        parcelWeight = new double[parcels];
+        double totalWeight = 0;
+        for (int i = 0; i < parcels; i++) {
+            parcelLat[i] = 8 + random.nextDouble() * 27;
+            parcelLon[i] = 68 + random.nextDouble() * 29;
+            parcelWeight[i] = 0.5 + random.nextDouble() * 20;
+            totalWeight += parcelWeight[i];
+        }
+        // Heaviest first, as in RouteOptimizerService
+        Arrays.sort(parcelWeight);
+        for (int i = 0, j = parcels - 1; i < j; i++, j--) {
+            double tmp = parcelWeight[i];
+            parcelWeight[i] = parcelWeight[j];
+            parcelWeight[j] = tmp;
+        }
+
+        routeLat = new double[routes];
+        routeLon = new double[routes];
+        routeCapacity = new double[routes];
+        // Slightly less capacity than demand so routes fill up and get retired
+        double capacityPerRoute = totalWeight * 0.95 / routes;
+        for (int r = 0; r < routes; r++) {
+            routeLat[r] = 8 + random.nextDouble() * 27;
+            routeLon[r] = 68 + random.nextDouble() * 29;
+            routeCapacity[r] = capacityPerRoute;
+        }
+    }
+
+    @Benchmark
+    public double spatialIndex() {
+        double[] remaining = routeCapacity.clone();
+        RouteSpatialIndex index = new RouteSpatialIndex(routeLat, routeLon, remaining, parcelWeight[parcels - 1]);
+        double totalDistance = 0;
+        for (int p = 0; p < parcels; p++) {
+            int best = index.nearest(parcelLat[p], parcelLon[p], parcelWeight[p]);
+            if (best >= 0) {
+                remaining[best] -= parcelWeight[p];
+                index.update(best, remaining[best]);
+                totalDistance += haversine(routeLat[best], routeLon[best], parcelLat[p], parcelLon[p]);
+            }
+        }
+        return totalDistance;
+    }
+
+    @Benchmark
+    public double linearScan() {
+        double[] remaining = routeCapacity.clone();
+        double totalDistance = 0;
+        for (int p = 0; p < parcels; p++) {
+            int best = -1;
+            double minDistance = Double.MAX_VALUE;
+            for (int r = 0; r < routes; r++) {
+                if (parcelWeight[p] <= remaining[r]) {
+                    double distance = haversine(routeLat[r], routeLon[r], parcelLat[p], parcelLon[p]);
+                    if (distance < minDistance) {
+                        minDistance = distance;
+                        best = r;
+                    }
+                }
+            }
+            if (best >= 0) {
+                remaining[best] -= parcelWeight[p];
+                totalDistance += minDistance;
+            }
+        }
+        return totalDistance;
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                  Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                  Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.asin(Math.sqrt(a));
+    }
+}
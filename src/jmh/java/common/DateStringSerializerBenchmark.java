@@ -0,0 +1,61 @@
+package common;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * JSON round trip of a date field through {@link DateStringSerializer} and
+ * {@link DateStringDeserializer}, as used for MM/dd/yyyy request and
+ * response fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateStringSerializerBenchmark {
+
+    public static class Dated {
+        @JsonSerialize(using = DateStringSerializer.class)
+        @JsonDeserialize(using = DateStringDeserializer.class)
+        public Date date;
+    }
+
+    private ObjectMapper objectMapper;
+    private Dated value;
+    private String json;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper();
+        value = new Dated();
+        value.date = new Date(1_745_000_000_000L);
+        json = objectMapper.writeValueAsString(value);
+    }
+
+    @Benchmark
+    public String serialize() throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    @Benchmark
+    public Dated deserialize() throws Exception {
+        return objectMapper.readValue(json, Dated.class);
+    }
+}
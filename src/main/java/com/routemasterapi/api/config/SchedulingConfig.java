@@ -0,0 +1,13 @@
+package com.routemasterapi.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} methods, such as the periodic rebalance of the
+ * incremental route optimizer.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -16,6 +16,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -52,6 +54,10 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                    // ✅ Async dispatches (CompletableFuture results, SSE streams) - the request
+                    // was already authorized, and the JWT filter does not run again for them
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                     // ✅ Authentication endpoints - NO AUTH REQUIRED
                     .requestMatchers("/api/auth/**").permitAll()
                     
@@ -2,14 +2,25 @@
 package com.routemasterapi.api.controller;
 
 import com.routemasterapi.api.entity.customerentity;
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.CustomerChangeEvent;
 import com.routemasterapi.api.model.LoginResponse;
 import com.routemasterapi.api.repositories.CustomerRepository;
+import com.routemasterapi.api.security.CustomerPrincipal;
+import com.routemasterapi.api.security.CustomerPrincipalCache;
 import com.routemasterapi.api.security.JwtTokenUtil;
+import com.routemasterapi.api.service.PasswordHashingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin
@@ -19,79 +30,109 @@ public class AuthenticationController {
     private CustomerRepository customerRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CustomerPrincipalCache principalCache;
+
+    // Spring Boot's general task pool: the save and token work after a hash runs here,
+    // so database latency never holds a thread of the bounded hashing pool
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
+
     /**
      * ✅ Register new user
      */
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@RequestBody customerentity user) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody customerentity user) {
         // Validate required fields
         if (user.getEmail() == null || user.getEmail().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ Email is required.");
+            return done(ResponseEntity.badRequest().body("❌ Email is required."));
         }
         if (user.getPassword() == null || user.getPassword().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ Password is required.");
+            return done(ResponseEntity.badRequest().body("❌ Password is required."));
         }
         if (user.getFirstName() == null || user.getFirstName().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ First name is required.");
+            return done(ResponseEntity.badRequest().body("❌ First name is required."));
         }
         if (user.getLastName() == null || user.getLastName().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ Last name is required.");
+            return done(ResponseEntity.badRequest().body("❌ Last name is required."));
         }
         if (user.getPhone() == null || user.getPhone().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ Phone is required.");
+            return done(ResponseEntity.badRequest().body("❌ Phone is required."));
         }
         if (user.getAddress() == null || user.getAddress().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ Address is required.");
+            return done(ResponseEntity.badRequest().body("❌ Address is required."));
         }
 
         // Check if email already exists
         if (customerRepository.findByEmail(user.getEmail()).isPresent()) {
-            return ResponseEntity.badRequest().body("❌ User already exists with this email.");
+            return done(ResponseEntity.badRequest().body("❌ User already exists with this email."));
         }
 
-        // Encode password before saving
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-
-        // ✅ SET DEFAULT ROLE TO USER
-        user.setRole("USER");
-
-        // Save user
-        customerRepository.save(user);
-        return ResponseEntity.ok("✅ User registered successfully!");
+        // Encode password before saving, off the request thread
+        try {
+            return passwordHashingService.encode(user.getPassword()).<ResponseEntity<?>>thenApplyAsync(encoded -> {
+                user.setPassword(encoded);
+
+                // ✅ SET DEFAULT ROLE TO USER
+                user.setRole("USER");
+
+                // Save user
+                customerentity saved = customerRepository.save(user);
+                eventPublisher.publishEvent(new CustomerChangeEvent(this, ChangeType.CREATED, saved.getCustomerId()));
+                return ResponseEntity.ok("✅ User registered successfully!");
+            }, applicationTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            return done(busy());
+        }
     }
 
     /**
      * ✅ Login user and return role + user info
      */
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody customerentity loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> loginUser(@RequestBody customerentity loginRequest) {
         // Validate required fields
         if (loginRequest.getEmail() == null || loginRequest.getEmail().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ Email is required.");
+            return done(ResponseEntity.badRequest().body("❌ Email is required."));
         }
         if (loginRequest.getPassword() == null || loginRequest.getPassword().trim().isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ Password is required.");
+            return done(ResponseEntity.badRequest().body("❌ Password is required."));
         }
 
         var userOpt = customerRepository.findByEmail(loginRequest.getEmail());
         if (userOpt.isEmpty()) {
-            return ResponseEntity.badRequest().body("❌ Invalid email or password.");
+            return done(ResponseEntity.badRequest().body("❌ Invalid email or password."));
         }
 
         var user = userOpt.get();
 
-        // ✅ Verify password
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            return ResponseEntity.badRequest().body("❌ Invalid email or password.");
+        // ✅ Verify password, off the request thread
+        try {
+            return passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())
+                    .<ResponseEntity<?>>thenApplyAsync(matches -> matches
+                            ? loginResponse(user)
+                            : ResponseEntity.badRequest().body("❌ Invalid email or password."), applicationTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            return done(busy());
         }
+    }
+
+    private ResponseEntity<?> loginResponse(customerentity user) {
+        // ✅ Cache the principal for the requests made with this token
+        CustomerPrincipal principal = CustomerPrincipal.from(user);
+        principalCache.put(principal);
 
         // ✅ Generate JWT token
-        String token = jwtTokenUtil.generateToken(user.getEmail());
+        String token = jwtTokenUtil.generateToken(user.getEmail(), principal.getPasswordVersion());
         
         // ✅ Get user role (default to USER if null)
         String userRole = user.getRole() != null ? user.getRole() : "USER";
@@ -108,4 +149,15 @@ public class AuthenticationController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    private static CompletableFuture<ResponseEntity<?>> done(ResponseEntity<?> response) {
+        return CompletableFuture.completedFuture(response);
+    }
+
+    // The hashing pool is saturated: fail fast instead of queueing without bound
+    private static ResponseEntity<?> busy() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "1")
+                .body("❌ Too many login attempts right now, please retry.");
+    }
+}
@@ -1,37 +1,34 @@
 package com.routemasterapi.api.controller;
 
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.routemasterapi.api.repositories.CustomerRepository;
-import com.routemasterapi.api.repositories.ParcelRepository;
+import com.routemasterapi.api.service.DashboardService;
 
 @RestController
 public class DashboardController {
 	@Autowired
-    private CustomerRepository customerRepository;
+    private DashboardService dashboardService;
 
 	@RequestMapping(value = "/dashboard/customercount", method = RequestMethod.GET)
     public ResponseEntity<Long> getNumberOfCustomers() {
-        long numberOfCustomers = customerRepository.count();
+        long numberOfCustomers = dashboardService.getNumberOfCustomers();
         return ResponseEntity.ok(numberOfCustomers);
     }
     
 
-    @Autowired
-    private ParcelRepository parcelRepository;
-
     @RequestMapping(value = "/dashboard/parcelscount", method = RequestMethod.GET)
     public ResponseEntity<Long> getNumberOfParcelsSent() {
-        long numberOfParcels = parcelRepository.count();
+        long numberOfParcels = dashboardService.getNumberOfParcelsSent();
         return ResponseEntity.ok(numberOfParcels);
     }
     
@@ -39,21 +36,49 @@ public class DashboardController {
 
     @RequestMapping(value = "/dashboard/parcelpayment", method = RequestMethod.GET)
     public ResponseEntity<Double> getTotalPaymentCollected() {
-        double totalPayment = parcelRepository.sumTotalPayment();
+        double totalPayment = dashboardService.getTotalPaymentCollected();
         return ResponseEntity.ok(totalPayment);
     }
    
 
     @RequestMapping(value = "/dashboard/parcelroutecount", method = RequestMethod.GET)
     public ResponseEntity<Map<String, Long>> getParcelCountPerRoute() {
-        List<Object[]> result = parcelRepository.countParcelsByRoute();
-        Map<String, Long> routeCountMap = new HashMap<>();
-        for (Object[] row : result) {
-            String routeName = (String) row[0];
-            Long parcelCount = (Long) row[1];
-            routeCountMap.put(routeName, parcelCount);
+        return ResponseEntity.ok(dashboardService.getParcelCountPerRoute());
+    }
+
+    // All dashboard totals in one response; polls with a matching If-None-Match get a 304
+    @RequestMapping(value = "/dashboard/snapshot", method = RequestMethod.GET)
+    public ResponseEntity<byte[]> getSnapshot(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = dashboardService.currentEtag();
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        DashboardService.Snapshot snapshot = dashboardService.getSnapshot();
+        return ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.getJson());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
         }
-        return ResponseEntity.ok(routeCountMap);
+        return false;
     }
 
 }
@@ -1,6 +1,9 @@
 package com.routemasterapi.api.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -8,11 +11,22 @@ import org.springframework.web.bind.annotation.*;
 
 import com.routemasterapi.api.model.ParcelRequestBody;
 import com.routemasterapi.api.model.ParcelIdRequest;
+import com.routemasterapi.api.service.ParcelExportService;
+import com.routemasterapi.api.service.ParcelImportService;
 import com.routemasterapi.api.service.ParcelService;
-import com.routemasterapi.api.entity.customerentity;
-import com.routemasterapi.api.repositories.CustomerRepository;
+import com.routemasterapi.api.security.CustomerPrincipal;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/parcels")
@@ -23,7 +37,10 @@ public class ParcelController {
     private ParcelService parcelService;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private ParcelImportService parcelImportService;
+
+    @Autowired
+    private ParcelExportService parcelExportService;
 
     /**
      * Create new parcel
@@ -40,6 +57,8 @@ public class ParcelController {
             System.out.println("📦 Creating parcel by user: " + currentUserEmail);
             
             return ResponseEntity.ok(parcelService.createParcel(parcelReqBody));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("❌ Error creating parcel: " + e.getMessage());
         }
@@ -54,6 +73,8 @@ public class ParcelController {
     public ResponseEntity<?> updateParcel(@RequestBody ParcelRequestBody parcelReqBody) {
         try {
             return ResponseEntity.ok(parcelService.updateParcel(parcelReqBody));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("❌ Error updating parcel: " + e.getMessage());
         }
@@ -61,75 +82,133 @@ public class ParcelController {
 
     /**
      * Get all parcels (paginated) - ADMIN ONLY
-     * Endpoint: GET /api/parcels?pageNumber=0&size=10
+     * Endpoint: GET /api/parcels?size=10&cursor=...
+     * Keyset pages ordered by parcel id: pass the returned nextCursor to get the next page.
+     * Legacy offset paging (with total counts) when pageNumber is given: GET /api/parcels?pageNumber=0&size=10
      * Requires: JWT Token
      */
     @GetMapping("")
     public ResponseEntity<?> listAllParcels(
-            @RequestParam(defaultValue = "0") final Integer pageNumber,
-            @RequestParam(defaultValue = "10") final Integer size) {
+            @RequestParam(required = false) final Integer pageNumber,
+            @RequestParam(defaultValue = "10") final Integer size,
+            @RequestParam(required = false) final String cursor) {
         try {
-            return ResponseEntity.ok(parcelService.listallparcelsfromdb(pageNumber, size));
+            if (pageNumber != null && cursor == null) {
+                return ResponseEntity.ok(parcelService.listallparcelsfromdb(pageNumber, size));
+            }
+            return ResponseEntity.ok(parcelService.listparcelsafter(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("❌ Error listing parcels: " + e.getMessage());
         }
     }
 
+    /**
+     * Total number of parcels, for callers of the keyset listing that need it
+     * Endpoint: GET /api/parcels/count
+     * Requires: JWT Token
+     */
+    @GetMapping("/count")
+    public ResponseEntity<?> countAllParcels() {
+        try {
+            return ResponseEntity.ok(Map.of("totalElements", parcelService.countparcels()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("❌ Error counting parcels: " + e.getMessage());
+        }
+    }
+
     /**
      * ✅ NEW ENDPOINT - Get current user's parcels
-     * Endpoint: GET /api/parcels/my-parcels?pageNumber=0&size=10
+     * Endpoint: GET /api/parcels/my-parcels?size=10&cursor=...
+     * (legacy offset paging with pageNumber=0&size=10)
      * Requires: JWT Token
      * For: USER and ADMIN
      */
     @GetMapping("/my-parcels")
     public ResponseEntity<?> getMyParcels(
-            @RequestParam(defaultValue = "0") final Integer pageNumber,
-            @RequestParam(defaultValue = "10") final Integer size) {
+            @RequestParam(required = false) final Integer pageNumber,
+            @RequestParam(defaultValue = "10") final Integer size,
+            @RequestParam(required = false) final String cursor) {
         try {
-            // Get current logged-in user
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            String currentUserEmail = authentication.getName();
-            
-            System.out.println("📦 User " + currentUserEmail + " requesting their parcels");
-            
-            // Find customer by email
-            Optional<customerentity> customerOpt = customerRepository.findByEmail(currentUserEmail);
-            if (customerOpt.isEmpty()) {
+            Optional<Integer> customerId = currentCustomerId();
+            if (customerId.isEmpty()) {
                 return ResponseEntity.status(404).body("❌ User profile not found");
             }
             
-            // Get their customer ID
-            int customerId = customerOpt.get().getCustomerId();
-            
             // Return parcels for this customer
-            return ResponseEntity.ok(parcelService.listcustomerparcelstatusfromdb(pageNumber, size, customerId));
+            if (pageNumber != null && cursor == null) {
+                return ResponseEntity.ok(parcelService.listcustomerparcelstatusfromdb(pageNumber, size, customerId.get()));
+            }
+            return ResponseEntity.ok(parcelService.listcustomerparcelsafter(customerId.get(), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("❌ Error loading your parcels: " + e.getMessage());
         }
     }
 
+    /**
+     * Number of parcels of the current user
+     * Endpoint: GET /api/parcels/my-parcels/count
+     * Requires: JWT Token
+     */
+    @GetMapping("/my-parcels/count")
+    public ResponseEntity<?> countMyParcels() {
+        try {
+            Optional<Integer> customerId = currentCustomerId();
+            if (customerId.isEmpty()) {
+                return ResponseEntity.status(404).body("❌ User profile not found");
+            }
+            return ResponseEntity.ok(Map.of("totalElements", parcelService.countcustomerparcels(customerId.get())));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("❌ Error counting your parcels: " + e.getMessage());
+        }
+    }
+
     /**
      * Get parcels for specific customer
-     * Endpoint: GET /api/parcels/customer/{customerId}?pageNumber=0&size=10
+     * Endpoint: GET /api/parcels/customer/{customerId}?size=10&cursor=...
+     * (legacy offset paging with pageNumber=0&size=10)
      * Requires: JWT Token
      */
     @GetMapping("/customer/{customerId}")
     public ResponseEntity<?> listCustomerParcelStatus(
             @PathVariable int customerId,
-            @RequestParam(defaultValue = "0") final Integer pageNumber,
-            @RequestParam(defaultValue = "10") final Integer size) {
+            @RequestParam(required = false) final Integer pageNumber,
+            @RequestParam(defaultValue = "10") final Integer size,
+            @RequestParam(required = false) final String cursor) {
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String currentUserEmail = authentication.getName();
             
             System.out.println("📦 User " + currentUserEmail + " requesting parcels for customer ID: " + customerId);
             
-            return ResponseEntity.ok(parcelService.listcustomerparcelstatusfromdb(pageNumber, size, customerId));
+            if (pageNumber != null && cursor == null) {
+                return ResponseEntity.ok(parcelService.listcustomerparcelstatusfromdb(pageNumber, size, customerId));
+            }
+            return ResponseEntity.ok(parcelService.listcustomerparcelsafter(customerId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("❌ Error listing customer parcels: " + e.getMessage());
         }
     }
 
+    /**
+     * Number of parcels of a specific customer
+     * Endpoint: GET /api/parcels/customer/{customerId}/count
+     * Requires: JWT Token
+     */
+    @GetMapping("/customer/{customerId}/count")
+    public ResponseEntity<?> countCustomerParcels(@PathVariable int customerId) {
+        try {
+            return ResponseEntity.ok(Map.of("totalElements", parcelService.countcustomerparcels(customerId)));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("❌ Error counting customer parcels: " + e.getMessage());
+        }
+    }
+
     /**
      * Get parcels from last month
      * Endpoint: GET /api/parcels/last-month?pageNumber=0&size=10
@@ -175,6 +254,117 @@ public class ParcelController {
             return ResponseEntity.status(500).body("❌ Error deleting parcel: " + e.getMessage());
         }
     }
+
+    /**
+     * Bulk import of parcels, read from the request body as it arrives
+     * Endpoint: POST /api/parcels/import (Content-Type text/csv or application/x-ndjson)
+     * CSV needs a header row with at least customerId and routeId; ?format=csv|ndjson overrides the content type.
+     * Returns counts and the rejected rows with their line numbers.
+     * Requires: JWT Token
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importParcels(HttpServletRequest request,
+            @RequestParam(required = false) String format) {
+        ParcelImportService.Format importFormat;
+        if (format != null) {
+            if (format.equalsIgnoreCase("csv")) {
+                importFormat = ParcelImportService.Format.CSV;
+            } else if (format.equalsIgnoreCase("ndjson") || format.equalsIgnoreCase("jsonl")) {
+                importFormat = ParcelImportService.Format.NDJSON;
+            } else {
+                return ResponseEntity.badRequest().body("❌ Unknown import format: " + format);
+            }
+        } else {
+            String contentType = request.getContentType() != null ? request.getContentType().toLowerCase() : "";
+            importFormat = contentType.contains("json")
+                    ? ParcelImportService.Format.NDJSON : ParcelImportService.Format.CSV;
+        }
+        try {
+            return ResponseEntity.ok(parcelImportService.importParcels(request.getInputStream(), importFormat));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "30")
+                    .body("❌ " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("❌ " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("❌ Error importing parcels: " + e.getMessage());
+        }
+    }
+
+    /**
+     * All parcels as one stream, for reporting jobs, instead of paging through GET /api/parcels
+     * Endpoint: GET /api/parcels/export?format=ndjson|csv&status=DELIVERED&customerId=3&from=2024-01-01&to=2024-03-31
+     * Filters are optional; from/to compare the created date. Gzip-compressed when the client accepts it.
+     * Requires: JWT Token
+     */
+    @GetMapping("/export")
+    public void exportParcels(
+            @RequestParam(defaultValue = "ndjson") final String format,
+            @RequestParam(required = false) final String status,
+            @RequestParam(required = false) final Integer customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        ParcelExportService.Format exportFormat;
+        if (format.equalsIgnoreCase("csv")) {
+            exportFormat = ParcelExportService.Format.CSV;
+        } else if (format.equalsIgnoreCase("ndjson") || format.equalsIgnoreCase("jsonl")) {
+            exportFormat = ParcelExportService.Format.NDJSON;
+        } else {
+            writeError(response, 400, "❌ Unknown export format: " + format);
+            return;
+        }
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        response.setContentType(exportFormat == ParcelExportService.Format.CSV
+                ? "text/csv;charset=UTF-8" : "application/x-ndjson;charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"parcels."
+                + (exportFormat == ParcelExportService.Format.CSV ? "csv" : "ndjson") + "\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        // Nothing reaches the client before the first buffer fills, so errors raised
+        // before that (busy, bad query) can still be answered with a status
+        OutputStream body = response.getOutputStream();
+        GZIPOutputStream gzipBody = gzip ? new GZIPOutputStream(body, 16 * 1024) : null;
+        try {
+            parcelExportService.export(gzipBody != null ? gzipBody : body, exportFormat, status, customerId, from, to);
+            if (gzipBody != null) {
+                gzipBody.finish();
+            }
+        } catch (RejectedExecutionException e) {
+            response.reset();
+            response.setHeader("Retry-After", "30");
+            writeError(response, 429, "❌ " + e.getMessage());
+        } catch (RuntimeException e) {
+            if (response.isCommitted()) {
+                // Part of the export is already out: fail the response so the client sees it cut off
+                throw e;
+            }
+            response.reset();
+            writeError(response, 500, "❌ Error exporting parcels: " + e.getMessage());
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Customer id of the logged-in user, from the principal JwtRequestFilter put in the security context
+    private Optional<Integer> currentCustomerId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof CustomerPrincipal principal) {
+            return Optional.of(principal.getCustomerId());
+        }
+        return Optional.empty();
+    }
     
     @GetMapping("/test")
     public ResponseEntity<?> testEndpoint() {
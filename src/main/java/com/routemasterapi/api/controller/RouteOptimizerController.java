@@ -2,25 +2,32 @@ package com.routemasterapi.api.controller;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.routemasterapi.api.service.IncrementalRouteOptimizer;
+import com.routemasterapi.api.service.OptimizationAlgorithm;
+import com.routemasterapi.api.service.OptimizationJobService;
+import com.routemasterapi.api.service.OptimizationJobService.JobStatus;
+import com.routemasterapi.api.service.OptimizationJobService.OptimizationJob;
+import com.routemasterapi.api.service.OptimizationResultCache;
+import com.routemasterapi.api.service.OptimizerDiagnosticsService;
 import com.routemasterapi.api.service.RouteOptimizerService;
 import com.routemasterapi.api.service.RouteOptimizerService.OptimizationResult;
-import com.routemasterapi.api.repositories.ParcelRepository;
-import com.routemasterapi.api.repositories.RouterRepository;
-import com.routemasterapi.api.entity.ParcelEntity;
-import com.routemasterapi.api.entity.RouterEntity;
 
 @RestController
 @RequestMapping("/api/optimizer")
@@ -33,10 +40,16 @@ public class RouteOptimizerController {
     private RouteOptimizerService routeOptimizerService;
     
     @Autowired
-    private ParcelRepository parcelRepository;
+    private OptimizationJobService optimizationJobService;
     
     @Autowired
-    private RouterRepository routerRepository;
+    private IncrementalRouteOptimizer incrementalRouteOptimizer;
+    
+    @Autowired
+    private OptimizationResultCache optimizationResultCache;
+    
+    @Autowired
+    private OptimizerDiagnosticsService optimizerDiagnosticsService;
     
     @GetMapping("/health")
     public ResponseEntity<?> getHealth() {
@@ -59,113 +72,17 @@ public class RouteOptimizerController {
         }
     }
     
+    /**
+     * Table counts, data quality counts and a sample row per table
+     * Endpoint: GET /api/optimizer/diagnostics?fresh=false
+     * Served from the periodically refreshed snapshot unless fresh=true
+     */
     @GetMapping("/diagnostics")
-    public ResponseEntity<?> getDiagnostics() {
+    public ResponseEntity<?> getDiagnostics(@RequestParam(defaultValue = "false") boolean fresh) {
         logger.info("Diagnostic request received");
         
-        Map<String, Object> diagnostics = new HashMap<>();
-        
         try {
-            Map<String, Object> parcelDiag = new HashMap<>();
-            try {
-                List<ParcelEntity> allParcels = new ArrayList<>();
-                parcelRepository.findAll().forEach(allParcels::add);
-                
-                parcelDiag.put("status", "✅ Connected");
-                parcelDiag.put("totalCount", allParcels.size());
-                
-                if (allParcels.isEmpty()) {
-                    parcelDiag.put("warning", "⚠️ No parcels found in database");
-                } else {
-                    ParcelEntity firstParcel = allParcels.get(0);
-                    Map<String, Object> firstParcelData = new HashMap<>();
-                    firstParcelData.put("parcelId", firstParcel.getParcelId());
-                    firstParcelData.put("tracking_number", firstParcel.getTrackingNumber());
-                    firstParcelData.put("weight", firstParcel.getWeight());
-                    firstParcelData.put("destinationAddress", firstParcel.getDestinationAddress());
-                    firstParcelData.put("destinationPincode", firstParcel.getDestinationPincode());
-                    
-                    parcelDiag.put("firstParcelSample", firstParcelData);
-                    
-                    long zeroWeights = 0;
-                    for (ParcelEntity p : allParcels) {
-                        if (p.getWeight() <= 0) {
-                            zeroWeights++;
-                        }
-                    }
-                    
-                    parcelDiag.put("zeroOrNullWeights", zeroWeights);
-                    parcelDiag.put("validParcels", allParcels.size() - zeroWeights);
-                }
-            } catch (Exception e) {
-                parcelDiag.put("status", "❌ Error");
-                parcelDiag.put("error", e.getMessage());
-                logger.error("Error reading parcel table", e);
-            }
-            diagnostics.put("parcelTable", parcelDiag);
-            
-            Map<String, Object> routerDiag = new HashMap<>();
-            try {
-                List<RouterEntity> allRouters = new ArrayList<>();
-                routerRepository.findAll().forEach(allRouters::add);
-                
-                routerDiag.put("status", "✅ Connected");
-                routerDiag.put("totalCount", allRouters.size());
-                
-                if (allRouters.isEmpty()) {
-                    routerDiag.put("warning", "⚠️ No routes found in database");
-                } else {
-                    RouterEntity firstRouter = allRouters.get(0);
-                    Map<String, Object> firstRouterData = new HashMap<>();
-                    firstRouterData.put("routeId", firstRouter.getRouteId());
-                    firstRouterData.put("name", firstRouter.getName());
-                    firstRouterData.put("description", firstRouter.getDescription());
-                    firstRouterData.put("pincode", firstRouter.getPincode());
-                    firstRouterData.put("totalDistance", firstRouter.getTotalDistance());
-                    
-                    routerDiag.put("firstRouterSample", firstRouterData);
-                    
-                    long zeroDistance = 0;
-                    for (RouterEntity r : allRouters) {
-                        if (r.getTotalDistance() <= 0) {
-                            zeroDistance++;
-                        }
-                    }
-                    
-                    routerDiag.put("zeroOrNullDistance", zeroDistance);
-                    routerDiag.put("validRoutes", allRouters.size() - zeroDistance);
-                }
-            } catch (Exception e) {
-                routerDiag.put("status", "❌ Error");
-                routerDiag.put("error", e.getMessage());
-                logger.error("Error reading router table", e);
-            }
-            diagnostics.put("routerTable", routerDiag);
-            
-            Map<String, Object> connectionDiag = new HashMap<>();
-            try {
-                long parcelCount = 0;
-                for (ParcelEntity p : parcelRepository.findAll()) {
-                    parcelCount++;
-                }
-                
-                long routerCount = 0;
-                for (RouterEntity r : routerRepository.findAll()) {
-                    routerCount++;
-                }
-                
-                connectionDiag.put("status", "✅ Database Connected");
-                connectionDiag.put("totalParcels", parcelCount);
-                connectionDiag.put("totalRouters", routerCount);
-                connectionDiag.put("canOptimize", parcelCount > 0 && routerCount > 0);
-            } catch (Exception e) {
-                connectionDiag.put("status", "❌ Database Connection Failed");
-                connectionDiag.put("error", e.getMessage());
-                logger.error("Database connection error", e);
-            }
-            diagnostics.put("databaseConnection", connectionDiag);
-            
-            diagnostics.put("overallStatus", "✅ Diagnostic complete");
+            Map<String, Object> diagnostics = optimizerDiagnosticsService.getDiagnostics(fresh);
             
             logger.info("Diagnostics retrieved successfully");
             return ResponseEntity.ok(diagnostics);
@@ -188,7 +105,7 @@ public class RouteOptimizerController {
                     "Service not initialized properly");
             }
             
-            OptimizationResult result = routeOptimizerService.optimizeRoutesUsingFloodFill();
+            OptimizationResult result = optimizationResultCache.optimize(OptimizationAlgorithm.FLOOD_FILL);
             
             if (result == null) {
                 logger.error("Optimization result is null");
@@ -220,7 +137,7 @@ public class RouteOptimizerController {
                     "Service not initialized");
             }
             
-            OptimizationResult result = routeOptimizerService.optimizeWithClustering();
+            OptimizationResult result = optimizationResultCache.optimize(OptimizationAlgorithm.CLUSTERING);
             
             if (result == null) {
                 return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
@@ -251,7 +168,7 @@ public class RouteOptimizerController {
                     "Service not initialized");
             }
             
-            Map<String, Object> stats = routeOptimizerService.getOptimizationStats();
+            Map<String, Object> stats = optimizationResultCache.getOptimizationStats();
             
             if (stats == null) {
                 stats = new HashMap<>();
@@ -274,6 +191,140 @@ public class RouteOptimizerController {
         }
     }
     
+    /**
+     * Submit an optimization to run in the background
+     * Endpoint: POST /api/optimizer/jobs?algorithm=flood-fill|clustering
+     * Returns 202 with the job id; identical submissions for unchanged data share one run
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitOptimizationJob(
+            @RequestParam(defaultValue = "flood-fill") String algorithm) {
+        logger.info("Optimization job submission received: {}", algorithm);
+        
+        try {
+            OptimizationJob job = optimizationJobService.submit(OptimizationAlgorithm.fromCode(algorithm));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.describe());
+        } catch (IllegalArgumentException e) {
+            return buildErrorResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Optimization job queue is full");
+            return buildErrorResponse(HttpStatus.TOO_MANY_REQUESTS, 
+                "Optimizer is busy, retry later");
+        } catch (Exception e) {
+            logger.error("Error submitting optimization job", e);
+            return buildErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, 
+                "Error submitting optimization job: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Poll job status and progress
+     * Endpoint: GET /api/optimizer/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getOptimizationJob(@PathVariable String jobId) {
+        OptimizationJob job = optimizationJobService.getJob(jobId);
+        if (job == null) {
+            return buildErrorResponse(HttpStatus.NOT_FOUND, "No optimization job with id " + jobId);
+        }
+        return ResponseEntity.ok(job.describe());
+    }
+    
+    /**
+     * Fetch the result of a completed job
+     * Endpoint: GET /api/optimizer/jobs/{jobId}/result
+     * Returns 409 while the job is still queued or running, or when it did not complete
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<?> getOptimizationJobResult(@PathVariable String jobId) {
+        OptimizationJob job = optimizationJobService.getJob(jobId);
+        if (job == null) {
+            return buildErrorResponse(HttpStatus.NOT_FOUND, "No optimization job with id " + jobId);
+        }
+        if (job.getStatus() != JobStatus.COMPLETED) {
+            return buildErrorResponse(HttpStatus.CONFLICT, "Optimization job is " + job.getStatus());
+        }
+        return ResponseEntity.ok(job.getResult());
+    }
+    
+    /**
+     * Cancel a queued or running job
+     * Endpoint: DELETE /api/optimizer/jobs/{jobId}
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<?> cancelOptimizationJob(@PathVariable String jobId) {
+        OptimizationJob job = optimizationJobService.cancel(jobId);
+        if (job == null) {
+            return buildErrorResponse(HttpStatus.NOT_FOUND, "No optimization job with id " + jobId);
+        }
+        logger.info("Cancellation requested for optimization job {}", jobId);
+        return ResponseEntity.ok(job.describe());
+    }
+    
+    @GetMapping("/jobs/executor")
+    public ResponseEntity<?> getOptimizationExecutorStats() {
+        return ResponseEntity.ok(optimizationJobService.getExecutorStats());
+    }
+    
+    /**
+     * Result cache metrics: hits, misses, evictions and memory use
+     * Endpoint: GET /api/optimizer/cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<?> getOptimizationCacheStats() {
+        return ResponseEntity.ok(optimizationResultCache.getStats());
+    }
+    
+    /**
+     * State of the incremental optimizer: delta counters and latency, and the
+     * current per-route assignment once it has been loaded
+     * Endpoint: GET /api/optimizer/incremental
+     */
+    @GetMapping("/incremental")
+    public ResponseEntity<?> getIncrementalStatus() {
+        try {
+            return ResponseEntity.ok(incrementalRouteOptimizer.getStatus());
+        } catch (TimeoutException e) {
+            return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, 
+                "Incremental optimizer is busy, retry later");
+        }
+    }
+    
+    /**
+     * Current route of one parcel in the incremental assignment
+     * Endpoint: GET /api/optimizer/incremental/parcels/{parcelId}
+     */
+    @GetMapping("/incremental/parcels/{parcelId}")
+    public ResponseEntity<?> getIncrementalAssignment(@PathVariable int parcelId) {
+        try {
+            Map<String, Object> assignment = incrementalRouteOptimizer.getParcelAssignment(parcelId);
+            if (assignment == null) {
+                return buildErrorResponse(HttpStatus.NOT_FOUND, 
+                    "Parcel " + parcelId + " is not in the incremental assignment");
+            }
+            return ResponseEntity.ok(assignment);
+        } catch (TimeoutException e) {
+            return buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, 
+                "Incremental optimizer is busy, retry later");
+        }
+    }
+    
+    /**
+     * Rebuild the incremental assignment from the database with a full flood fill
+     * Endpoint: POST /api/optimizer/incremental/rebalance
+     */
+    @PostMapping("/incremental/rebalance")
+    public ResponseEntity<?> rebalanceIncremental() {
+        if (!incrementalRouteOptimizer.requestRebalance()) {
+            return buildErrorResponse(HttpStatus.TOO_MANY_REQUESTS, 
+                "Incremental optimizer is busy, retry later");
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "✅ Rebalance queued");
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+    
     private ResponseEntity<?> buildErrorResponse(HttpStatus status, String message) {
         Map<String, Object> errorResponse = new HashMap<>();
         errorResponse.put("status", "❌ Error");
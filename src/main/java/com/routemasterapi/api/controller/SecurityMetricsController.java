@@ -0,0 +1,26 @@
+package com.routemasterapi.api.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.routemasterapi.api.service.PasswordHashingService;
+
+@RestController
+@RequestMapping("/api/security")
+@CrossOrigin
+public class SecurityMetricsController {
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    /**
+     * Password hashing pool: queue depth, rejections and hash latency
+     * Endpoint: GET /api/security/hashing
+     * Requires: JWT Token
+     */
+    @GetMapping("/hashing")
+    public ResponseEntity<?> getHashingStats() {
+        return ResponseEntity.ok(passwordHashingService.getStats());
+    }
+}
@@ -0,0 +1,70 @@
+package com.routemasterapi.api.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import com.routemasterapi.api.security.CustomerPrincipal;
+import com.routemasterapi.api.service.StatusStreamService;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/stream")
+@CrossOrigin
+public class StatusStreamController {
+
+    @Autowired
+    private StatusStreamService statusStreamService;
+
+    @Value("${routemaster.stream.max-parcel-filter:100}")
+    private int maxParcelFilter;
+
+    /**
+     * Server-sent events for parcel status changes ("parcel") and new tracking
+     * entries ("tracking"), replacing polling of /api/track and /api/parcels/my-parcels
+     * Endpoint: GET /api/stream/status?parcelId=1&parcelId=2&customerId=3
+     * Without filters the stream follows the current user's parcels.
+     * A "resync" event means events were dropped and the client should reload.
+     * Requires: JWT Token
+     */
+    @GetMapping(value = "/status", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamStatus(
+            @RequestParam(required = false) List<Integer> parcelId,
+            @RequestParam(required = false) Integer customerId) {
+        List<Integer> parcelIds = parcelId != null ? parcelId : List.of();
+        if (parcelIds.size() > maxParcelFilter) {
+            return ResponseEntity.badRequest().body("❌ At most " + maxParcelFilter + " parcel ids per stream");
+        }
+        if (parcelIds.isEmpty() && customerId == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (!(authentication.getPrincipal() instanceof CustomerPrincipal principal)) {
+                return ResponseEntity.status(404).body("❌ User profile not found");
+            }
+            customerId = principal.getCustomerId();
+        }
+        try {
+            return ResponseEntity.ok(statusStreamService.subscribe(parcelIds, customerId));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "5")
+                    .body("❌ " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open streams and delivered, coalesced and dropped events
+     * Endpoint: GET /api/stream/stats
+     * Requires: JWT Token
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStreamStats() {
+        return ResponseEntity.ok(statusStreamService.getStats());
+    }
+}
@@ -1,13 +1,27 @@
 package com.routemasterapi.api.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import com.routemasterapi.api.model.TrackParcelIdRequest;
 import com.routemasterapi.api.model.TrackParcelRequestBody;
+import com.routemasterapi.api.model.TrackingState;
+import com.routemasterapi.api.service.ParcelTrackingStateService;
 import com.routemasterapi.api.service.TrackParcelService;
+import com.routemasterapi.api.service.TrackingArchiveService;
+import com.routemasterapi.api.service.TrackingIngestionService;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/track")
@@ -17,6 +31,15 @@ public class TrackParcelController {
     @Autowired
     private TrackParcelService trackParcelService;
 
+    @Autowired
+    private TrackingIngestionService trackingIngestionService;
+
+    @Autowired
+    private ParcelTrackingStateService parcelTrackingStateService;
+
+    @Autowired
+    private TrackingArchiveService trackingArchiveService;
+
     /**
      * Create tracking entry
      * Endpoint: POST /api/track/create
@@ -52,21 +75,88 @@ public class TrackParcelController {
     }
 
     /**
-     * Get all tracking records (paginated)
+     * Get tracking records of the hot window (paginated)
      * Endpoint: GET /api/track?pageNumber=0&size=10
+     * Older records that are not archived yet: GET /api/track?from=2024-01-01&to=2024-03-31
+     * Archived records are read per parcel: GET /api/track/parcel/{parcelId}/history
      * Requires: JWT Token
      */
     @GetMapping("")
     public ResponseEntity<?> listAllTrackParcels(
             @RequestParam(defaultValue = "0") final Integer pageNumber,
-            @RequestParam(defaultValue = "10") final Integer size) {
+            @RequestParam(defaultValue = "10") final Integer size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to) {
         try {
+            if (from != null || to != null) {
+                return ResponseEntity.ok(trackParcelService.listparcelsbetween(from, to, pageNumber, size));
+            }
             return ResponseEntity.ok(trackParcelService.listAllparcelfromdb(pageNumber, size));
         } catch (Exception e) {
             return ResponseEntity.status(500).body("❌ Error listing tracking records: " + e.getMessage());
         }
     }
 
+    /**
+     * Latest tracking state of a parcel
+     * Endpoint: GET /api/track/parcel/{parcelId}/latest
+     * Requires: JWT Token
+     */
+    @GetMapping("/parcel/{parcelId}/latest")
+    public ResponseEntity<?> getLatestTracking(@PathVariable int parcelId) {
+        TrackingState state = parcelTrackingStateService.getLatest(parcelId);
+        if (state == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("❌ No tracking for parcel " + parcelId);
+        }
+        return ResponseEntity.ok(state);
+    }
+
+    /**
+     * Tracking history of a parcel, oldest first
+     * Endpoint: GET /api/track/parcel/{parcelId}/history
+     * With a date range the archived history is included: ?from=2024-01-01&to=2024-03-31
+     * Requires: JWT Token
+     */
+    @GetMapping("/parcel/{parcelId}/history")
+    public ResponseEntity<?> getTrackingHistory(
+            @PathVariable int parcelId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to) {
+        try {
+            return ResponseEntity.ok(trackParcelService.listparcelhistory(parcelId, from, to));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("❌ Error loading tracking history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Tracking archive: hot window, archived parcels and rows, compression
+     * Endpoint: GET /api/track/archive/status
+     * Requires: JWT Token
+     */
+    @GetMapping("/archive/status")
+    public ResponseEntity<?> getArchiveStatus() {
+        return ResponseEntity.ok(trackingArchiveService.getStatus());
+    }
+
+    /**
+     * Latest tracking state of the parcel with this tracking number
+     * Endpoint: GET /api/track/latest?trackingNumber=TRK123
+     * Requires: JWT Token
+     */
+    @GetMapping("/latest")
+    public ResponseEntity<?> getLatestTrackingByNumber(@RequestParam String trackingNumber) {
+        try {
+            Integer parcelId = parcelTrackingStateService.findParcelId(trackingNumber);
+            if (parcelId == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("❌ No parcel with this tracking number");
+            }
+            return getLatestTracking(parcelId);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("❌ Error fetching tracking: " + e.getMessage());
+        }
+    }
+
     /**
      * Delete tracking entry
      * Endpoint: DELETE /api/track/delete
@@ -80,4 +170,64 @@ public class TrackParcelController {
             return ResponseEntity.status(500).body("❌ Error deleting tracking: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Bulk tracking scans, written in batches
+     * Endpoint: POST /api/track/bulk?waitForDurable=true
+     * Body: array of tracking entries (same fields as /create)
+     * Requires: JWT Token
+     *
+     * With waitForDurable (default) the response is sent once every accepted
+     * event is committed (200), or after the ack timeout (202); otherwise right
+     * after queueing (202). Events up to durableSequence are committed.
+     */
+    @PostMapping("/bulk")
+    public CompletableFuture<ResponseEntity<?>> ingestTrackParcels(
+            @RequestBody List<TrackParcelRequestBody> trackReqBodies,
+            @RequestParam(defaultValue = "true") final boolean waitForDurable) {
+        TrackingIngestionService.Receipt receipt;
+        try {
+            receipt = trackingIngestionService.submit(trackReqBodies);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("❌ " + e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body("❌ " + e.getMessage()));
+        }
+
+        if (!waitForDurable) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.ACCEPTED).body(describe(receipt, null)));
+        }
+        return receipt.getDurable()
+                .completeOnTimeout(-1, trackingIngestionService.getAckTimeoutMs(), TimeUnit.MILLISECONDS)
+                .thenApply(failed -> failed >= 0
+                        ? ResponseEntity.ok(describe(receipt, failed))
+                        : ResponseEntity.status(HttpStatus.ACCEPTED).body(describe(receipt, null)));
+    }
+
+    /**
+     * Bulk ingestion progress: last assigned and last durable sequence, queue depth
+     * Endpoint: GET /api/track/bulk/status
+     * Requires: JWT Token
+     */
+    @GetMapping("/bulk/status")
+    public ResponseEntity<?> getIngestionStatus() {
+        return ResponseEntity.ok(trackingIngestionService.getStatus());
+    }
+
+    // failed is null while the events are not durable yet
+    private Map<String, Object> describe(TrackingIngestionService.Receipt receipt, Integer failed) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", failed == null ? "⚠️ Queued" : failed == 0 ? "✅ Durable" : "⚠️ Durable with failures");
+        response.put("accepted", receipt.getAccepted());
+        response.put("rejected", receipt.getRejected());
+        response.put("firstSequence", receipt.getFirstSequence());
+        response.put("lastSequence", receipt.getLastSequence());
+        response.put("durable", failed != null);
+        response.put("failed", failed);
+        response.put("durableSequence", trackingIngestionService.getDurableSequence());
+        return response;
+    }
+}
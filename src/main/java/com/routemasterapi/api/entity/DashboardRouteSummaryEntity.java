@@ -0,0 +1,57 @@
+package com.routemasterapi.api.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Parcel count per route, maintained by DashboardService.
+ */
+@Entity
+@Table(name = "dashboard_route_summary")
+public class DashboardRouteSummaryEntity {
+
+    @Id
+    @Column(name = "route_id")
+    private int routeId;
+
+    @Column(name = "route_name")
+    private String routeName;
+
+    @Column(name = "parcel_count")
+    private long parcelCount;
+
+    public DashboardRouteSummaryEntity() {
+    }
+
+    public DashboardRouteSummaryEntity(int routeId, String routeName, long parcelCount) {
+        this.routeId = routeId;
+        this.routeName = routeName;
+        this.parcelCount = parcelCount;
+    }
+
+    public int getRouteId() {
+        return routeId;
+    }
+
+    public void setRouteId(int routeId) {
+        this.routeId = routeId;
+    }
+
+    public String getRouteName() {
+        return routeName;
+    }
+
+    public void setRouteName(String routeName) {
+        this.routeName = routeName;
+    }
+
+    public long getParcelCount() {
+        return parcelCount;
+    }
+
+    public void setParcelCount(long parcelCount) {
+        this.parcelCount = parcelCount;
+    }
+}
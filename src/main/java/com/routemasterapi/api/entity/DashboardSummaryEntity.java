@@ -0,0 +1,83 @@
+package com.routemasterapi.api.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Single-row table holding the dashboard totals maintained by DashboardService.
+ */
+@Entity
+@Table(name = "dashboard_summary")
+public class DashboardSummaryEntity {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private int id = SINGLETON_ID;
+
+    @Column(name = "customer_count")
+    private long customerCount;
+
+    @Column(name = "parcel_count")
+    private long parcelCount;
+
+    @Column(name = "total_payment")
+    private double totalPayment;
+
+    @Column(name = "updated_at")
+    private long updatedAt;
+
+    @Column(name = "reconciled_at")
+    private long reconciledAt;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public long getCustomerCount() {
+        return customerCount;
+    }
+
+    public void setCustomerCount(long customerCount) {
+        this.customerCount = customerCount;
+    }
+
+    public long getParcelCount() {
+        return parcelCount;
+    }
+
+    public void setParcelCount(long parcelCount) {
+        this.parcelCount = parcelCount;
+    }
+
+    public double getTotalPayment() {
+        return totalPayment;
+    }
+
+    public void setTotalPayment(double totalPayment) {
+        this.totalPayment = totalPayment;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getReconciledAt() {
+        return reconciledAt;
+    }
+
+    public void setReconciledAt(long reconciledAt) {
+        this.reconciledAt = reconciledAt;
+    }
+}
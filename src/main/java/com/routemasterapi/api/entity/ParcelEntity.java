@@ -1,5 +1,7 @@
 package com.routemasterapi.api.entity;
 
+import java.time.LocalDate;
+
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -45,8 +47,9 @@ public class ParcelEntity {
     @Column(name = "parcel_status")
     private String parcelStatus;
 
+    // DATE column; indexes (parcel_status, created_date) and (created_date) come from db/migrations.sql
     @Column(name = "created_date")
-    private String createdDate;
+    private LocalDate createdDate;
 
     @Column(name = "total_payment")
     private double totalPayment;
@@ -175,11 +178,11 @@ public class ParcelEntity {
         this.parcelStatus = parcelStatus;
     }
 
-    public String getCreatedDate() {
+    public LocalDate getCreatedDate() {
         return createdDate;
     }
 
-    public void setCreatedDate(String createdDate) {
+    public void setCreatedDate(LocalDate createdDate) {
         this.createdDate = createdDate;
     }
 
@@ -0,0 +1,106 @@
+package com.routemasterapi.api.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Latest tracking row per parcel, maintained by ParcelTrackingStateService.
+ * Written with plain JDBC upserts; the entity defines the table.
+ */
+@Entity
+@Table(name = "parcel_tracking_state")
+public class ParcelTrackingStateEntity {
+
+    @Id
+    @Column(name = "parcel_id")
+    private int parcelId;
+
+    @Column(name = "track_id")
+    private int trackId;
+
+    @Column(name = "employee_id")
+    private Integer employeeId;
+
+    @Column(name = "location")
+    private String location;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "approval_status")
+    private String approvalStatus;
+
+    @Column(name = "timestamp")
+    private Date timestamp;
+
+    @Column(name = "notes")
+    private String notes;
+
+    public int getParcelId() {
+        return parcelId;
+    }
+
+    public void setParcelId(int parcelId) {
+        this.parcelId = parcelId;
+    }
+
+    public int getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(int trackId) {
+        this.trackId = trackId;
+    }
+
+    public Integer getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(Integer employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getApprovalStatus() {
+        return approvalStatus;
+    }
+
+    public void setApprovalStatus(String approvalStatus) {
+        this.approvalStatus = approvalStatus;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+}
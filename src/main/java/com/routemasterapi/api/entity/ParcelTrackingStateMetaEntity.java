@@ -0,0 +1,41 @@
+package com.routemasterapi.api.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Single-row table marking that parcel_tracking_state was completely rebuilt
+ * from the tracking history. Written by ParcelTrackingStateService after the
+ * rebuild is stored; while it is missing the next load rebuilds again.
+ */
+@Entity
+@Table(name = "parcel_tracking_state_meta")
+public class ParcelTrackingStateMetaEntity {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private int id = SINGLETON_ID;
+
+    @Column(name = "rebuilt_at")
+    private long rebuiltAt;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public long getRebuiltAt() {
+        return rebuiltAt;
+    }
+
+    public void setRebuiltAt(long rebuiltAt) {
+        this.rebuiltAt = rebuiltAt;
+    }
+}
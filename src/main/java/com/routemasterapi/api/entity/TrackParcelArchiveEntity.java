@@ -0,0 +1,123 @@
+package com.routemasterapi.api.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Tracking history of one delivered parcel, moved out of ayush_track_parcel
+ * by TrackingArchiveService: the rows as a gzip-compressed JSON array of
+ * TrackingState, plus the range they cover. A parcel that was tracked again
+ * after archiving gets a second archive row. Written with plain JDBC; the
+ * entity defines the table, the parcel_id index comes from db/migrations.sql.
+ */
+@Entity
+@Table(name = "ayush_track_parcel_archive")
+public class TrackParcelArchiveEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "archive_id")
+    private long archiveId;
+
+    @Column(name = "parcel_id", nullable = false)
+    private int parcelId;
+
+    @Column(name = "first_track_id")
+    private int firstTrackId;
+
+    @Column(name = "last_track_id")
+    private int lastTrackId;
+
+    @Column(name = "event_count")
+    private int eventCount;
+
+    @Column(name = "first_timestamp")
+    private Date firstTimestamp;
+
+    @Column(name = "last_timestamp")
+    private Date lastTimestamp;
+
+    @Column(name = "archived_at")
+    private Date archivedAt;
+
+    @Column(name = "events", columnDefinition = "LONGBLOB")
+    private byte[] events;
+
+    public long getArchiveId() {
+        return archiveId;
+    }
+
+    public void setArchiveId(long archiveId) {
+        this.archiveId = archiveId;
+    }
+
+    public int getParcelId() {
+        return parcelId;
+    }
+
+    public void setParcelId(int parcelId) {
+        this.parcelId = parcelId;
+    }
+
+    public int getFirstTrackId() {
+        return firstTrackId;
+    }
+
+    public void setFirstTrackId(int firstTrackId) {
+        this.firstTrackId = firstTrackId;
+    }
+
+    public int getLastTrackId() {
+        return lastTrackId;
+    }
+
+    public void setLastTrackId(int lastTrackId) {
+        this.lastTrackId = lastTrackId;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(int eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    public Date getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public void setFirstTimestamp(Date firstTimestamp) {
+        this.firstTimestamp = firstTimestamp;
+    }
+
+    public Date getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public void setLastTimestamp(Date lastTimestamp) {
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public Date getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(Date archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    public byte[] getEvents() {
+        return events;
+    }
+
+    public void setEvents(byte[] events) {
+        this.events = events;
+    }
+}
@@ -0,0 +1,10 @@
+package com.routemasterapi.api.event;
+
+/**
+ * Kind of change carried by the domain change events.
+ */
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,26 @@
+package com.routemasterapi.api.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after a customer was registered, saved or deleted.
+ */
+public class CustomerChangeEvent extends ApplicationEvent {
+
+    private final ChangeType type;
+    private final int customerId;
+
+    public CustomerChangeEvent(Object source, ChangeType type, int customerId) {
+        super(source);
+        this.type = type;
+        this.customerId = customerId;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+}
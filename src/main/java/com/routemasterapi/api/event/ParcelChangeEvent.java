@@ -0,0 +1,109 @@
+package com.routemasterapi.api.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.routemasterapi.api.entity.ParcelEntity;
+import com.routemasterapi.api.model.OptimizerParcel;
+
+/**
+ * Published by ParcelService after a parcel was saved or deleted.
+ *
+ * Carries optimizer views, payments, owners and statuses of the parcel before
+ * and after the change: the "before" values are null for CREATED (and for
+ * updates of unknown parcels), the "after" values are null for DELETED.
+ */
+public class ParcelChangeEvent extends ApplicationEvent {
+
+    private final ChangeType type;
+    private final int parcelId;
+    private final OptimizerParcel before;
+    private final OptimizerParcel after;
+    private final Double beforeTotalPayment;
+    private final Double afterTotalPayment;
+    private final Snapshot beforeSnapshot;
+    private final Snapshot afterSnapshot;
+
+    /**
+     * Values of one parcel row, copied so later changes to the entity (a merge
+     * into the loaded instance) do not reach the event.
+     */
+    public static final class Snapshot {
+        private final OptimizerParcel parcel;
+        private final Double totalPayment;
+        private final Integer customerId;
+        private final String parcelStatus;
+
+        private Snapshot(ParcelEntity entity) {
+            this.parcel = OptimizerParcel.from(entity);
+            this.totalPayment = entity.getTotalPayment();
+            this.customerId = entity.getCustomer() != null ? entity.getCustomer().getCustomerId() : null;
+            this.parcelStatus = entity.getParcelStatus();
+        }
+
+        public static Snapshot of(ParcelEntity entity) {
+            return entity != null ? new Snapshot(entity) : null;
+        }
+    }
+
+    private ParcelChangeEvent(Object source, ChangeType type, int parcelId, Snapshot before, Snapshot after) {
+        super(source);
+        this.type = type;
+        this.parcelId = parcelId;
+        this.before = before != null ? before.parcel : null;
+        this.after = after != null ? after.parcel : null;
+        this.beforeTotalPayment = before != null ? before.totalPayment : null;
+        this.afterTotalPayment = after != null ? after.totalPayment : null;
+        this.beforeSnapshot = before;
+        this.afterSnapshot = after;
+    }
+
+    /**
+     * Event for the stored row before the change and the saved row after it,
+     * either of which may be null.
+     */
+    public static ParcelChangeEvent of(Object source, ChangeType type, int parcelId, ParcelEntity before, ParcelEntity after) {
+        return of(source, type, parcelId, Snapshot.of(before), Snapshot.of(after));
+    }
+
+    public static ParcelChangeEvent of(Object source, ChangeType type, int parcelId, Snapshot before, Snapshot after) {
+        return new ParcelChangeEvent(source, type, parcelId, before, after);
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public int getParcelId() {
+        return parcelId;
+    }
+
+    public OptimizerParcel getBefore() {
+        return before;
+    }
+
+    public OptimizerParcel getAfter() {
+        return after;
+    }
+
+    public Double getBeforeTotalPayment() {
+        return beforeTotalPayment;
+    }
+
+    public Double getAfterTotalPayment() {
+        return afterTotalPayment;
+    }
+
+    // Owner after the change, or before it for DELETED
+    public Integer getCustomerId() {
+        Snapshot current = afterSnapshot != null ? afterSnapshot : beforeSnapshot;
+        return current != null ? current.customerId : null;
+    }
+
+    public String getBeforeStatus() {
+        return beforeSnapshot != null ? beforeSnapshot.parcelStatus : null;
+    }
+
+    public String getAfterStatus() {
+        return afterSnapshot != null ? afterSnapshot.parcelStatus : null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.routemasterapi.api.event;
+
+import java.util.List;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.routemasterapi.api.model.OptimizerParcel;
+
+/**
+ * Published by ParcelImportService after a batch of imported parcels was
+ * committed, instead of one ParcelChangeEvent per row. Listeners treat it as
+ * that many creates.
+ *
+ * Customer ids and parcel statuses are in the same order as the parcels. lastBatch is set on
+ * the final event of an import that ran to the end and imported parcels;
+ * an aborted import has no final event.
+ */
+public class ParcelsImportedEvent extends ApplicationEvent {
+
+    private final List<OptimizerParcel> parcels;
+    private final List<Integer> customerIds;
+    private final List<String> parcelStatuses;
+    private final double totalPayment;
+    private final boolean lastBatch;
+
+    public ParcelsImportedEvent(Object source, List<OptimizerParcel> parcels, List<Integer> customerIds,
+            List<String> parcelStatuses, double totalPayment, boolean lastBatch) {
+        super(source);
+        this.parcels = parcels;
+        this.customerIds = customerIds;
+        this.parcelStatuses = parcelStatuses;
+        this.totalPayment = totalPayment;
+        this.lastBatch = lastBatch;
+    }
+
+    public List<OptimizerParcel> getParcels() {
+        return parcels;
+    }
+
+    public List<Integer> getCustomerIds() {
+        return customerIds;
+    }
+
+    public List<String> getParcelStatuses() {
+        return parcelStatuses;
+    }
+
+    public double getTotalPayment() {
+        return totalPayment;
+    }
+
+    public boolean isLastBatch() {
+        return lastBatch;
+    }
+}
@@ -0,0 +1,26 @@
+package com.routemasterapi.api.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by RouterService after a route was saved or deleted.
+ */
+public class RouteChangeEvent extends ApplicationEvent {
+
+    private final ChangeType type;
+    private final int routeId;
+
+    public RouteChangeEvent(Object source, ChangeType type, int routeId) {
+        super(source);
+        this.type = type;
+        this.routeId = routeId;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public int getRouteId() {
+        return routeId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.routemasterapi.api.event;
+
+import java.util.List;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.routemasterapi.api.model.TrackingState;
+
+/**
+ * Published after tracking rows were committed: one row from TrackParcelService,
+ * or a whole batch from TrackingIngestionService.
+ *
+ * For CREATED and UPDATED the states are the rows as saved; for DELETED they
+ * are the rows as they were before the delete (or before an update moved the
+ * row to another parcel).
+ */
+public class TrackingChangeEvent extends ApplicationEvent {
+
+    private final ChangeType type;
+    private final List<TrackingState> states;
+
+    public TrackingChangeEvent(Object source, ChangeType type, List<TrackingState> states) {
+        super(source);
+        this.type = type;
+        this.states = states;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public List<TrackingState> getStates() {
+        return states;
+    }
+}
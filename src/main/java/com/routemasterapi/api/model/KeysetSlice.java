@@ -0,0 +1,78 @@
+package com.routemasterapi.api.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) listing: the rows, whether more follow, and
+ * the opaque cursor to pass back for the next page. Carries no total count;
+ * listings expose that through separate count endpoints.
+ *
+ * Cursors encode the last id of the page. They are only meant to be passed
+ * back as is, so their format may change.
+ */
+public class KeysetSlice<T> {
+
+    private static final String CURSOR_PREFIX = "v1:";
+
+    private final List<T> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public KeysetSlice(List<T> content, int size, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getNumberOfElements() {
+        return content.size();
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((CURSOR_PREFIX + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Last id encoded in the cursor; 0 (before the first row) for a null or blank cursor.
+     *
+     * @throws IllegalArgumentException when the cursor was not produced by {@link #encodeCursor(long)}
+     */
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.US_ASCII);
+            if (value.startsWith(CURSOR_PREFIX)) {
+                long lastId = Long.parseLong(value.substring(CURSOR_PREFIX.length()));
+                if (lastId >= 0) {
+                    return lastId;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Falls through to the error below; NumberFormatException is an IllegalArgumentException
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+}
@@ -0,0 +1,41 @@
+package com.routemasterapi.api.model;
+
+import com.routemasterapi.api.entity.ParcelEntity;
+
+/**
+ * Narrow, read-only view of a parcel holding only what the route optimizer needs.
+ */
+public class OptimizerParcel {
+    private final int parcelId;
+    private final double weight;
+    private final String destinationPincode;
+    private final Integer routeId;
+
+    public OptimizerParcel(int parcelId, double weight, String destinationPincode, Integer routeId) {
+        this.parcelId = parcelId;
+        this.weight = weight;
+        this.destinationPincode = destinationPincode;
+        this.routeId = routeId;
+    }
+
+    public static OptimizerParcel from(ParcelEntity parcel) {
+        return new OptimizerParcel(parcel.getParcelId(), parcel.getWeight(), parcel.getDestinationPincode(),
+            parcel.getRoute() != null ? parcel.getRoute().getRouteId() : null);
+    }
+
+    public int getParcelId() {
+        return parcelId;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public String getDestinationPincode() {
+        return destinationPincode;
+    }
+
+    public Integer getRouteId() {
+        return routeId;
+    }
+}
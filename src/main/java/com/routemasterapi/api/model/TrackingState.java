@@ -0,0 +1,75 @@
+package com.routemasterapi.api.model;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.routemasterapi.api.entity.TrackParcelEntity;
+
+/**
+ * Read-only copy of one tracking row, used as a parcel's latest tracking state.
+ */
+public class TrackingState {
+    private final int parcelId;
+    private final int trackId;
+    private final Integer employeeId;
+    private final String location;
+    private final String status;
+    private final String approvalStatus;
+    private final Date timestamp;
+    private final String notes;
+
+    // Also read back from tracking archives
+    @JsonCreator
+    public TrackingState(@JsonProperty("parcelId") int parcelId, @JsonProperty("trackId") int trackId,
+            @JsonProperty("employeeId") Integer employeeId, @JsonProperty("location") String location,
+            @JsonProperty("status") String status, @JsonProperty("approvalStatus") String approvalStatus,
+            @JsonProperty("timestamp") Date timestamp, @JsonProperty("notes") String notes) {
+        this.parcelId = parcelId;
+        this.trackId = trackId;
+        this.employeeId = employeeId;
+        this.location = location;
+        this.status = status;
+        this.approvalStatus = approvalStatus;
+        this.timestamp = timestamp;
+        this.notes = notes;
+    }
+
+    public static TrackingState from(TrackParcelEntity track) {
+        return new TrackingState(track.getParcel().getParcelId(), track.getTrackId(),
+            track.getEmployee() != null ? track.getEmployee().getEmployeeId() : null,
+            track.getLocation(), track.getStatus(), track.getApprovalStatus(), track.getTimestamp(), track.getNotes());
+    }
+
+    public int getParcelId() {
+        return parcelId;
+    }
+
+    public int getTrackId() {
+        return trackId;
+    }
+
+    public Integer getEmployeeId() {
+        return employeeId;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getApprovalStatus() {
+        return approvalStatus;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+}
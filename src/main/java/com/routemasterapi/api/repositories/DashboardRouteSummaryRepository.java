@@ -0,0 +1,10 @@
+package com.routemasterapi.api.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.routemasterapi.api.entity.DashboardRouteSummaryEntity;
+
+@Repository
+public interface DashboardRouteSummaryRepository extends JpaRepository<DashboardRouteSummaryEntity, Integer> {
+}
@@ -0,0 +1,10 @@
+package com.routemasterapi.api.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.routemasterapi.api.entity.DashboardSummaryEntity;
+
+@Repository
+public interface DashboardSummaryRepository extends JpaRepository<DashboardSummaryEntity, Integer> {
+}
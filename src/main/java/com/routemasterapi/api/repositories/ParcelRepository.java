@@ -2,6 +2,7 @@ package com.routemasterapi.api.repositories;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
@@ -10,7 +11,7 @@ import org.springframework.stereotype.Repository;
 import com.routemasterapi.api.entity.ParcelEntity;
 
 @Repository
-public interface ParcelRepository extends CrudRepository<ParcelEntity, Integer> {
+public interface ParcelRepository extends CrudRepository<ParcelEntity, Integer>, ParcelRepositoryCustom {
     
     // ✅ Get all parcels
     @Query(value = "SELECT * FROM ayush_parcel", nativeQuery = true)
@@ -20,12 +21,23 @@ public interface ParcelRepository extends CrudRepository<ParcelEntity, Integer>
     @Query(value = "SELECT * FROM ayush_parcel WHERE customerid = :customerId", nativeQuery = true)
     Page<ParcelEntity> listcustomerparcelstatusfromdb(int customerId, Pageable pageable);
     
+    // ✅ Keyset pages: seek past the last parcel id of the previous page (primary key / customerid index)
+    @Query(value = "SELECT * FROM ayush_parcel WHERE parcelid > :afterId ORDER BY parcelid LIMIT :limit", nativeQuery = true)
+    List<ParcelEntity> listparcelsafter(int afterId, int limit);
+    
+    @Query(value = "SELECT * FROM ayush_parcel WHERE customerid = :customerId AND parcelid > :afterId ORDER BY parcelid LIMIT :limit", nativeQuery = true)
+    List<ParcelEntity> listcustomerparcelsafter(int customerId, int afterId, int limit);
+    
+    // ✅ Count of a customer's parcels, requested separately from the keyset pages
+    @Query(value = "SELECT COUNT(*) FROM ayush_parcel WHERE customerid = :customerId", nativeQuery = true)
+    long countcustomerparcels(int customerId);
+    
     // ✅ Get parcels from last month
-    @Query(value = "SELECT * FROM ayush_parcel WHERE created_date >= DATE_SUB(CURDATE(), INTERVAL 30 DAY)", nativeQuery = true)
+    @Query(value = "SELECT * FROM ayush_parcel WHERE created_date >= :oneMonthAgo", nativeQuery = true)
     Page<ParcelEntity> listonemonthparcelsfromdb(LocalDate oneMonthAgo, Pageable pageable);
     
     // ✅ Get delayed parcels from last month
-    @Query(value = "SELECT * FROM ayush_parcel WHERE created_date >= DATE_SUB(CURDATE(), INTERVAL 30 DAY) AND parcel_status = 'Delayed'", nativeQuery = true)
+    @Query(value = "SELECT * FROM ayush_parcel WHERE parcel_status = 'Delayed' AND created_date >= :oneMonthAgo", nativeQuery = true)
     Page<ParcelEntity> listonemonthdelayedparcelsfromdb(LocalDate oneMonthAgo, Pageable pageable);
     
     // ✅ Sum total payment
@@ -35,4 +47,18 @@ public interface ParcelRepository extends CrudRepository<ParcelEntity, Integer>
     // ✅ FIXED - Count parcels by route (using ayush_router instead of ayush_routes)
     @Query(value = "SELECT r.name, COUNT(p.parcelid) FROM ayush_parcel p LEFT JOIN ayush_router r ON p.routeid = r.routeId WHERE r.routeid IS NOT NULL GROUP BY p.routeid, r.name", nativeQuery = true)
     List<Object[]> countParcelsByRoute();
-}
\ No newline at end of file
+    
+    // ✅ Dashboard reconciliation: parcel count and payment total in one pass, parcel count per route id
+    @Query(value = "SELECT COUNT(*), COALESCE(SUM(total_payment), 0) FROM ayush_parcel", nativeQuery = true)
+    List<Object[]> countParcelsAndSumPayment();
+    
+    @Query(value = "SELECT routeid, COUNT(*) FROM ayush_parcel WHERE routeid IS NOT NULL GROUP BY routeid", nativeQuery = true)
+    List<Object[]> countParcelsByRouteId();
+    
+    // ✅ Row count and zero/missing weight count in one pass, for diagnostics
+    @Query(value = "SELECT COUNT(*), COALESCE(SUM(CASE WHEN weight IS NULL OR weight <= 0 THEN 1 ELSE 0 END), 0) FROM ayush_parcel", nativeQuery = true)
+    List<Object[]> countParcelsAndZeroWeights();
+    
+    // ✅ Lowest id parcel, used as the diagnostics sample
+    Optional<ParcelEntity> findTopByOrderByParcelIdAsc();
+}
@@ -0,0 +1,17 @@
+package com.routemasterapi.api.repositories;
+
+import java.util.function.Consumer;
+
+import com.routemasterapi.api.model.OptimizerParcel;
+
+public interface ParcelRepositoryCustom {
+
+    /**
+     * Streams every parcel with a positive weight as an {@link OptimizerParcel}
+     * through a forward-only cursor, without loading entities into the
+     * persistence context.
+     *
+     * @param fetchSize JDBC fetch size; Integer.MIN_VALUE makes MySQL stream row by row
+     */
+    void streamOptimizerParcels(int fetchSize, Consumer<OptimizerParcel> consumer);
+}
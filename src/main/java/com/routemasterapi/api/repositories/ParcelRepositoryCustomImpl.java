@@ -0,0 +1,49 @@
+package com.routemasterapi.api.repositories;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.routemasterapi.api.model.OptimizerParcel;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class ParcelRepositoryCustomImpl implements ParcelRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamOptimizerParcels(int fetchSize, Consumer<OptimizerParcel> consumer) {
+        // Scalar native query: rows are never managed entities, so nothing accumulates in the session
+        @SuppressWarnings("unchecked")
+        Stream<Object[]> rows = entityManager
+            .createNativeQuery("SELECT parcelid, weight, destination_pincode, routeid FROM ayush_parcel WHERE weight > 0")
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+
+        // Pincodes repeat heavily; keep one String instance per distinct value
+        Map<String, String> pincodes = new HashMap<>();
+        try (rows) {
+            rows.forEach(row -> {
+                String pincode = (String) row[2];
+                if (pincode != null) {
+                    pincode = pincodes.computeIfAbsent(pincode, Function.identity());
+                }
+                consumer.accept(new OptimizerParcel(
+                    ((Number) row[0]).intValue(),
+                    ((Number) row[1]).doubleValue(),
+                    pincode,
+                    row[3] != null ? ((Number) row[3]).intValue() : null));
+            });
+        }
+    }
+}
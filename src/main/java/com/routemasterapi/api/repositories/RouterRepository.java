@@ -1,5 +1,8 @@
 package com.routemasterapi.api.repositories;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -13,4 +16,11 @@ public interface RouterRepository extends JpaRepository<RouterEntity, Integer> {
   
     @Query(value = "SELECT * FROM ayush_router", nativeQuery = true) 
     Page<RouterEntity> findAll(Pageable pageable);
-}
\ No newline at end of file
+    
+    // Row count and zero/missing distance (capacity) count in one pass, for diagnostics
+    @Query(value = "SELECT COUNT(*), COALESCE(SUM(CASE WHEN total_distance IS NULL OR total_distance <= 0 THEN 1 ELSE 0 END), 0) FROM ayush_router", nativeQuery = true)
+    List<Object[]> countRoutesAndZeroDistances();
+    
+    // Lowest id route, used as the diagnostics sample
+    Optional<RouterEntity> findTopByOrderByRouteIdAsc();
+}
@@ -1,5 +1,8 @@
 package com.routemasterapi.api.repositories;
 
+import java.util.Date;
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
@@ -13,4 +16,20 @@ public interface TrackParcelRepository extends CrudRepository<TrackParcelEntity,
     // ✅ FIXED - Correct table name and column names (lowercase)
     @Query(value = "SELECT * FROM ayush_track_parcel", nativeQuery = true)
     Page<TrackParcelEntity> listalltrackparcelsfromdb(Pageable pageable);
+
+    // ✅ Hot window: rows since the archive cut-off (idx_track_parcel_timestamp); rows without a timestamp stay listed
+    @Query(value = "SELECT * FROM ayush_track_parcel WHERE timestamp >= :since OR timestamp IS NULL",
+           countQuery = "SELECT COUNT(*) FROM ayush_track_parcel WHERE timestamp >= :since OR timestamp IS NULL",
+           nativeQuery = true)
+    Page<TrackParcelEntity> listhottrackparcelsfromdb(Date since, Pageable pageable);
+
+    // ✅ Explicit historical range [from, to) over the rows not archived yet
+    @Query(value = "SELECT * FROM ayush_track_parcel WHERE timestamp >= :from AND timestamp < :to",
+           countQuery = "SELECT COUNT(*) FROM ayush_track_parcel WHERE timestamp >= :from AND timestamp < :to",
+           nativeQuery = true)
+    Page<TrackParcelEntity> listtrackparcelsbetween(Date from, Date to, Pageable pageable);
+
+    // ✅ Rows of one parcel still in the hot table, oldest first
+    @Query(value = "SELECT * FROM ayush_track_parcel WHERE parcelid = :parcelId ORDER BY trackid", nativeQuery = true)
+    List<TrackParcelEntity> listparceltrackparcels(int parcelId);
 }
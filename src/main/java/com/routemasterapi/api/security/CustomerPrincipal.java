@@ -0,0 +1,106 @@
+package com.routemasterapi.api.security;
+
+import com.routemasterapi.api.entity.customerentity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The authenticated customer as stored in the security context by
+ * JwtRequestFilter, so controllers get the customer id and role without
+ * looking the customer up again. Carries no password, only a version of the
+ * stored hash that changes whenever the password does.
+ */
+public final class CustomerPrincipal implements UserDetails {
+
+    private final int customerId;
+    private final String email;
+    private final String role;
+    private final String passwordVersion;
+
+    public CustomerPrincipal(int customerId, String email, String role, String passwordVersion) {
+        this.customerId = customerId;
+        this.email = email;
+        this.role = role;
+        this.passwordVersion = passwordVersion;
+    }
+
+    public static CustomerPrincipal from(customerentity customer) {
+        return new CustomerPrincipal(
+                customer.getCustomerId(),
+                customer.getEmail(),
+                customer.getRole() != null ? customer.getRole() : "USER",
+                passwordVersion(customer.getPassword()));
+    }
+
+    // SHA-256 of the stored (salted) hash, so any password change gives a new one;
+    // it goes into the token as a claim, so the hash itself is never exposed
+    public static String passwordVersion(String passwordHash) {
+        if (passwordHash == null) {
+            return "";
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(passwordHash.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getPasswordVersion() {
+        return passwordVersion;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,104 @@
+package com.routemasterapi.api.security;
+
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.CustomerChangeEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Customer principals by email, filled at login and on the first request
+ * with a token, so authenticated requests do not look the customer up.
+ *
+ * Entries live for ttl-ms and are dropped as soon as CustomerService
+ * updates or deletes the customer. Bounded by max-entries: when full,
+ * expired entries are dropped first and then arbitrary ones until a quarter
+ * of the room is free.
+ */
+@Component
+public class CustomerPrincipalCache {
+
+    @Value("${routemaster.security.principal-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${routemaster.security.principal-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> byEmail = new ConcurrentHashMap<>();
+    // Change events only carry the id, and an update may change the email
+    private final Map<Integer, String> emailById = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        final CustomerPrincipal principal;
+        final long expiresAt;
+
+        Entry(CustomerPrincipal principal, long expiresAt) {
+            this.principal = principal;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Cached principal, or null when missing or expired
+    public CustomerPrincipal get(String email) {
+        Entry entry = byEmail.get(email);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            byEmail.remove(email, entry);
+            return null;
+        }
+        return entry.principal;
+    }
+
+    public void put(CustomerPrincipal principal) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (byEmail.size() >= maxEntries) {
+            evict(now);
+        }
+        String previousEmail = emailById.put(principal.getCustomerId(), principal.getEmail());
+        if (previousEmail != null && !previousEmail.equals(principal.getEmail())) {
+            byEmail.remove(previousEmail);
+        }
+        byEmail.put(principal.getEmail(), new Entry(principal, now + ttlMs));
+    }
+
+    public void invalidate(int customerId) {
+        String email = emailById.remove(customerId);
+        if (email != null) {
+            byEmail.remove(email);
+        }
+    }
+
+    public int size() {
+        return byEmail.size();
+    }
+
+    @EventListener
+    public void onCustomerChange(CustomerChangeEvent event) {
+        if (event.getType() != ChangeType.CREATED) {
+            invalidate(event.getCustomerId());
+        }
+    }
+
+    private synchronized void evict(long now) {
+        if (byEmail.size() < maxEntries) {
+            return;
+        }
+        byEmail.values().removeIf(entry -> entry.expiresAt <= now);
+        int target = maxEntries - maxEntries / 4;
+        Iterator<Entry> it = byEmail.values().iterator();
+        while (byEmail.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        emailById.values().retainAll(byEmail.keySet());
+    }
+}
@@ -8,7 +8,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,7 +17,7 @@ import java.io.IOException;
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtTokenUtil jwtTokenUtil;
+    private JwtTokenCache jwtTokenCache;
 
     @Autowired
     private CustomUserDetailsService userDetailsService;
@@ -29,25 +28,27 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
+        VerifiedToken verified = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwtToken = authorizationHeader.substring(7);
+            String jwtToken = authorizationHeader.substring(7);
             try {
-                username = jwtTokenUtil.extractUsername(jwtToken);
+                // Signature and expiration are checked once per token, then served from the cache
+                verified = jwtTokenCache.verify(jwtToken);
             } catch (Exception e) {
                 System.out.println("Invalid JWT: " + e.getMessage());
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (verified != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Customer id and role for the controllers, cached so the customer is not looked up per request
+            CustomerPrincipal principal = this.userDetailsService.loadPrincipal(verified.getSubject());
 
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails.getUsername())) {
+            if (principal != null && (verified.getPasswordVersion() == null
+                    || verified.getPasswordVersion().equals(principal.getPasswordVersion()))) {
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
+                                principal, null, principal.getAuthorities());
                 authentication.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -0,0 +1,92 @@
+package com.routemasterapi.api.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens that already passed signature verification, keyed by the SHA-256
+ * of the token so raw tokens are not kept in memory. An entry is valid until
+ * the token's exp claim, so a repeated request costs one hash and one map
+ * lookup instead of a parse and an HMAC check.
+ *
+ * Bounded by max-entries: when full, expired entries are dropped first and
+ * then arbitrary ones until a quarter of the room is free.
+ */
+@Component
+public class JwtTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    @Autowired
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+
+    // Verified subject and expiration, from the cache or by parsing the token once
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = tokens.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            tokens.remove(key, cached);
+        }
+
+        // Throws for invalid or expired tokens, which are never cached
+        VerifiedToken verified = jwtTokenUtil.verify(token);
+        if (maxEntries > 0) {
+            if (tokens.size() >= maxEntries) {
+                evict(now);
+            }
+            tokens.put(key, verified);
+        }
+        return verified;
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    public void clear() {
+        tokens.clear();
+    }
+
+    private synchronized void evict(long now) {
+        if (tokens.size() < maxEntries) {
+            return;
+        }
+        tokens.values().removeIf(token -> token.isExpired(now));
+        int target = maxEntries - maxEntries / 4;
+        Iterator<String> it = tokens.keySet().iterator();
+        while (tokens.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static String hash(String token) {
+        MessageDigest digest = SHA256.get();
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
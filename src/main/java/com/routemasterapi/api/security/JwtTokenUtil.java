@@ -1,9 +1,11 @@
 package com.routemasterapi.api.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -23,10 +25,28 @@ public class JwtTokenUtil {
     @Value("${jwt.expiration:86400000}") // Default 24 hours
     private Long expiration;
 
-    // Generate secret key from the configured secret string
-    private SecretKey getSigningKey() {
+    // Version of the password hash at login; tokens are rejected once the password changes
+    public static final String PASSWORD_VERSION_CLAIM = "pwv";
+
+    // Built once from the configured secret; the parser is immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    // Parse and verify the token once; throws JwtException when it is invalid or expired
+    public VerifiedToken verify(String token) {
+        final Claims claims = extractAllClaims(token);
+        Date expiration = claims.getExpiration();
+        return new VerifiedToken(claims.getSubject(), expiration != null ? expiration.getTime() : Long.MAX_VALUE,
+                claims.get(PASSWORD_VERSION_CLAIM, String.class));
     }
 
     // Extract username from token
@@ -47,24 +67,24 @@ public class JwtTokenUtil {
 
     // Extract all claims from token
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return parser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
-    // Check if token is expired
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     // Generate token for a username (email)
     public String generateToken(String username) {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, username);
     }
 
+    // Generate token carrying the version of the user's current password hash
+    public String generateToken(String username, String passwordVersion) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(PASSWORD_VERSION_CLAIM, passwordVersion);
+        return createToken(claims, username);
+    }
+
     // Create token with claims and subject
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
@@ -72,13 +92,13 @@ public class JwtTokenUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     // Validate token against username
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        final VerifiedToken verified = verify(token);
+        return (verified.getSubject().equals(username) && !verified.isExpired(System.currentTimeMillis()));
     }
 }
\ No newline at end of file
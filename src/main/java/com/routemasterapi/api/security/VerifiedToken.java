@@ -0,0 +1,35 @@
+package com.routemasterapi.api.security;
+
+/**
+ * Subject and expiration of a JWT whose signature has been verified.
+ */
+public final class VerifiedToken {
+
+    private final String subject;
+    private final long expiresAt;
+    private final String passwordVersion;
+
+    public VerifiedToken(String subject, long expiresAt, String passwordVersion) {
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        this.passwordVersion = passwordVersion;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    // Epoch millis of the exp claim
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    // Password version at login, null for tokens issued without one
+    public String getPasswordVersion() {
+        return passwordVersion;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
@@ -0,0 +1,437 @@
+package com.routemasterapi.api.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Capacitated geographic k-means over an {@link OptimizationWorkingSet},
+ * with one cluster per route.
+ *
+ * Seeds are picked with k-means++ on a uniform sample of the parcels and each
+ * seed is bound to the nearest still unbound route depot, whose capacity
+ * becomes the cluster's capacity. Every iteration then
+ * <ol>
+ * <li>finds each parcel's nearest centroid in parallel (fork/join),</li>
+ * <li>assigns parcels heaviest first to that centroid, or to the nearest
+ * centroid that still has room when it is full,</li>
+ * <li>moves each centroid to the mean of its parcels in parallel.</li>
+ * </ol>
+ * It stops when fewer than the convergence threshold of parcels change
+ * cluster, after the maximum number of iterations, or when the time budget
+ * is spent. Every iteration's assignment respects capacity, so stopping
+ * early still yields a feasible result.
+ *
+ * Geometry runs on unit-sphere vectors; chord distance orders points like
+ * great-circle distance.
+ */
+final class CapacitatedClusteringEngine {
+
+    private static final int MIN_LEAF_SIZE = 2048;
+    private static final int MIN_SAMPLE_SIZE = 10000;
+    private static final int SAMPLE_PER_CLUSTER = 16;
+
+    private final ForkJoinPool pool;
+    private final int maxIterations;
+    private final long timeBudgetMs;
+    private final double convergenceThreshold;
+    private final long seed;
+
+    static final class Outcome {
+        int iterations;
+        boolean converged;
+        final Map<String, Long> phaseTimingsMs = new LinkedHashMap<>();
+
+        private void addTime(String phase, long startNanos) {
+            phaseTimingsMs.merge(phase, (System.nanoTime() - startNanos) / 1_000_000, Long::sum);
+        }
+    }
+
+    CapacitatedClusteringEngine(ForkJoinPool pool, int maxIterations, long timeBudgetMs,
+            double convergenceThreshold, long seed) {
+        this.pool = pool;
+        this.maxIterations = maxIterations;
+        this.timeBudgetMs = timeBudgetMs;
+        this.convergenceThreshold = convergenceThreshold;
+        this.seed = seed;
+    }
+
+    /**
+     * Clusters the parcels and records the resulting route per parcel in the
+     * working set. Parcels that fit in no cluster stay unassigned.
+     */
+    Outcome run(OptimizationWorkingSet ws, OptimizationProgress progress) {
+        Outcome outcome = new Outcome();
+        int n = ws.parcelCount;
+        int k = ws.routeCount;
+        if (n == 0 || k == 0) {
+            return outcome;
+        }
+        long deadline = System.nanoTime() + timeBudgetMs * 1_000_000;
+        int leafSize = Math.max(MIN_LEAF_SIZE, n / (pool.getParallelism() * 8));
+
+        double[] px = new double[n];
+        double[] py = new double[n];
+        double[] pz = new double[n];
+        for (int p = 0; p < n; p++) {
+            double lat = Math.toRadians(ws.parcelLatitudes[p]);
+            double lon = Math.toRadians(ws.parcelLongitudes[p]);
+            px[p] = Math.cos(lat) * Math.cos(lon);
+            py[p] = Math.cos(lat) * Math.sin(lon);
+            pz[p] = Math.sin(lat);
+        }
+
+        long start = System.nanoTime();
+        progress.startPhase("Seeding", k);
+        double[] cx = new double[k];
+        double[] cy = new double[k];
+        double[] cz = new double[k];
+        seedCentroids(px, py, pz, cx, cy, cz, leafSize, progress);
+        outcome.addTime("seeding", start);
+
+        int[] order = ws.parcelsByWeightDescending();
+        double lightestWeight = ws.weights[order[n - 1]];
+        int[] nearest = new int[n];
+        int[] assignment = new int[n];
+        int[] parcelRoute = new int[n];
+        Arrays.fill(assignment, OptimizationWorkingSet.UNASSIGNED);
+        Arrays.fill(parcelRoute, OptimizationWorkingSet.UNASSIGNED);
+        int[] clusterRoute = new int[k];
+        double[] clusterCapacity = new double[k];
+        double[] clusterLoad = new double[k];
+
+        progress.startPhase("Clustering", maxIterations);
+        while (outcome.iterations < maxIterations) {
+            progress.checkCancelled();
+            double[] centroidLat = new double[k];
+            double[] centroidLon = new double[k];
+            toLatLon(cx, cy, cz, centroidLat, centroidLon);
+
+            start = System.nanoTime();
+            bindClustersToRoutes(ws, centroidLat, centroidLon, clusterLoad, clusterRoute);
+            for (int c = 0; c < k; c++) {
+                clusterCapacity[c] = ws.capacities[clusterRoute[c]];
+            }
+            outcome.addTime("routeBinding", start);
+
+            start = System.nanoTime();
+            pool.invoke(new NearestCentroidTask(ws.parcelLatitudes, ws.parcelLongitudes,
+                centroidLat, centroidLon, nearest, 0, n, leafSize));
+            outcome.addTime("nearestCentroid", start);
+
+            start = System.nanoTime();
+            int changed = assignWithinCapacity(ws.weights, ws.parcelLatitudes, ws.parcelLongitudes, order,
+                nearest, centroidLat, centroidLon, clusterRoute, clusterCapacity, lightestWeight,
+                assignment, parcelRoute, clusterLoad);
+            outcome.addTime("capacityAssignment", start);
+
+            start = System.nanoTime();
+            double[] sums = pool.invoke(new CentroidSumTask(px, py, pz, assignment, k, 0, n, leafSize));
+            moveCentroids(sums, cx, cy, cz);
+            outcome.addTime("centroidUpdate", start);
+
+            outcome.iterations++;
+            progress.advance();
+            if (changed <= convergenceThreshold * n) {
+                outcome.converged = true;
+                break;
+            }
+            if (System.nanoTime() > deadline) {
+                break;
+            }
+        }
+
+        for (int p = 0; p < n; p++) {
+            int route = parcelRoute[p];
+            if (route != OptimizationWorkingSet.UNASSIGNED) {
+                ws.assign(p, route, ws.depotDistance(route, p));
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * k-means++ on a uniform sample: each next seed is drawn with probability
+     * proportional to its squared distance from the closest seed so far.
+     */
+    private void seedCentroids(double[] px, double[] py, double[] pz, double[] cx, double[] cy, double[] cz,
+            int leafSize, OptimizationProgress progress) {
+        int n = px.length;
+        int k = cx.length;
+        SplittableRandom random = new SplittableRandom(seed);
+
+        int sampleSize = (int) Math.min(n, Math.max(MIN_SAMPLE_SIZE, (long) k * SAMPLE_PER_CLUSTER));
+        double[] sx = new double[sampleSize];
+        double[] sy = new double[sampleSize];
+        double[] sz = new double[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            int p = sampleSize == n ? i : random.nextInt(n);
+            sx[i] = px[p];
+            sy[i] = py[p];
+            sz[i] = pz[p];
+        }
+
+        double[] minDistance = new double[sampleSize];
+        Arrays.fill(minDistance, Double.POSITIVE_INFINITY);
+        int first = random.nextInt(sampleSize);
+        cx[0] = sx[first];
+        cy[0] = sy[first];
+        cz[0] = sz[first];
+
+        for (int c = 1; c < k; c++) {
+            progress.advance();
+            double total = pool.invoke(new SeedDistanceTask(sx, sy, sz, cx[c - 1], cy[c - 1], cz[c - 1],
+                minDistance, 0, sampleSize, leafSize));
+            int pick;
+            if (total > 0) {
+                double target = random.nextDouble() * total;
+                pick = 0;
+                while (pick < sampleSize - 1 && (target -= minDistance[pick]) > 0) {
+                    pick++;
+                }
+            } else {
+                // Fewer distinct locations than clusters
+                pick = random.nextInt(sampleSize);
+            }
+            cx[c] = sx[pick];
+            cy[c] = sy[pick];
+            cz[c] = sz[pick];
+        }
+    }
+
+    /**
+     * Binds every cluster to its own route, heaviest cluster first: each takes
+     * the nearest free depot that can carry its current load, or the nearest
+     * free depot when none can. Rebinding every iteration lets clusters settle
+     * around depots instead of keeping the arbitrary binding of their seeds.
+     */
+    private void bindClustersToRoutes(OptimizationWorkingSet ws, double[] centroidLat, double[] centroidLon,
+            double[] clusterLoad, int[] clusterRoute) {
+        int k = clusterRoute.length;
+        double[] capacity = ws.capacities.clone();
+        RouteSpatialIndex depots = new RouteSpatialIndex(ws.routeLatitudes, ws.routeLongitudes, capacity,
+            Double.MIN_VALUE);
+
+        Integer[] clusters = new Integer[k];
+        for (int c = 0; c < k; c++) {
+            clusters[c] = c;
+        }
+        // Stable, so the first binding follows seeding order
+        Arrays.sort(clusters, (a, b) -> Double.compare(clusterLoad[b], clusterLoad[a]));
+
+        for (int c : clusters) {
+            int route = depots.nearest(centroidLat[c], centroidLon[c], Math.max(clusterLoad[c], Double.MIN_VALUE));
+            if (route < 0) {
+                route = depots.nearest(centroidLat[c], centroidLon[c], Double.MIN_VALUE);
+            }
+            clusterRoute[c] = route;
+            depots.update(route, 0);
+        }
+    }
+
+    /**
+     * Heaviest parcel first: keep the nearest centroid if it has room,
+     * otherwise take the nearest centroid that does.
+     *
+     * @return number of parcels whose route changed
+     */
+    private int assignWithinCapacity(double[] weights, double[] lat, double[] lon, int[] order, int[] nearest,
+            double[] centroidLat, double[] centroidLon, int[] clusterRoute, double[] clusterCapacity,
+            double lightestWeight, int[] assignment, int[] parcelRoute, double[] clusterLoad) {
+        double[] remaining = clusterCapacity.clone();
+        RouteSpatialIndex clusters = new RouteSpatialIndex(centroidLat, centroidLon, remaining, lightestWeight);
+        Arrays.fill(clusterLoad, 0);
+
+        int changed = 0;
+        for (int p : order) {
+            double weight = weights[p];
+            int cluster = nearest[p];
+            if (weight <= 0) {
+                cluster = OptimizationWorkingSet.UNASSIGNED;
+            } else if (remaining[cluster] < weight) {
+                cluster = clusters.nearest(lat[p], lon[p], weight);
+            }
+
+            int route = OptimizationWorkingSet.UNASSIGNED;
+            if (cluster != OptimizationWorkingSet.UNASSIGNED) {
+                remaining[cluster] -= weight;
+                clusterLoad[cluster] += weight;
+                clusters.update(cluster, remaining[cluster]);
+                route = clusterRoute[cluster];
+            }
+            assignment[p] = cluster;
+            if (parcelRoute[p] != route) {
+                parcelRoute[p] = route;
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static void moveCentroids(double[] sums, double[] cx, double[] cy, double[] cz) {
+        for (int c = 0; c < cx.length; c++) {
+            double x = sums[c * 4];
+            double y = sums[c * 4 + 1];
+            double z = sums[c * 4 + 2];
+            double length = Math.sqrt(x * x + y * y + z * z);
+            // Empty clusters keep their centroid
+            if (sums[c * 4 + 3] > 0 && length > 0) {
+                cx[c] = x / length;
+                cy[c] = y / length;
+                cz[c] = z / length;
+            }
+        }
+    }
+
+    private static void toLatLon(double[] x, double[] y, double[] z, double[] lat, double[] lon) {
+        for (int i = 0; i < x.length; i++) {
+            lat[i] = Math.toDegrees(Math.asin(Math.max(-1, Math.min(1, z[i]))));
+            lon[i] = Math.toDegrees(Math.atan2(y[i], x[i]));
+        }
+    }
+
+    private static final class NearestCentroidTask extends RecursiveAction {
+        private final double[] lat;
+        private final double[] lon;
+        private final double[] centroidLat;
+        private final double[] centroidLon;
+        private final int[] nearest;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        NearestCentroidTask(double[] lat, double[] lon, double[] centroidLat, double[] centroidLon,
+                int[] nearest, int from, int to, int leafSize) {
+            this.lat = lat;
+            this.lon = lon;
+            this.centroidLat = centroidLat;
+            this.centroidLon = centroidLon;
+            this.nearest = nearest;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > leafSize) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new NearestCentroidTask(lat, lon, centroidLat, centroidLon, nearest, from, mid, leafSize),
+                    new NearestCentroidTask(lat, lon, centroidLat, centroidLon, nearest, mid, to, leafSize));
+                return;
+            }
+            // The index keeps query state, so every leaf gets its own uncapacitated copy
+            double[] unlimited = new double[centroidLat.length];
+            Arrays.fill(unlimited, Double.POSITIVE_INFINITY);
+            RouteSpatialIndex centroids = new RouteSpatialIndex(centroidLat, centroidLon, unlimited, 0);
+            for (int p = from; p < to; p++) {
+                nearest[p] = centroids.nearest(lat[p], lon[p], 0);
+            }
+        }
+    }
+
+    private static final class CentroidSumTask extends RecursiveTask<double[]> {
+        private final double[] x;
+        private final double[] y;
+        private final double[] z;
+        private final int[] assignment;
+        private final int clusters;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        CentroidSumTask(double[] x, double[] y, double[] z, int[] assignment, int clusters,
+                int from, int to, int leafSize) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.assignment = assignment;
+            this.clusters = clusters;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        // Per cluster: sum x, sum y, sum z, count
+        @Override
+        protected double[] compute() {
+            if (to - from > leafSize) {
+                int mid = (from + to) >>> 1;
+                CentroidSumTask left = new CentroidSumTask(x, y, z, assignment, clusters, from, mid, leafSize);
+                left.fork();
+                double[] sums = new CentroidSumTask(x, y, z, assignment, clusters, mid, to, leafSize).compute();
+                double[] other = left.join();
+                for (int i = 0; i < sums.length; i++) {
+                    sums[i] += other[i];
+                }
+                return sums;
+            }
+            double[] sums = new double[clusters * 4];
+            for (int p = from; p < to; p++) {
+                int c = assignment[p];
+                if (c != OptimizationWorkingSet.UNASSIGNED) {
+                    sums[c * 4] += x[p];
+                    sums[c * 4 + 1] += y[p];
+                    sums[c * 4 + 2] += z[p];
+                    sums[c * 4 + 3]++;
+                }
+            }
+            return sums;
+        }
+    }
+
+    // Lowers each sample's distance to its closest seed given the newest seed; returns the total
+    private static final class SeedDistanceTask extends RecursiveTask<Double> {
+        private final double[] x;
+        private final double[] y;
+        private final double[] z;
+        private final double sx;
+        private final double sy;
+        private final double sz;
+        private final double[] minDistance;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        SeedDistanceTask(double[] x, double[] y, double[] z, double sx, double sy, double sz,
+                double[] minDistance, int from, int to, int leafSize) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.sx = sx;
+            this.sy = sy;
+            this.sz = sz;
+            this.minDistance = minDistance;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > leafSize) {
+                int mid = (from + to) >>> 1;
+                SeedDistanceTask left = new SeedDistanceTask(x, y, z, sx, sy, sz, minDistance, from, mid, leafSize);
+                left.fork();
+                double right = new SeedDistanceTask(x, y, z, sx, sy, sz, minDistance, mid, to, leafSize).compute();
+                return left.join() + right;
+            }
+            double total = 0;
+            for (int i = from; i < to; i++) {
+                double dx = x[i] - sx;
+                double dy = y[i] - sy;
+                double dz = z[i] - sz;
+                double d = dx * dx + dy * dy + dz * dz;
+                if (d < minDistance[i]) {
+                    minDistance[i] = d;
+                }
+                total += minDistance[i];
+            }
+            return total;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.routemasterapi.api.service;
 
 import com.routemasterapi.api.entity.customerentity;
 import com.routemasterapi.api.repositories.CustomerRepository;
+import com.routemasterapi.api.security.CustomerPrincipal;
+import com.routemasterapi.api.security.CustomerPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,6 +19,9 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private CustomerPrincipalCache principalCache;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         customerentity user = customerRepository.findByEmail(email)
@@ -24,4 +29,18 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         return new User(user.getEmail(), user.getPassword(), Collections.emptyList());
     }
+
+    // Principal for an already verified token, from the cache when possible; null when the customer is gone
+    public CustomerPrincipal loadPrincipal(String email) {
+        CustomerPrincipal principal = principalCache.get(email);
+        if (principal == null) {
+            principal = customerRepository.findByEmail(email)
+                    .map(CustomerPrincipal::from)
+                    .orElse(null);
+            if (principal != null) {
+                principalCache.put(principal);
+            }
+        }
+        return principal;
+    }
 }
@@ -1,10 +1,13 @@
 package com.routemasterapi.api.service;
 
 import com.routemasterapi.api.entity.customerentity;
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.CustomerChangeEvent;
 import com.routemasterapi.api.model.CustomerIdRequest;
 import com.routemasterapi.api.model.CustomerRequestBody; 
 import com.routemasterapi.api.repositories.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -20,6 +23,9 @@ public class CustomerService {
     @Autowired
     private PasswordEncoder passwordEncoder;  // ✅ ADDED - Password encoder
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public customerentity createCustomer(CustomerRequestBody customerReqBody) {
         customerentity newCustomer = new customerentity();
         newCustomer.setFirstName(customerReqBody.getFirstName());
@@ -33,7 +39,9 @@ public class CustomerService {
             newCustomer.setPassword(passwordEncoder.encode(customerReqBody.getPassword()));
         }
         
-        return customerRepository.save(newCustomer);         
+        customerentity saved = customerRepository.save(newCustomer);
+        eventPublisher.publishEvent(new CustomerChangeEvent(this, ChangeType.CREATED, saved.getCustomerId()));
+        return saved;
     }
 
     public customerentity updateCustomer(CustomerRequestBody customerReqBody) {
@@ -50,7 +58,9 @@ public class CustomerService {
                 updatedCustomer.setPassword(passwordEncoder.encode(customerReqBody.getPassword()));
             }
             
-            return customerRepository.save(updatedCustomer);
+            customerentity saved = customerRepository.save(updatedCustomer);
+            eventPublisher.publishEvent(new CustomerChangeEvent(this, ChangeType.UPDATED, saved.getCustomerId()));
+            return saved;
         }
         return null;
     }
@@ -64,6 +74,7 @@ public class CustomerService {
         int customerId = customerIdReq.getCustomerId();
         if (customerRepository.existsById(customerId)) {
             customerRepository.deleteById(customerId);
+            eventPublisher.publishEvent(new CustomerChangeEvent(this, ChangeType.DELETED, customerId));
             return "Customer record deleted successfully";
         } else {
             return "Customer record not found";
@@ -1,39 +1,458 @@
 package com.routemasterapi.api.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.routemasterapi.api.entity.DashboardRouteSummaryEntity;
+import com.routemasterapi.api.entity.DashboardSummaryEntity;
+import com.routemasterapi.api.entity.RouterEntity;
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.CustomerChangeEvent;
+import com.routemasterapi.api.event.ParcelChangeEvent;
+import com.routemasterapi.api.event.ParcelsImportedEvent;
+import com.routemasterapi.api.event.RouteChangeEvent;
+import com.routemasterapi.api.model.OptimizerParcel;
 import com.routemasterapi.api.repositories.CustomerRepository;
+import com.routemasterapi.api.repositories.DashboardRouteSummaryRepository;
+import com.routemasterapi.api.repositories.DashboardSummaryRepository;
 import com.routemasterapi.api.repositories.ParcelRepository;
 import com.routemasterapi.api.repositories.RouterRepository;
 
+/**
+ * Dashboard totals kept in memory and adjusted by the customer, parcel and
+ * route change events, so the polled /dashboard endpoints never scan the
+ * customer or parcel tables.
+ *
+ * The totals are written behind to dashboard_summary and
+ * dashboard_route_summary, which seed them at startup, and are reconciled
+ * against the real tables every reconcile-interval-ms. The reconciliation
+ * also corrects writes that bypass the services and events that raced it.
+ *
+ * Every change bumps a version; the combined snapshot is serialized once per
+ * version and its ETag is derived from it.
+ */
 @Service
 public class DashboardService {
-	 @Autowired
-	    private CustomerRepository customerRepository;
 
-	    @Autowired
-	    private ParcelRepository parcelRepository;
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
 
-	    @Autowired
-	    private RouterRepository routerRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
 
-	    public long getNumberOfCustomers() {
-	        return customerRepository.count();
-	    }
+    @Autowired
+    private ParcelRepository parcelRepository;
 
-	    public long getNumberOfParcelsSent() {
-	        return parcelRepository.count();
-	    }
+    @Autowired
+    private RouterRepository routerRepository;
 
-	    public double getTotalPaymentCollected() {
-	        return parcelRepository.sumTotalPayment();
-	    }
+    @Autowired
+    private DashboardSummaryRepository dashboardSummaryRepository;
 
-	    public List<Object[]> getParcelCountPerRoute() {
-	        return parcelRepository.countParcelsByRoute();
-	    }
+    @Autowired
+    private DashboardRouteSummaryRepository dashboardRouteSummaryRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Versions restart with the process; the epoch keeps old ETags from matching
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+
+    // Written under the lock, read without it
+    private volatile long customerCount;
+    private volatile long parcelCount;
+    private volatile double totalPayment;
+    private volatile Map<String, Long> countsByName = Collections.emptyMap();
+    private volatile boolean loaded;
+    private volatile long version;
+    private volatile Snapshot snapshot;
+
+    // Guarded by this
+    private final Map<Integer, String> routeNames = new HashMap<>();
+    private final Map<Integer, Long> routeCounts = new HashMap<>();
+    private final Set<Integer> dirtyRoutes = new HashSet<>();
+    private final Set<Integer> deletedRoutes = new HashSet<>();
+    private volatile boolean countsByNameStale;
+    private boolean summaryDirty;
+    private long reconciledAt;
+
+    public long getNumberOfCustomers() {
+        ensureLoaded();
+        return customerCount;
+    }
+
+    public long getNumberOfParcelsSent() {
+        ensureLoaded();
+        return parcelCount;
+    }
+
+    public double getTotalPaymentCollected() {
+        ensureLoaded();
+        return totalPayment;
+    }
+
+    /**
+     * Parcel count per route name, for routes that have parcels. Like the
+     * per-route GROUP BY this replaces, a name shared by several routes keeps
+     * one route's count: the one with the highest route id.
+     */
+    public Map<String, Long> getParcelCountPerRoute() {
+        ensureLoaded();
+        Map<String, Long> counts = countsByName;
+        if (countsByNameStale) {
+            synchronized (this) {
+                if (countsByNameStale) {
+                    Map<String, Long> rebuilt = new HashMap<>();
+                    List<Integer> routeIds = new ArrayList<>(routeNames.keySet());
+                    Collections.sort(routeIds);
+                    for (Integer routeId : routeIds) {
+                        long count = routeCounts.getOrDefault(routeId, 0L);
+                        if (count > 0) {
+                            rebuilt.put(routeNames.get(routeId), count);
+                        }
+                    }
+                    countsByName = Collections.unmodifiableMap(rebuilt);
+                    countsByNameStale = false;
+                }
+                counts = countsByName;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Serialized snapshot of all dashboard totals, taken under one lock so the
+     * values are consistent with each other.
+     */
+    public static final class Snapshot {
+        private final long version;
+        private final String etag;
+        private final byte[] json;
+
+        Snapshot(long version, String etag, byte[] json) {
+            this.version = version;
+            this.etag = etag;
+            this.json = json;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+    }
+
+    /**
+     * ETag of the current data, without building the snapshot.
+     */
+    public String currentEtag() {
+        ensureLoaded();
+        return etag(version);
+    }
+
+    /**
+     * The combined snapshot, serialized at most once per data version.
+     */
+    public Snapshot getSnapshot() {
+        ensureLoaded();
+        Snapshot current = snapshot;
+        if (current != null && current.version == version) {
+            return current;
+        }
+        Map<String, Object> view = new LinkedHashMap<>();
+        long takenVersion;
+        synchronized (this) {
+            takenVersion = version;
+            view.put("customerCount", customerCount);
+            view.put("parcelCount", parcelCount);
+            view.put("totalPayment", totalPayment);
+            view.put("parcelCountPerRoute", getParcelCountPerRoute());
+        }
+        view.put("version", takenVersion);
+        try {
+            current = new Snapshot(takenVersion, etag(takenVersion), objectMapper.writeValueAsBytes(view));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize dashboard snapshot", e);
+        }
+        snapshot = current;
+        return current;
+    }
+
+    @EventListener
+    public void onParcelChange(ParcelChangeEvent event) {
+        OptimizerParcel before = event.getBefore();
+        OptimizerParcel after = event.getAfter();
+        synchronized (this) {
+            // An update of an unknown parcel has no "before" and inserted a row
+            if (before != null) {
+                parcelCount--;
+                totalPayment -= payment(event.getBeforeTotalPayment());
+                addToRoute(before.getRouteId(), -1);
+            }
+            if (after != null) {
+                parcelCount++;
+                totalPayment += payment(event.getAfterTotalPayment());
+                addToRoute(after.getRouteId(), 1);
+            }
+            summaryDirty = true;
+            version++;
+        }
+    }
+
+    @EventListener
+    public void onParcelsImported(ParcelsImportedEvent event) {
+        synchronized (this) {
+            parcelCount += event.getParcels().size();
+            totalPayment += event.getTotalPayment();
+            for (OptimizerParcel parcel : event.getParcels()) {
+                addToRoute(parcel.getRouteId(), 1);
+            }
+            summaryDirty = true;
+            version++;
+        }
+    }
+
+    @EventListener
+    public void onCustomerChange(CustomerChangeEvent event) {
+        if (event.getType() == ChangeType.UPDATED) {
+            return;
+        }
+        synchronized (this) {
+            customerCount += event.getType() == ChangeType.CREATED ? 1 : -1;
+            summaryDirty = true;
+            version++;
+        }
+    }
+
+    @EventListener
+    public void onRouteChange(RouteChangeEvent event) {
+        int routeId = event.getRouteId();
+        String name = null;
+        if (event.getType() != ChangeType.DELETED) {
+            name = routerRepository.findById(routeId).map(RouterEntity::getName).orElse(null);
+        }
+        synchronized (this) {
+            if (name != null) {
+                routeNames.put(routeId, name);
+                deletedRoutes.remove(routeId);
+                dirtyRoutes.add(routeId);
+            } else {
+                routeNames.remove(routeId);
+                routeCounts.remove(routeId);
+                dirtyRoutes.remove(routeId);
+                deletedRoutes.add(routeId);
+            }
+            countsByNameStale = true;
+            version++;
+        }
+    }
+
+    /**
+     * Seeds the totals from the summary tables, or from the real tables when
+     * they were never written.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureLoaded();
+    }
+
+    /**
+     * Writes changed totals to the summary tables.
+     */
+    @Scheduled(fixedDelayString = "${routemaster.dashboard.flush-interval-ms:10000}")
+    public void flush() {
+        if (!loaded) {
+            return;
+        }
+        DashboardSummaryEntity summary = null;
+        List<DashboardRouteSummaryEntity> routes = new ArrayList<>();
+        List<Integer> deleted;
+        synchronized (this) {
+            if (summaryDirty) {
+                summary = summary();
+                summaryDirty = false;
+            }
+            for (Integer routeId : dirtyRoutes) {
+                routes.add(new DashboardRouteSummaryEntity(routeId, routeNames.get(routeId),
+                    routeCounts.getOrDefault(routeId, 0L)));
+            }
+            dirtyRoutes.clear();
+            deleted = new ArrayList<>(deletedRoutes);
+            deletedRoutes.clear();
+        }
+        if (summary == null && routes.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (summary != null) {
+                dashboardSummaryRepository.save(summary);
+            }
+            if (!routes.isEmpty()) {
+                dashboardRouteSummaryRepository.saveAll(routes);
+            }
+            if (!deleted.isEmpty()) {
+                dashboardRouteSummaryRepository.deleteAllByIdInBatch(deleted);
+            }
+        } catch (Exception e) {
+            // Write it all again next time
+            synchronized (this) {
+                summaryDirty |= summary != null;
+                for (DashboardRouteSummaryEntity route : routes) {
+                    if (routeNames.containsKey(route.getRouteId())) {
+                        dirtyRoutes.add(route.getRouteId());
+                    }
+                }
+                for (Integer routeId : deleted) {
+                    if (!routeNames.containsKey(routeId)) {
+                        deletedRoutes.add(routeId);
+                    }
+                }
+            }
+            logger.error("Failed to write dashboard summary", e);
+        }
+    }
+
+    /**
+     * Recomputes the totals from the customer, parcel and route tables and
+     * rewrites the summary tables.
+     */
+    @Scheduled(initialDelayString = "${routemaster.dashboard.reconcile-interval-ms:300000}",
+        fixedDelayString = "${routemaster.dashboard.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long startTime = System.currentTimeMillis();
+        try {
+            long customers = customerRepository.count();
+            List<Object[]> totals = parcelRepository.countParcelsAndSumPayment();
+            Object[] row = totals.isEmpty() ? new Object[] { 0L, 0.0 } : totals.get(0);
+            long parcels = ((Number) row[0]).longValue();
+            double payment = row[1] != null ? ((Number) row[1]).doubleValue() : 0;
+
+            Map<Integer, Long> counts = new HashMap<>();
+            for (Object[] route : parcelRepository.countParcelsByRouteId()) {
+                counts.put(((Number) route[0]).intValue(), ((Number) route[1]).longValue());
+            }
+            Map<Integer, String> names = new HashMap<>();
+            for (RouterEntity route : routerRepository.findAll()) {
+                names.put(route.getRouteId(), route.getName());
+            }
+
+            List<DashboardRouteSummaryEntity> routes = new ArrayList<>(names.size());
+            DashboardSummaryEntity summary;
+            synchronized (this) {
+                if (loaded && (customers != customerCount || parcels != parcelCount)) {
+                    logger.info("Dashboard totals drifted: customers {} -> {}, parcels {} -> {}",
+                        customerCount, customers, parcelCount, parcels);
+                }
+                customerCount = customers;
+                parcelCount = parcels;
+                totalPayment = payment;
+                routeNames.clear();
+                routeNames.putAll(names);
+                routeCounts.clear();
+                routeCounts.putAll(counts);
+                dirtyRoutes.clear();
+                deletedRoutes.clear();
+                countsByNameStale = true;
+                summaryDirty = false;
+                reconciledAt = System.currentTimeMillis();
+                for (Map.Entry<Integer, String> route : names.entrySet()) {
+                    routes.add(new DashboardRouteSummaryEntity(route.getKey(), route.getValue(),
+                        counts.getOrDefault(route.getKey(), 0L)));
+                }
+                summary = summary();
+                version++;
+                loaded = true;
+            }
+
+            dashboardSummaryRepository.save(summary);
+            dashboardRouteSummaryRepository.deleteAllInBatch();
+            dashboardRouteSummaryRepository.saveAll(routes);
+            logger.debug("Reconciled dashboard totals in {} ms", System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            logger.error("Dashboard reconciliation failed", e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try {
+                DashboardSummaryEntity summary = dashboardSummaryRepository
+                    .findById(DashboardSummaryEntity.SINGLETON_ID).orElse(null);
+                if (summary != null) {
+                    customerCount = summary.getCustomerCount();
+                    parcelCount = summary.getParcelCount();
+                    totalPayment = summary.getTotalPayment();
+                    reconciledAt = summary.getReconciledAt();
+                    for (DashboardRouteSummaryEntity route : dashboardRouteSummaryRepository.findAll()) {
+                        routeNames.put(route.getRouteId(), route.getRouteName());
+                        routeCounts.put(route.getRouteId(), route.getParcelCount());
+                    }
+                    countsByNameStale = true;
+                    version++;
+                    loaded = true;
+                    return;
+                }
+            } catch (Exception e) {
+                logger.error("Failed to read dashboard summary, recomputing it", e);
+            }
+        }
+        reconcile();
+    }
+
+    private String etag(long dataVersion) {
+        return "\"" + epoch + "-" + dataVersion + "\"";
+    }
+
+    private void addToRoute(Integer routeId, long delta) {
+        if (routeId == null) {
+            return;
+        }
+        routeCounts.merge(routeId, delta, Long::sum);
+        if (routeNames.containsKey(routeId)) {
+            dirtyRoutes.add(routeId);
+            countsByNameStale = true;
+        }
+    }
+
+    private DashboardSummaryEntity summary() {
+        DashboardSummaryEntity summary = new DashboardSummaryEntity();
+        summary.setCustomerCount(customerCount);
+        summary.setParcelCount(parcelCount);
+        summary.setTotalPayment(totalPayment);
+        summary.setUpdatedAt(System.currentTimeMillis());
+        summary.setReconciledAt(reconciledAt);
+        return summary;
+    }
+
+    private static double payment(Double value) {
+        return value != null ? value : 0;
+    }
 }
@@ -0,0 +1,381 @@
+package com.routemasterapi.api.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Parcel-to-route assignment that takes single parcel inserts and removals,
+ * seeded from a flood-filled working set.
+ *
+ * Parcels live in reusable slots (struct of arrays) linked into a doubly
+ * linked member list per route, so a removal or a scan of one route never
+ * searches the other parcels. An insert goes to the nearest route with room;
+ * when there is none, the nearest route is given room by moving one of its
+ * parcels to another route with room. A removal frees capacity and retries
+ * parcels that are still waiting for a route.
+ *
+ * Not thread-safe: IncrementalRouteOptimizer confines it to its worker.
+ */
+final class IncrementalAssignment {
+
+    static final int NONE = -1;
+
+    // Members of the blocking route examined when making room for an insert
+    private static final int REPAIR_SCAN_LIMIT = 256;
+    // Waiting parcels retried after capacity was freed
+    private static final int REFILL_SCAN_LIMIT = 256;
+
+    // Routes, indexed like the working set they came from
+    final int routeCount;
+    final int[] routeIds;
+    final String[] routeNames;
+    final double[] capacities;
+    final double[] loads;
+    final double[] distances;
+    final int[] routeParcelCounts;
+    private final double[] routeLatitudes;
+    private final double[] routeLongitudes;
+    private final int[] routeMatrixIndex;
+    private final int[] routeHead;
+    private final RouteSpatialIndex roomIndex;
+    private final RouteSpatialIndex depotIndex;
+    private final PincodeDistanceMatrix.Snapshot matrix;
+
+    // Parcel slots
+    private int slotCount;
+    private int[] parcelIds;
+    private double[] weights;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int[] matrixIndex;
+    private int[] routeOf;
+    private double[] distanceOf;
+    private int[] next;
+    private int[] prev;
+    private int[] freeSlots;
+    private int freeCount;
+    private final Map<Integer, Integer> slotById;
+    // Unassigned slots with a positive weight, oldest first
+    private final LinkedHashSet<Integer> waiting = new LinkedHashSet<>();
+
+    private int assignedCount;
+    private long repairs;
+
+    IncrementalAssignment(OptimizationWorkingSet ws) {
+        routeCount = ws.routeCount;
+        routeIds = ws.routeIds.clone();
+        routeNames = ws.routeNames.clone();
+        capacities = ws.capacities.clone();
+        loads = ws.loads.clone();
+        distances = ws.distances.clone();
+        routeParcelCounts = ws.routeParcelCounts.clone();
+        routeLatitudes = ws.routeLatitudes.clone();
+        routeLongitudes = ws.routeLongitudes.clone();
+        routeMatrixIndex = ws.routeMatrixIndex.clone();
+        matrix = ws.distanceMatrix();
+
+        // Any positive room is usable: the lightest parcel changes with every insert
+        roomIndex = new RouteSpatialIndex(routeLatitudes, routeLongitudes, ws.remainingCapacities(), Double.MIN_VALUE);
+        double[] unbounded = new double[routeCount];
+        Arrays.fill(unbounded, Double.POSITIVE_INFINITY);
+        depotIndex = new RouteSpatialIndex(routeLatitudes, routeLongitudes, unbounded, 0);
+
+        routeHead = new int[routeCount];
+        Arrays.fill(routeHead, NONE);
+
+        int capacity = Math.max(16, ws.parcelCount + ws.parcelCount / 4);
+        parcelIds = new int[capacity];
+        weights = new double[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        matrixIndex = new int[capacity];
+        routeOf = new int[capacity];
+        distanceOf = new double[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        freeSlots = new int[16];
+        slotById = new HashMap<>(capacity * 4 / 3 + 1);
+
+        for (int p = 0; p < ws.parcelCount; p++) {
+            int slot = slotCount++;
+            parcelIds[slot] = ws.parcelIds[p];
+            weights[slot] = ws.weights[p];
+            latitudes[slot] = ws.parcelLatitudes[p];
+            longitudes[slot] = ws.parcelLongitudes[p];
+            matrixIndex[slot] = ws.parcelMatrixIndex[p];
+            slotById.put(ws.parcelIds[p], slot);
+
+            int route = ws.assignedRoute[p];
+            routeOf[slot] = route;
+            if (route == OptimizationWorkingSet.UNASSIGNED) {
+                routeOf[slot] = NONE;
+                if (weights[slot] > 0) {
+                    waiting.add(slot);
+                }
+            } else {
+                // Totals already include the parcel; only link it
+                distanceOf[slot] = ws.assignedDistance[p];
+                link(slot, route);
+                assignedCount++;
+            }
+        }
+    }
+
+    /**
+     * Inserts a parcel, or re-places it when it is already known.
+     *
+     * @param pincode parsed destination pincode, -1 when unknown
+     * @return the route index it was assigned to, or NONE
+     */
+    int put(int parcelId, double weight, int pincode, double latitude, double longitude) {
+        Integer existing = slotById.get(parcelId);
+        int freedRoute = NONE;
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            freedRoute = detach(slot);
+        } else {
+            slot = allocate(parcelId);
+        }
+
+        weights[slot] = weight;
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        matrixIndex[slot] = matrix != null && pincode >= 0 ? matrix.indexOf(pincode) : -1;
+
+        int route = place(slot);
+        if (freedRoute != NONE && freedRoute != route) {
+            refill(freedRoute);
+        }
+        return route;
+    }
+
+    /**
+     * Removes a parcel and lets waiting parcels use the capacity it held.
+     *
+     * @return false when the parcel was not known
+     */
+    boolean remove(int parcelId) {
+        Integer slot = slotById.remove(parcelId);
+        if (slot == null) {
+            return false;
+        }
+        int route = detach(slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        if (route != NONE) {
+            refill(route);
+        }
+        return true;
+    }
+
+    boolean contains(int parcelId) {
+        return slotById.containsKey(parcelId);
+    }
+
+    /**
+     * Route index of the parcel, or NONE when it is unassigned or unknown.
+     */
+    int routeOf(int parcelId) {
+        Integer slot = slotById.get(parcelId);
+        return slot != null ? routeOf[slot] : NONE;
+    }
+
+    /**
+     * Depot distance of an assigned parcel in km, NaN otherwise.
+     */
+    double distanceOf(int parcelId) {
+        Integer slot = slotById.get(parcelId);
+        return slot != null && routeOf[slot] != NONE ? distanceOf[slot] : Double.NaN;
+    }
+
+    int size() {
+        return slotById.size();
+    }
+
+    int assignedCount() {
+        return assignedCount;
+    }
+
+    long repairs() {
+        return repairs;
+    }
+
+    double remainingCapacity(int route) {
+        return capacities[route] - loads[route];
+    }
+
+    private int place(int slot) {
+        double weight = weights[slot];
+        if (weight <= 0) {
+            return NONE;
+        }
+        int route = roomIndex.nearest(latitudes[slot], longitudes[slot], weight);
+        if (route < 0) {
+            route = makeRoom(slot);
+        }
+        if (route < 0) {
+            waiting.add(slot);
+            return NONE;
+        }
+        attach(slot, route);
+        return route;
+    }
+
+    /**
+     * Frees room for {@code slot} on its nearest route by moving the member
+     * that is cheapest to move (in added depot distance) to another route
+     * with room. Returns the route that now has room, or NONE.
+     */
+    private int makeRoom(int slot) {
+        double weight = weights[slot];
+        int target = depotIndex.nearest(latitudes[slot], longitudes[slot], 0);
+        if (target < 0 || weight > capacities[target]) {
+            return NONE;
+        }
+        double shortfall = weight - remainingCapacity(target);
+
+        // Keep the target out of the candidates for the moved parcel
+        roomIndex.update(target, 0);
+        int bestMember = NONE;
+        int bestRoute = NONE;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int scanned = 0;
+        for (int member = routeHead[target]; member != NONE && scanned < REPAIR_SCAN_LIMIT; member = next[member]) {
+            scanned++;
+            if (weights[member] < shortfall) {
+                continue;
+            }
+            int alternative = roomIndex.nearest(latitudes[member], longitudes[member], weights[member]);
+            if (alternative < 0) {
+                continue;
+            }
+            double cost = distance(alternative, member) - distanceOf[member];
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestMember = member;
+                bestRoute = alternative;
+            }
+        }
+        roomIndex.update(target, remainingCapacity(target));
+
+        if (bestMember == NONE) {
+            return NONE;
+        }
+        detach(bestMember);
+        attach(bestMember, bestRoute);
+        repairs++;
+        return target;
+    }
+
+    /**
+     * Retries waiting parcels after {@code route} gained capacity. Each goes
+     * to its nearest route with room, which is not necessarily this one.
+     */
+    private void refill(int route) {
+        int scanned = 0;
+        Iterator<Integer> it = waiting.iterator();
+        while (it.hasNext() && scanned++ < REFILL_SCAN_LIMIT && remainingCapacity(route) > 0) {
+            int slot = it.next();
+            if (weights[slot] > remainingCapacity(route)) {
+                continue;
+            }
+            int best = roomIndex.nearest(latitudes[slot], longitudes[slot], weights[slot]);
+            if (best >= 0) {
+                it.remove();
+                attach(slot, best);
+            }
+        }
+    }
+
+    private void attach(int slot, int route) {
+        double distance = distance(route, slot);
+        routeOf[slot] = route;
+        distanceOf[slot] = distance;
+        link(slot, route);
+        loads[route] += weights[slot];
+        distances[route] += distance;
+        routeParcelCounts[route]++;
+        assignedCount++;
+        roomIndex.update(route, remainingCapacity(route));
+    }
+
+    /**
+     * Takes the slot off its route (or off the waiting list). Returns the
+     * route it was on, or NONE.
+     */
+    private int detach(int slot) {
+        int route = routeOf[slot];
+        if (route == NONE) {
+            waiting.remove(slot);
+            return NONE;
+        }
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            routeHead[route] = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        }
+        loads[route] -= weights[slot];
+        distances[route] -= distanceOf[slot];
+        routeParcelCounts[route]--;
+        assignedCount--;
+        routeOf[slot] = NONE;
+        roomIndex.update(route, remainingCapacity(route));
+        return route;
+    }
+
+    private void link(int slot, int route) {
+        prev[slot] = NONE;
+        next[slot] = routeHead[route];
+        if (routeHead[route] != NONE) {
+            prev[routeHead[route]] = slot;
+        }
+        routeHead[route] = slot;
+    }
+
+    private int allocate(int parcelId) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == parcelIds.length) {
+                grow(slotCount * 2);
+            }
+            slot = slotCount++;
+        }
+        parcelIds[slot] = parcelId;
+        routeOf[slot] = NONE;
+        slotById.put(parcelId, slot);
+        return slot;
+    }
+
+    private void grow(int capacity) {
+        parcelIds = Arrays.copyOf(parcelIds, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        matrixIndex = Arrays.copyOf(matrixIndex, capacity);
+        routeOf = Arrays.copyOf(routeOf, capacity);
+        distanceOf = Arrays.copyOf(distanceOf, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+    }
+
+    private double distance(int route, int slot) {
+        int routeIndex = routeMatrixIndex[route];
+        int parcelIndex = matrixIndex[slot];
+        if (routeIndex >= 0 && parcelIndex >= 0) {
+            return matrix.distance(routeIndex, parcelIndex);
+        }
+        return RouteOptimizerService.haversine(routeLatitudes[route], routeLongitudes[route],
+            latitudes[slot], longitudes[slot]);
+    }
+}
@@ -0,0 +1,350 @@
+package com.routemasterapi.api.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.routemasterapi.api.event.ParcelChangeEvent;
+import com.routemasterapi.api.event.ParcelsImportedEvent;
+import com.routemasterapi.api.event.RouteChangeEvent;
+import com.routemasterapi.api.model.OptimizerParcel;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the last flood fill assignment in memory and applies parcel creates,
+ * updates and deletes to it as they happen, so a single change costs a few
+ * spatial index lookups instead of a full optimization run.
+ *
+ * The assignment is owned by one worker thread: change events are queued to
+ * it and reads are answered by it. Route changes, deltas dropped on a full
+ * queue and the periodic schedule trigger a full rebalance, which reloads
+ * parcels and routes and flood fills them again.
+ */
+@Service
+public class IncrementalRouteOptimizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalRouteOptimizer.class);
+
+    @Autowired
+    private RouteOptimizerService routeOptimizerService;
+
+    @Autowired
+    private PincodeGeocoder pincodeGeocoder;
+
+    @Value("${routemaster.optimizer.incremental.enabled:true}")
+    private boolean enabled;
+
+    @Value("${routemaster.optimizer.incremental.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${routemaster.optimizer.incremental.read-timeout-ms:2000}")
+    private long readTimeoutMs;
+
+    private ThreadPoolExecutor worker;
+
+    // Worker-confined; null until the first rebalance
+    private IncrementalAssignment assignment;
+
+    // Set when the assignment is missing or missed changes; deltas are skipped until a rebalance
+    private volatile boolean stale = true;
+    private final AtomicBoolean rebalanceQueued = new AtomicBoolean();
+
+    private final AtomicLong deltasApplied = new AtomicLong();
+    private final AtomicLong deltasDropped = new AtomicLong();
+    private final AtomicLong deltasSinceRebalance = new AtomicLong();
+    private final AtomicLong rebalances = new AtomicLong();
+    private volatile long totalApplyNanos;
+    private volatile long lastApplyNanos;
+    private volatile long maxApplyNanos;
+    private volatile long lastLagNanos;
+    private volatile long lastRebalanceAt;
+    private volatile long lastRebalanceMs;
+
+    @PostConstruct
+    public void init() {
+        worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "incremental-optimizer");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @EventListener
+    public void onParcelChange(ParcelChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long queuedAt = System.nanoTime();
+        try {
+            worker.execute(() -> apply(event, queuedAt));
+        } catch (RejectedExecutionException e) {
+            deltasDropped.incrementAndGet();
+            stale = true;
+            logger.warn("Incremental optimizer queue is full, dropped change of parcel {}", event.getParcelId());
+        }
+    }
+
+    @EventListener
+    public void onParcelsImported(ParcelsImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // A bulk import would overflow the delta queue: skip deltas and rebuild once it is done
+        stale = true;
+        if (event.isLastBatch()) {
+            requestRebalance();
+        }
+    }
+
+    @EventListener
+    public void onRouteChange(RouteChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // Depots and capacities shape the whole assignment: rebuild instead of patching
+        stale = true;
+        requestRebalance();
+    }
+
+    @Scheduled(initialDelayString = "${routemaster.optimizer.incremental.initial-delay-ms:10000}",
+        fixedDelayString = "${routemaster.optimizer.incremental.rebalance-interval-ms:900000}")
+    public void scheduledRebalance() {
+        if (enabled && (stale || deltasSinceRebalance.get() > 0)) {
+            requestRebalance();
+        }
+    }
+
+    /**
+     * Queues a full rebalance unless one is already queued.
+     *
+     * @return false when the worker queue is full
+     */
+    public boolean requestRebalance() {
+        if (!rebalanceQueued.compareAndSet(false, true)) {
+            return true;
+        }
+        try {
+            worker.execute(this::rebalance);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rebalanceQueued.set(false);
+            logger.warn("Incremental optimizer queue is full, rebalance deferred");
+            return false;
+        }
+    }
+
+    /**
+     * Counters plus, once loaded, the per-route state of the assignment.
+     *
+     * @throws TimeoutException when the worker does not answer within the read timeout
+     */
+    public Map<String, Object> getStatus() throws TimeoutException {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("stale", stale);
+        status.put("queuedTasks", worker.getQueue().size());
+        status.put("deltasApplied", deltasApplied.get());
+        status.put("deltasDropped", deltasDropped.get());
+        status.put("deltasSinceRebalance", deltasSinceRebalance.get());
+        long applied = deltasApplied.get();
+        status.put("lastDeltaMicros", lastApplyNanos / 1000);
+        status.put("avgDeltaMicros", applied > 0 ? totalApplyNanos / applied / 1000 : 0);
+        status.put("maxDeltaMicros", maxApplyNanos / 1000);
+        status.put("lastDeltaLagMicros", lastLagNanos / 1000);
+        status.put("rebalances", rebalances.get());
+        status.put("lastRebalanceAt", lastRebalanceAt > 0 ? lastRebalanceAt : null);
+        status.put("lastRebalanceMs", lastRebalanceMs);
+
+        Map<String, Object> state = read(() -> {
+            if (assignment == null) {
+                return null;
+            }
+            Map<String, Object> view = new LinkedHashMap<>();
+            double totalCapacity = 0;
+            double totalLoad = 0;
+            List<Map<String, Object>> routes = new ArrayList<>(assignment.routeCount);
+            for (int r = 0; r < assignment.routeCount; r++) {
+                totalCapacity += assignment.capacities[r];
+                totalLoad += assignment.loads[r];
+                Map<String, Object> route = new LinkedHashMap<>();
+                route.put("routeId", assignment.routeIds[r]);
+                route.put("routeName", assignment.routeNames[r]);
+                route.put("parcelCount", assignment.routeParcelCounts[r]);
+                route.put("load", assignment.loads[r]);
+                route.put("capacity", assignment.capacities[r]);
+                route.put("utilization", assignment.capacities[r] > 0
+                    ? assignment.loads[r] / assignment.capacities[r] * 100 : 0);
+                route.put("totalDistance", assignment.distances[r]);
+                routes.add(route);
+            }
+            view.put("totalParcels", assignment.size());
+            view.put("assignedParcels", assignment.assignedCount());
+            view.put("unassignedParcels", assignment.size() - assignment.assignedCount());
+            view.put("repairs", assignment.repairs());
+            view.put("efficiency", totalCapacity > 0 ? totalLoad / totalCapacity * 100 : 0);
+            view.put("routes", routes);
+            return view;
+        });
+        status.put("ready", state != null);
+        if (state != null) {
+            status.putAll(state);
+        }
+        return status;
+    }
+
+    /**
+     * Current assignment of one parcel, or null when the parcel is not known
+     * or the state is not loaded yet.
+     *
+     * @throws TimeoutException when the worker does not answer within the read timeout
+     */
+    public Map<String, Object> getParcelAssignment(int parcelId) throws TimeoutException {
+        return read(() -> {
+            if (assignment == null || !assignment.contains(parcelId)) {
+                return null;
+            }
+            Map<String, Object> view = new LinkedHashMap<>();
+            int route = assignment.routeOf(parcelId);
+            view.put("parcelId", parcelId);
+            view.put("assigned", route != IncrementalAssignment.NONE);
+            if (route != IncrementalAssignment.NONE) {
+                view.put("routeId", assignment.routeIds[route]);
+                view.put("routeName", assignment.routeNames[route]);
+                view.put("distance", assignment.distanceOf(parcelId));
+                view.put("routeRemainingCapacity", assignment.remainingCapacity(route));
+            }
+            return view;
+        });
+    }
+
+    private void apply(ParcelChangeEvent event, long queuedAt) {
+        if (stale) {
+            // The pending rebalance reads this change from the database
+            if (!rebalanceQueued.get()) {
+                requestRebalance();
+            }
+            return;
+        }
+        if (assignment == null) {
+            // No routes yet; creating one triggers a rebalance
+            return;
+        }
+
+        long start = System.nanoTime();
+        OptimizerParcel after = event.getAfter();
+        switch (event.getType()) {
+            case DELETED:
+                assignment.remove(event.getParcelId());
+                break;
+            case UPDATED:
+                if (unchanged(event.getBefore(), after) && assignment.contains(event.getParcelId())) {
+                    break;
+                }
+                put(after);
+                break;
+            case CREATED:
+            default:
+                put(after);
+                break;
+        }
+
+        long end = System.nanoTime();
+        long elapsed = end - start;
+        lastApplyNanos = elapsed;
+        totalApplyNanos += elapsed;
+        if (elapsed > maxApplyNanos) {
+            maxApplyNanos = elapsed;
+        }
+        lastLagNanos = end - queuedAt;
+        deltasApplied.incrementAndGet();
+        deltasSinceRebalance.incrementAndGet();
+    }
+
+    private void put(OptimizerParcel parcel) {
+        if (parcel == null) {
+            return;
+        }
+        double[] latLon = new double[2];
+        int pincode = PincodeGeocoder.parsePincode(parcel.getDestinationPincode());
+        if (!pincodeGeocoder.locate(pincode, latLon)) {
+            latLon[0] = RouteOptimizerService.DEPOT_LAT;
+            latLon[1] = RouteOptimizerService.DEPOT_LON;
+        }
+        assignment.put(parcel.getParcelId(), parcel.getWeight(), pincode, latLon[0], latLon[1]);
+    }
+
+    // Only weight and destination matter to the assignment
+    private static boolean unchanged(OptimizerParcel before, OptimizerParcel after) {
+        return before != null && after != null && before.getWeight() == after.getWeight()
+            && Objects.equals(before.getDestinationPincode(), after.getDestinationPincode());
+    }
+
+    private void rebalance() {
+        rebalanceQueued.set(false);
+        stale = false;
+        long startTime = System.currentTimeMillis();
+        try {
+            OptimizationWorkingSet workingSet = routeOptimizerService.loadFloodFilledWorkingSet();
+            assignment = workingSet != null ? new IncrementalAssignment(workingSet) : null;
+            deltasSinceRebalance.set(0);
+            rebalances.incrementAndGet();
+            lastRebalanceAt = System.currentTimeMillis();
+            lastRebalanceMs = lastRebalanceAt - startTime;
+            logger.info("Incremental optimizer rebalanced {} parcels in {} ms",
+                assignment != null ? assignment.size() : 0, lastRebalanceMs);
+        } catch (Exception e) {
+            stale = true;
+            logger.error("Incremental optimizer rebalance failed", e);
+        }
+    }
+
+    private <T> T read(Callable<T> query) throws TimeoutException {
+        Future<T> future;
+        try {
+            future = worker.submit(query);
+        } catch (RejectedExecutionException e) {
+            throw new TimeoutException("Incremental optimizer queue is full");
+        }
+        try {
+            return future.get(readTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.routemasterapi.api.service;
+
+/**
+ * Optimization strategies exposed by {@link RouteOptimizerService}.
+ */
+public enum OptimizationAlgorithm {
+
+    FLOOD_FILL("flood-fill"),
+    CLUSTERING("clustering");
+
+    private final String code;
+
+    OptimizationAlgorithm(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Resolves the code used in request parameters, e.g. "flood-fill".
+     */
+    public static OptimizationAlgorithm fromCode(String code) {
+        for (OptimizationAlgorithm algorithm : values()) {
+            if (algorithm.code.equalsIgnoreCase(code) || algorithm.name().equalsIgnoreCase(code)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown optimization algorithm: " + code);
+    }
+}
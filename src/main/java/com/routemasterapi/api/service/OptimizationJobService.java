@@ -0,0 +1,240 @@
+package com.routemasterapi.api.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.routemasterapi.api.service.RouteOptimizerService.OptimizationResult;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs route optimizations in the background on a bounded executor so the
+ * request thread only submits and polls.
+ *
+ * Submissions for the same algorithm and the same data version while a run
+ * is still queued or running share that run instead of starting another one,
+ * and runs for unchanged data are answered from OptimizationResultCache.
+ */
+@Service
+public class OptimizationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimizationJobService.class);
+
+    public enum JobStatus { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    @Autowired
+    private OptimizationResultCache optimizationResultCache;
+
+    @Value("${routemaster.optimizer.jobs.threads:2}")
+    private int threads;
+
+    @Value("${routemaster.optimizer.jobs.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${routemaster.optimizer.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, OptimizationJob> jobs = new ConcurrentHashMap<>();
+
+    // Queued or running job per algorithm + data version, used for coalescing
+    private final Map<String, OptimizationJob> activeJobs = new ConcurrentHashMap<>();
+
+    public static class OptimizationJob {
+        private final String jobId;
+        private final OptimizationAlgorithm algorithm;
+        private final String snapshotKey;
+        private final long submittedAt;
+        private final OptimizationProgress progress = new OptimizationProgress();
+        private final AtomicInteger submissions = new AtomicInteger(1);
+        private volatile JobStatus status = JobStatus.QUEUED;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile OptimizationResult result;
+        private volatile String error;
+        private volatile Future<?> future;
+
+        OptimizationJob(OptimizationAlgorithm algorithm, String snapshotKey) {
+            this.jobId = UUID.randomUUID().toString();
+            this.algorithm = algorithm;
+            this.snapshotKey = snapshotKey;
+            this.submittedAt = System.currentTimeMillis();
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public JobStatus getStatus() {
+            return status;
+        }
+
+        public OptimizationResult getResult() {
+            return result;
+        }
+
+        boolean isFinished() {
+            return status == JobStatus.COMPLETED || status == JobStatus.FAILED || status == JobStatus.CANCELLED;
+        }
+
+        public Map<String, Object> describe() {
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("jobId", jobId);
+            view.put("algorithm", algorithm.getCode());
+            view.put("status", status);
+            view.put("phase", progress.getPhase());
+            view.put("processed", progress.getProcessed());
+            view.put("total", progress.getTotal());
+            view.put("percentComplete", progress.getPercentComplete());
+            view.put("submissions", submissions.get());
+            view.put("submittedAt", submittedAt);
+            view.put("startedAt", startedAt > 0 ? startedAt : null);
+            view.put("finishedAt", finishedAt > 0 ? finishedAt : null);
+            if (error != null) {
+                view.put("error", error);
+            }
+            return view;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "optimizer-job");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submits a run, or joins the queued/running one for the same data version.
+     *
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public OptimizationJob submit(OptimizationAlgorithm algorithm) {
+        purgeExpiredJobs();
+
+        String snapshotKey = algorithm.getCode() + "@" + optimizationResultCache.currentDataVersion();
+        boolean[] created = new boolean[1];
+        OptimizationJob job = activeJobs.compute(snapshotKey, (key, existing) -> {
+            if (existing != null && !existing.isFinished() && !existing.progress.isCancelled()) {
+                existing.submissions.incrementAndGet();
+                return existing;
+            }
+            created[0] = true;
+            return new OptimizationJob(algorithm, key);
+        });
+
+        if (created[0]) {
+            jobs.put(job.jobId, job);
+            try {
+                job.future = executor.submit(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.jobId);
+                activeJobs.remove(snapshotKey, job);
+                throw e;
+            }
+            logger.info("Queued optimization job {} ({})", job.jobId, snapshotKey);
+        } else {
+            logger.info("Coalesced submission into optimization job {} ({})", job.jobId, snapshotKey);
+        }
+        return job;
+    }
+
+    public OptimizationJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Cancels a job. A running optimization stops at its next progress update.
+     *
+     * @return the job, or null when it does not exist
+     */
+    public OptimizationJob cancel(String jobId) {
+        OptimizationJob job = jobs.get(jobId);
+        if (job == null || job.isFinished()) {
+            return job;
+        }
+        job.progress.cancel();
+        Future<?> future = job.future;
+        if (future != null && future.cancel(false)) {
+            // Never started: nothing else will finish it
+            finish(job, JobStatus.CANCELLED, null, "Cancelled before start");
+        }
+        return job;
+    }
+
+    public Map<String, Object> getExecutorStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("activeJobs", executor.getActiveCount());
+        stats.put("queuedJobs", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("trackedJobs", jobs.size());
+        return stats;
+    }
+
+    private void run(OptimizationJob job) {
+        if (job.progress.isCancelled()) {
+            finish(job, JobStatus.CANCELLED, null, "Cancelled before start");
+            return;
+        }
+        job.status = JobStatus.RUNNING;
+        job.startedAt = System.currentTimeMillis();
+        try {
+            OptimizationResult result = optimizationResultCache.optimize(job.algorithm, job.progress);
+            finish(job, JobStatus.COMPLETED, result, null);
+        } catch (CancellationException e) {
+            finish(job, JobStatus.CANCELLED, null, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Optimization job {} failed", job.jobId, e);
+            finish(job, JobStatus.FAILED, null, e.getMessage());
+        }
+    }
+
+    private void finish(OptimizationJob job, JobStatus status, OptimizationResult result, String error) {
+        job.result = result;
+        job.error = error;
+        job.finishedAt = System.currentTimeMillis();
+        job.status = status;
+        activeJobs.remove(job.snapshotKey, job);
+        logger.info("Optimization job {} finished: {}", job.jobId, status);
+    }
+
+    private void purgeExpiredJobs() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        Iterator<OptimizationJob> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            OptimizationJob job = it.next();
+            if (job.isFinished() && job.finishedAt < cutoff) {
+                it.remove();
+            }
+        }
+    }
+}
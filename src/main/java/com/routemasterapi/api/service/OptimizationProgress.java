@@ -0,0 +1,67 @@
+package com.routemasterapi.api.service;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Progress counters and cancellation flag of one optimization run.
+ *
+ * Written only by the thread running the optimization and read by status
+ * polls, so plain volatile fields are enough.
+ */
+public class OptimizationProgress {
+
+    private volatile String phase = "Queued";
+    private volatile long processed;
+    private volatile long total;
+    private volatile boolean cancelled;
+
+    void startPhase(String phase, long total) {
+        this.phase = phase;
+        this.total = total;
+        this.processed = 0;
+    }
+
+    void finish() {
+        this.phase = "Completed";
+        this.processed = total;
+    }
+
+    /**
+     * Counts one processed item and aborts the run if it was cancelled.
+     */
+    void advance() {
+        processed++;
+        checkCancelled();
+    }
+
+    void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Optimization cancelled during " + phase);
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getPercentComplete() {
+        long currentTotal = total;
+        return currentTotal > 0 ? Math.min(100.0, (processed * 100.0) / currentTotal) : 0;
+    }
+}
@@ -0,0 +1,282 @@
+package com.routemasterapi.api.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.routemasterapi.api.event.ParcelChangeEvent;
+import com.routemasterapi.api.event.ParcelsImportedEvent;
+import com.routemasterapi.api.event.RouteChangeEvent;
+import com.routemasterapi.api.model.OptimizerParcel;
+import com.routemasterapi.api.service.RouteOptimizerService.OptimizationResult;
+
+/**
+ * Serves optimization results and stats for unchanged data from memory.
+ *
+ * Entries are keyed by algorithm, optimizer parameters and a data version
+ * that every parcel or route write through ParcelService / RouterService
+ * bumps, so a write makes all earlier entries unreachable (they are dropped
+ * right away). Memory is bounded by the estimated size of the cached
+ * results, evicting the least recently used first. Concurrent misses for the
+ * same key share one computation.
+ *
+ * Writes that bypass the services are only picked up after max-age-ms.
+ */
+@Service
+public class OptimizationResultCache {
+
+    // Rough per-object costs used by the size estimate
+    private static final long RESULT_OVERHEAD_BYTES = 1024;
+    private static final long ROUTE_BYTES = 512;
+    private static final long PARCEL_BYTES = 128;
+    private static final long STOP_BYTES = 24;
+    private static final long STATS_BYTES = 1024;
+
+    @Autowired
+    private RouteOptimizerService routeOptimizerService;
+
+    @Value("${routemaster.optimizer.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${routemaster.optimizer.cache.max-age-ms:600000}")
+    private long maxAgeMs;
+
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private static final class Entry {
+        final Object value;
+        final long bytes;
+        final long version;
+        final long createdAt;
+
+        Entry(Object value, long bytes, long version) {
+            this.value = value;
+            this.bytes = bytes;
+            this.version = version;
+            this.createdAt = System.currentTimeMillis();
+        }
+    }
+
+    @EventListener
+    public void onParcelChange(ParcelChangeEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onParcelsImported(ParcelsImportedEvent event) {
+        invalidate();
+    }
+
+    @EventListener
+    public void onRouteChange(RouteChangeEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Version of the optimizer input data; changes on every parcel or route write.
+     */
+    public long currentDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Result of the algorithm for the current data, computed on a miss.
+     */
+    public OptimizationResult optimize(OptimizationAlgorithm algorithm) {
+        return optimize(algorithm, new OptimizationProgress());
+    }
+
+    /**
+     * Same as {@link #optimize(OptimizationAlgorithm)}, reporting progress of
+     * the computation (a hit finishes the progress right away).
+     */
+    public OptimizationResult optimize(OptimizationAlgorithm algorithm, OptimizationProgress progress) {
+        String key = algorithm.getCode() + "|" + routeOptimizerService.parameterKey(algorithm);
+        OptimizationResult result = (OptimizationResult) lookup(key,
+            () -> routeOptimizerService.optimize(algorithm, progress), OptimizationResultCache::resultBytes);
+        progress.finish();
+        return result;
+    }
+
+    /**
+     * Optimizer stats for the current data, computed on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getOptimizationStats() {
+        return (Map<String, Object>) lookup("stats", routeOptimizerService::getOptimizationStats,
+            stats -> STATS_BYTES);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        stats.put("dataVersion", dataVersion.get());
+        synchronized (this) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", maxBytes);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0);
+        stats.put("coalesced", coalesced.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    private Object lookup(String baseKey, Supplier<Object> compute, ToLongFunction<Object> sizer) {
+        while (true) {
+            long version = dataVersion.get();
+            String key = baseKey + "@" + version;
+
+            synchronized (this) {
+                Entry entry = entries.get(key);
+                if (entry != null && System.currentTimeMillis() - entry.createdAt <= maxAgeMs) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                if (entry != null) {
+                    remove(key);
+                }
+            }
+
+            CompletableFuture<Object> mine = new CompletableFuture<>();
+            CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                // Someone is computing the same key: wait for it rather than duplicating the work
+                coalesced.incrementAndGet();
+                try {
+                    return join(running);
+                } catch (CancellationException e) {
+                    // That caller cancelled its run; ours still wants a result
+                    continue;
+                }
+            }
+
+            misses.incrementAndGet();
+            try {
+                Object value = compute.get();
+                if (cacheable(value)) {
+                    store(key, new Entry(value, sizer.applyAsLong(value), version));
+                }
+                mine.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    private synchronized void store(String key, Entry entry) {
+        if (entry.version != dataVersion.get() || entry.bytes > maxBytes) {
+            // Data changed while computing, or too big to ever fit
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            totalBytes -= previous.bytes;
+        }
+        totalBytes += entry.bytes;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            totalBytes -= eldest.getValue().bytes;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private synchronized void invalidate() {
+        long version = dataVersion.incrementAndGet();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.version < version) {
+                totalBytes -= entry.bytes;
+                it.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.bytes;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for optimization result", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Failed runs report their error in the result or stats instead of throwing
+    private static boolean cacheable(Object value) {
+        if (value instanceof OptimizationResult) {
+            String status = ((OptimizationResult) value).status;
+            return status != null && status.startsWith("✅");
+        }
+        if (value instanceof Map) {
+            return !((Map<?, ?>) value).containsKey("error");
+        }
+        return value != null;
+    }
+
+    private static long resultBytes(Object value) {
+        OptimizationResult result = (OptimizationResult) value;
+        long bytes = RESULT_OVERHEAD_BYTES + (long) result.routeLoads.size() * ROUTE_BYTES;
+        for (List<OptimizerParcel> parcels : result.routeAssignments.values()) {
+            bytes += (long) parcels.size() * PARCEL_BYTES;
+        }
+        for (List<Integer> stops : result.routeStopSequences.values()) {
+            bytes += (long) stops.size() * STOP_BYTES;
+        }
+        return bytes;
+    }
+}
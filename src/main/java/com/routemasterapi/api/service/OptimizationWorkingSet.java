@@ -0,0 +1,239 @@
+package com.routemasterapi.api.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.routemasterapi.api.entity.RouterEntity;
+import com.routemasterapi.api.model.OptimizerParcel;
+
+/**
+ * Struct-of-arrays state of one optimization run.
+ *
+ * Parcels and routes are addressed by dense int indices into parallel
+ * primitive arrays, and assignments are int route indices per parcel, so the
+ * assignment loops run without per-parcel allocation. The source
+ * {@link OptimizerParcel} rows are only touched again when the run is mapped
+ * back to an OptimizationResult.
+ *
+ * Depot-to-parcel distances come from the shared {@link PincodeDistanceMatrix}
+ * when one is attached and both pincodes are in it.
+ *
+ * Not thread-safe: one instance belongs to one optimization run.
+ */
+final class OptimizationWorkingSet {
+
+    static final int UNASSIGNED = -1;
+
+    // Parcels, indexed 0..parcelCount-1
+    final int parcelCount;
+    final OptimizerParcel[] parcels;
+    final int[] parcelIds;
+    final double[] weights;
+    final double[] parcelLatitudes;
+    final double[] parcelLongitudes;
+    final int[] parcelPincodes;
+    final int[] parcelMatrixIndex;
+    final int[] assignedRoute;
+    final double[] assignedDistance;
+
+    // Routes, indexed 0..routeCount-1
+    final int routeCount;
+    final int[] routeIds;
+    final String[] routeNames;
+    final double[] routeLatitudes;
+    final double[] routeLongitudes;
+    final int[] routePincodes;
+    final int[] routeMatrixIndex;
+    final double[] capacities;
+    final double[] loads;
+    final double[] distances;
+    final int[] routeParcelCounts;
+
+    private PincodeDistanceMatrix.Snapshot distanceMatrix;
+
+    private OptimizationWorkingSet(int parcelCount, int routeCount) {
+        this.parcelCount = parcelCount;
+        this.parcels = new OptimizerParcel[parcelCount];
+        this.parcelIds = new int[parcelCount];
+        this.weights = new double[parcelCount];
+        this.parcelLatitudes = new double[parcelCount];
+        this.parcelLongitudes = new double[parcelCount];
+        this.parcelPincodes = new int[parcelCount];
+        this.parcelMatrixIndex = new int[parcelCount];
+        this.assignedRoute = new int[parcelCount];
+        this.assignedDistance = new double[parcelCount];
+        Arrays.fill(assignedRoute, UNASSIGNED);
+        Arrays.fill(parcelMatrixIndex, -1);
+
+        this.routeCount = routeCount;
+        this.routeIds = new int[routeCount];
+        this.routeNames = new String[routeCount];
+        this.routeLatitudes = new double[routeCount];
+        this.routeLongitudes = new double[routeCount];
+        this.routePincodes = new int[routeCount];
+        this.routeMatrixIndex = new int[routeCount];
+        this.capacities = new double[routeCount];
+        this.loads = new double[routeCount];
+        this.distances = new double[routeCount];
+        this.routeParcelCounts = new int[routeCount];
+        Arrays.fill(routeMatrixIndex, -1);
+    }
+
+    /**
+     * Builds the working set, geocoding parcels by destination pincode and
+     * route depots by route pincode. Unknown pincodes fall back to the given
+     * default location; routes without a positive total distance get the
+     * default capacity.
+     */
+    static OptimizationWorkingSet of(List<OptimizerParcel> parcels, List<RouterEntity> routes,
+            PincodeGeocoder geocoder, double defaultLatitude, double defaultLongitude, double defaultCapacity) {
+        OptimizationWorkingSet set = new OptimizationWorkingSet(parcels.size(), routes.size());
+        double[] latLon = new double[2];
+
+        for (int p = 0; p < set.parcelCount; p++) {
+            OptimizerParcel parcel = parcels.get(p);
+            set.parcels[p] = parcel;
+            set.parcelIds[p] = parcel.getParcelId();
+            set.weights[p] = parcel.getWeight();
+            set.parcelPincodes[p] = PincodeGeocoder.parsePincode(parcel.getDestinationPincode());
+            if (!geocoder.locate(set.parcelPincodes[p], latLon)) {
+                latLon[0] = defaultLatitude;
+                latLon[1] = defaultLongitude;
+            }
+            set.parcelLatitudes[p] = latLon[0];
+            set.parcelLongitudes[p] = latLon[1];
+        }
+
+        for (int r = 0; r < set.routeCount; r++) {
+            RouterEntity route = routes.get(r);
+            set.routeIds[r] = route.getRouteId();
+            set.routeNames[r] = route.getName() != null ? route.getName() : "Route-" + route.getRouteId();
+            set.capacities[r] = route.getTotalDistance() > 0 ? route.getTotalDistance() : defaultCapacity;
+            set.routePincodes[r] = PincodeGeocoder.parsePincode(route.getPincode());
+            if (!geocoder.locate(set.routePincodes[r], latLon)) {
+                latLon[0] = defaultLatitude;
+                latLon[1] = defaultLongitude;
+            }
+            set.routeLatitudes[r] = latLon[0];
+            set.routeLongitudes[r] = latLon[1];
+        }
+        return set;
+    }
+
+    /**
+     * Resolves matrix indices for all parcels and routes. A null snapshot
+     * leaves every distance to be computed directly.
+     */
+    void attachDistanceMatrix(PincodeDistanceMatrix.Snapshot matrix) {
+        this.distanceMatrix = matrix;
+        if (matrix == null) {
+            return;
+        }
+        for (int p = 0; p < parcelCount; p++) {
+            parcelMatrixIndex[p] = parcelPincodes[p] >= 0 ? matrix.indexOf(parcelPincodes[p]) : -1;
+        }
+        for (int r = 0; r < routeCount; r++) {
+            routeMatrixIndex[r] = routePincodes[r] >= 0 ? matrix.indexOf(routePincodes[r]) : -1;
+        }
+    }
+
+    PincodeDistanceMatrix.Snapshot distanceMatrix() {
+        return distanceMatrix;
+    }
+
+    /**
+     * Distance in km from a route depot to a parcel.
+     */
+    double depotDistance(int route, int parcel) {
+        int routeIndex = routeMatrixIndex[route];
+        int parcelIndex = parcelMatrixIndex[parcel];
+        if (routeIndex >= 0 && parcelIndex >= 0) {
+            return distanceMatrix.distance(routeIndex, parcelIndex);
+        }
+        return RouteOptimizerService.haversine(routeLatitudes[route], routeLongitudes[route],
+            parcelLatitudes[parcel], parcelLongitudes[parcel]);
+    }
+
+    double remainingCapacity(int route) {
+        return capacities[route] - loads[route];
+    }
+
+    double[] remainingCapacities() {
+        double[] remaining = new double[routeCount];
+        for (int r = 0; r < routeCount; r++) {
+            remaining[r] = remainingCapacity(r);
+        }
+        return remaining;
+    }
+
+    void assign(int parcel, int route, double distance) {
+        assignedRoute[parcel] = route;
+        assignedDistance[parcel] = distance;
+        loads[route] += weights[parcel];
+        distances[route] += distance;
+        routeParcelCounts[route]++;
+    }
+
+    double totalCapacity() {
+        double total = 0;
+        for (int r = 0; r < routeCount; r++) {
+            total += capacities[r];
+        }
+        return total;
+    }
+
+    double totalLoad() {
+        double total = 0;
+        for (int r = 0; r < routeCount; r++) {
+            total += loads[r];
+        }
+        return total;
+    }
+
+    /**
+     * Parcel indices ordered by weight, heaviest first. Stable, so equal
+     * weights keep their load order.
+     */
+    int[] parcelsByWeightDescending() {
+        int[] order = new int[parcelCount];
+        for (int p = 0; p < parcelCount; p++) {
+            order[p] = p;
+        }
+        mergeSortDescending(order, new int[parcelCount], 0, parcelCount, weights);
+        return order;
+    }
+
+    private static void mergeSortDescending(int[] order, int[] scratch, int lo, int hi, double[] key) {
+        if (hi - lo < 2) {
+            return;
+        }
+        if (hi - lo <= 16) {
+            for (int i = lo + 1; i < hi; i++) {
+                int value = order[i];
+                int j = i - 1;
+                while (j >= lo && key[order[j]] < key[value]) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        mergeSortDescending(order, scratch, lo, mid, key);
+        mergeSortDescending(order, scratch, mid, hi, key);
+        if (key[order[mid - 1]] >= key[order[mid]]) {
+            return;
+        }
+        System.arraycopy(order, lo, scratch, lo, hi - lo);
+        int left = lo;
+        int right = mid;
+        for (int out = lo; out < hi; out++) {
+            if (right >= hi || (left < mid && key[scratch[left]] >= key[scratch[right]])) {
+                order[out] = scratch[left++];
+            } else {
+                order[out] = scratch[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.routemasterapi.api.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.routemasterapi.api.entity.ParcelEntity;
+import com.routemasterapi.api.entity.RouterEntity;
+import com.routemasterapi.api.repositories.ParcelRepository;
+import com.routemasterapi.api.repositories.RouterRepository;
+
+/**
+ * Optimizer diagnostics built from one aggregate query and one single-row
+ * sample per table, so the cost does not grow with the table size.
+ *
+ * When the snapshot is enabled the diagnostics are recomputed in the
+ * background every refresh-interval-ms and requests are answered from the
+ * last snapshot; {@code fresh} forces a recomputation.
+ */
+@Service
+public class OptimizerDiagnosticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimizerDiagnosticsService.class);
+
+    @Autowired
+    private ParcelRepository parcelRepository;
+
+    @Autowired
+    private RouterRepository routerRepository;
+
+    @Value("${routemaster.optimizer.diagnostics.snapshot-enabled:true}")
+    private boolean snapshotEnabled;
+
+    private volatile Map<String, Object> snapshot;
+    private volatile long snapshotTakenAt;
+
+    public Map<String, Object> getDiagnostics(boolean fresh) {
+        Map<String, Object> current = snapshot;
+        long takenAt = snapshotTakenAt;
+        if (fresh || !snapshotEnabled || current == null) {
+            takenAt = System.currentTimeMillis();
+            current = computeDiagnostics();
+            if (snapshotEnabled) {
+                snapshot = current;
+                snapshotTakenAt = takenAt;
+            }
+        }
+
+        Map<String, Object> diagnostics = new HashMap<>(current);
+        diagnostics.put("generatedAt", takenAt);
+        diagnostics.put("snapshotAgeMs", System.currentTimeMillis() - takenAt);
+        return diagnostics;
+    }
+
+    @Scheduled(fixedDelayString = "${routemaster.optimizer.diagnostics.refresh-interval-ms:30000}")
+    public void refreshSnapshot() {
+        if (!snapshotEnabled) {
+            return;
+        }
+        long takenAt = System.currentTimeMillis();
+        Map<String, Object> diagnostics = computeDiagnostics();
+        snapshot = diagnostics;
+        snapshotTakenAt = takenAt;
+        logger.debug("Refreshed optimizer diagnostics in {} ms", System.currentTimeMillis() - takenAt);
+    }
+
+    private Map<String, Object> computeDiagnostics() {
+        Map<String, Object> diagnostics = new HashMap<>();
+        long parcelCount = -1;
+        long routerCount = -1;
+
+        Map<String, Object> parcelDiag = new HashMap<>();
+        try {
+            long[] counts = counts(parcelRepository.countParcelsAndZeroWeights());
+            parcelCount = counts[0];
+
+            parcelDiag.put("status", "✅ Connected");
+            parcelDiag.put("totalCount", parcelCount);
+
+            Optional<ParcelEntity> sample = parcelRepository.findTopByOrderByParcelIdAsc();
+            if (parcelCount == 0 || !sample.isPresent()) {
+                parcelDiag.put("warning", "⚠️ No parcels found in database");
+            } else {
+                ParcelEntity firstParcel = sample.get();
+                Map<String, Object> firstParcelData = new HashMap<>();
+                firstParcelData.put("parcelId", firstParcel.getParcelId());
+                firstParcelData.put("tracking_number", firstParcel.getTrackingNumber());
+                firstParcelData.put("weight", firstParcel.getWeight());
+                firstParcelData.put("destinationAddress", firstParcel.getDestinationAddress());
+                firstParcelData.put("destinationPincode", firstParcel.getDestinationPincode());
+
+                parcelDiag.put("firstParcelSample", firstParcelData);
+                parcelDiag.put("zeroOrNullWeights", counts[1]);
+                parcelDiag.put("validParcels", parcelCount - counts[1]);
+            }
+        } catch (Exception e) {
+            parcelDiag.put("status", "❌ Error");
+            parcelDiag.put("error", e.getMessage());
+            logger.error("Error reading parcel table", e);
+        }
+        diagnostics.put("parcelTable", parcelDiag);
+
+        Map<String, Object> routerDiag = new HashMap<>();
+        try {
+            long[] counts = counts(routerRepository.countRoutesAndZeroDistances());
+            routerCount = counts[0];
+
+            routerDiag.put("status", "✅ Connected");
+            routerDiag.put("totalCount", routerCount);
+
+            Optional<RouterEntity> sample = routerRepository.findTopByOrderByRouteIdAsc();
+            if (routerCount == 0 || !sample.isPresent()) {
+                routerDiag.put("warning", "⚠️ No routes found in database");
+            } else {
+                RouterEntity firstRouter = sample.get();
+                Map<String, Object> firstRouterData = new HashMap<>();
+                firstRouterData.put("routeId", firstRouter.getRouteId());
+                firstRouterData.put("name", firstRouter.getName());
+                firstRouterData.put("description", firstRouter.getDescription());
+                firstRouterData.put("pincode", firstRouter.getPincode());
+                firstRouterData.put("totalDistance", firstRouter.getTotalDistance());
+
+                routerDiag.put("firstRouterSample", firstRouterData);
+                routerDiag.put("zeroOrNullDistance", counts[1]);
+                routerDiag.put("validRoutes", routerCount - counts[1]);
+            }
+        } catch (Exception e) {
+            routerDiag.put("status", "❌ Error");
+            routerDiag.put("error", e.getMessage());
+            logger.error("Error reading router table", e);
+        }
+        diagnostics.put("routerTable", routerDiag);
+
+        // Both counts come from the queries above; no further round trips
+        Map<String, Object> connectionDiag = new HashMap<>();
+        if (parcelCount >= 0 && routerCount >= 0) {
+            connectionDiag.put("status", "✅ Database Connected");
+            connectionDiag.put("totalParcels", parcelCount);
+            connectionDiag.put("totalRouters", routerCount);
+            connectionDiag.put("canOptimize", parcelCount > 0 && routerCount > 0);
+        } else {
+            connectionDiag.put("status", "❌ Database Connection Failed");
+        }
+        diagnostics.put("databaseConnection", connectionDiag);
+
+        diagnostics.put("overallStatus", "✅ Diagnostic complete");
+        return diagnostics;
+    }
+
+    // Single row of (count, zero count) from the aggregate queries
+    private static long[] counts(List<Object[]> rows) {
+        if (rows == null || rows.isEmpty() || rows.get(0) == null) {
+            return new long[] { 0, 0 };
+        }
+        Object[] row = rows.get(0);
+        return new long[] { ((Number) row[0]).longValue(), ((Number) row[1]).longValue() };
+    }
+}
@@ -0,0 +1,245 @@
+package com.routemasterapi.api.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Export of ayush_parcel as NDJSON or CSV, written row by row from a
+ * forward-only MySQL cursor to the given stream.
+ *
+ * With fetch size Integer.MIN_VALUE Connector/J streams the result set
+ * instead of loading it, so memory stays flat whatever the table size, and
+ * a slow client simply slows the read down (the driver raises
+ * net_write_timeout for streaming results). The connection is held for the
+ * whole export, so at most max-concurrent exports run at once.
+ *
+ * Column names are the ones ParcelImportService accepts, so an export can be
+ * imported again.
+ */
+@Service
+public class ParcelExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParcelExportService.class);
+
+    private static final String SELECT_SQL = "SELECT parcelid, tracking_number, weight, sender_name, receiver_name, "
+        + "destination_address, destination_pincode, parcel_status, created_date, total_payment, description, "
+        + "customerid, routeid FROM ayush_parcel";
+
+    private static final List<String> COLUMNS = List.of("parcelId", "trackingNumber", "weight", "senderName",
+        "receiverName", "destinationAddress", "destinationPincode", "parcelStatus", "createdDate", "totalPayment",
+        "description", "customerId", "routeId");
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${routemaster.parcels.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Writes the parcels matching the filters (all optional, createdDate in
+     * [from, to]) ordered by parcel id, and returns the number of rows.
+     * The stream is flushed but not closed.
+     *
+     * @throws RejectedExecutionException when max-concurrent exports are already running;
+     *         nothing has been written then
+     */
+    public long export(OutputStream out, Format format, String status, Integer customerId,
+            LocalDate from, LocalDate to) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many parcel exports running");
+        }
+        try {
+            return run(out, format, status, customerId, from, to);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private long run(OutputStream out, Format format, String status, Integer customerId,
+            LocalDate from, LocalDate to) throws IOException {
+        long startTime = System.currentTimeMillis();
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (status != null) {
+            conditions.add("parcel_status = ?");
+            args.add(status);
+        }
+        if (customerId != null) {
+            conditions.add("customerid = ?");
+            args.add(customerId);
+        }
+        if (from != null) {
+            conditions.add("created_date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            conditions.add("created_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY parcelid");
+
+        RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        long[] rows = new long[1];
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(Integer.MIN_VALUE);
+                for (int i = 0; i < args.size(); i++) {
+                    ps.setObject(i + 1, args.get(i));
+                }
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away: the cursor is closed by JdbcTemplate
+            throw e.getCause();
+        }
+        writer.finish();
+        logger.info("Exported {} parcels as {} in {} ms", rows[0], format, System.currentTimeMillis() - startTime);
+        return rows[0];
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator json;
+
+        NdjsonWriter(OutputStream out) throws IOException {
+            json = objectMapper.getFactory().createGenerator(out);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are ended explicitly instead of Jackson's space between root values
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("parcelId", rs.getInt(1));
+            json.writeStringField("trackingNumber", rs.getString(2));
+            json.writeNumberField("weight", rs.getDouble(3));
+            json.writeStringField("senderName", rs.getString(4));
+            json.writeStringField("receiverName", rs.getString(5));
+            json.writeStringField("destinationAddress", rs.getString(6));
+            json.writeStringField("destinationPincode", rs.getString(7));
+            json.writeStringField("parcelStatus", rs.getString(8));
+            Date createdDate = rs.getDate(9);
+            json.writeStringField("createdDate", createdDate != null ? createdDate.toString() : null);
+            json.writeNumberField("totalPayment", rs.getDouble(10));
+            json.writeStringField("description", rs.getString(11));
+            writeNullableInt("customerId", rs, 12);
+            writeNullableInt("routeId", rs, 13);
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        private void writeNullableInt(String name, ResultSet rs, int index) throws SQLException, IOException {
+            int value = rs.getInt(index);
+            if (rs.wasNull()) {
+                json.writeNullField(name);
+            } else {
+                json.writeNumberField(name, value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer csv;
+
+        CsvWriter(OutputStream out) throws IOException {
+            csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+            csv.write(String.join(",", COLUMNS));
+            csv.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= COLUMNS.size(); i++) {
+                if (i > 1) {
+                    csv.write(',');
+                }
+                String value = rs.getString(i);
+                if (value != null) {
+                    csv.write(escape(value));
+                }
+            }
+            csv.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            csv.flush();
+        }
+
+        // Quotes fields containing a separator, quote or line break; "" inside quotes
+        private static String escape(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return '"' + value.replace("\"", "\"\"") + '"';
+                }
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.routemasterapi.api.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.routemasterapi.api.event.ParcelsImportedEvent;
+import com.routemasterapi.api.model.OptimizerParcel;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bulk parcel import from a CSV or NDJSON stream, read line by line so the
+ * upload is never held in memory.
+ *
+ * Rows are checked against ReferenceIdCache (customer and route ids) and
+ * inserted in JDBC batches of batch-size rows, one transaction per batch.
+ * Parcel ids stay IDENTITY: with rewriteBatchedStatements the driver sends a
+ * batch as multi-row INSERTs and returns the generated keys, so the batching
+ * Hibernate gives up on for IDENTITY is done here with plain JDBC. A batch
+ * rejected by a constraint is retried row by row to report the bad rows.
+ *
+ * Each committed batch is announced with one ParcelsImportedEvent. Rows that
+ * failed are reported with their line number, up to max-errors of them.
+ */
+@Service
+public class ParcelImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParcelImportService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO ayush_parcel (tracking_number, weight, sender_name, "
+        + "receiver_name, destination_address, destination_pincode, parcel_status, created_date, total_payment, "
+        + "description, customerid, routeid) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Column names accepted in the CSV header and as NDJSON keys (case-insensitive)
+    private static final List<String> COLUMNS = List.of("trackingNumber", "weight", "senderName", "receiverName",
+        "destinationAddress", "destinationPincode", "parcelStatus", "createdDate", "totalPayment", "description",
+        "customerId", "routeId");
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReferenceIdCache referenceIdCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${routemaster.parcels.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${routemaster.parcels.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${routemaster.parcels.import.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private TransactionTemplate transactionTemplate;
+    private Semaphore permits;
+
+    private static final class ImportRow {
+        long line;
+        String trackingNumber;
+        double weight;
+        String senderName;
+        String receiverName;
+        String destinationAddress;
+        String destinationPincode;
+        String parcelStatus;
+        LocalDate createdDate;
+        double totalPayment;
+        String description;
+        int customerId;
+        int routeId;
+    }
+
+    // Counts and the capped error list of one import
+    private final class Report {
+        final Format format;
+        long rows;
+        long imported;
+        long failed;
+        final List<Map<String, Object>> errors = new ArrayList<>();
+        final Set<Integer> missingCustomers = new HashSet<>();
+        final Set<Integer> missingRoutes = new HashSet<>();
+
+        Report(Format format) {
+            this.format = format;
+        }
+
+        void fail(long line, String error) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("line", line);
+                entry.put("error", error);
+                errors.add(entry);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Imports every valid row of the stream.
+     *
+     * @throws IllegalArgumentException when the CSV header is missing or lacks customerId/routeId
+     * @throws RejectedExecutionException when max-concurrent imports are already running
+     */
+    public Map<String, Object> importParcels(InputStream input, Format format) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many parcel imports running");
+        }
+        try {
+            return run(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024), format);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Map<String, Object> run(BufferedReader reader, Format format) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Report report = new Report(format);
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        String aborted = null;
+        long line = 0;
+
+        int[] columnIndexes = null;
+        List<String> ignoredColumns = new ArrayList<>();
+        if (format == Format.CSV) {
+            String header = reader.readLine();
+            line++;
+            if (header == null) {
+                throw new IllegalArgumentException("Missing CSV header");
+            }
+            columnIndexes = mapHeader(parseCsvLine(stripBom(header)), ignoredColumns);
+        }
+
+        try {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.rows++;
+                try {
+                    Map<String, String> values = format == Format.CSV
+                        ? csvValues(parseCsvLine(text), columnIndexes)
+                        : jsonValues(objectMapper.readTree(line == 1 ? stripBom(text) : text));
+                    ImportRow row = toRow(values, line);
+                    String error = validate(row, report);
+                    if (error != null) {
+                        report.fail(line, error);
+                        continue;
+                    }
+                    batch.add(row);
+                } catch (IllegalArgumentException | IOException e) {
+                    report.fail(line, e.getMessage());
+                    continue;
+                }
+                if (batch.size() >= batchSize) {
+                    write(batch, report, false);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Upload cut off: what was committed so far stays
+            aborted = "Upload interrupted at line " + line + ": " + e.getMessage();
+        } catch (RuntimeException e) {
+            aborted = "Import stopped at line " + line + ": " + e.getMessage();
+            logger.error("Parcel import stopped at line {}", line, e);
+        }
+        if (aborted == null) {
+            try {
+                write(batch, report, true);
+            } catch (RuntimeException e) {
+                aborted = "Import stopped at line " + line + ": " + e.getMessage();
+                logger.error("Parcel import stopped at line {}", line, e);
+            }
+        }
+        // An aborted import publishes no closing event: batches already committed left the
+        // optimizer stale, and its scheduled rebalance picks them up
+
+        long millis = System.currentTimeMillis() - startTime;
+        logger.info("Imported {} of {} parcels ({} failed) in {} ms", report.imported, report.rows, report.failed, millis);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", aborted != null ? "❌ Import stopped" : report.failed == 0 ? "✅ Imported" : "⚠️ Imported with errors");
+        response.put("format", format.name());
+        response.put("rows", report.rows);
+        response.put("imported", report.imported);
+        response.put("failed", report.failed);
+        response.put("millis", millis);
+        if (!ignoredColumns.isEmpty()) {
+            response.put("ignoredColumns", ignoredColumns);
+        }
+        if (aborted != null) {
+            response.put("error", aborted);
+        }
+        response.put("errors", report.errors);
+        response.put("errorsTruncated", report.failed > report.errors.size());
+        return response;
+    }
+
+    private String validate(ImportRow row, Report report) {
+        if (report.missingCustomers.contains(row.customerId)) {
+            return "No customer with this id";
+        }
+        if (!referenceIdCache.customerExists(row.customerId)) {
+            report.missingCustomers.add(row.customerId);
+            return "No customer with this id";
+        }
+        if (report.missingRoutes.contains(row.routeId)) {
+            return "No route with this id";
+        }
+        if (!referenceIdCache.routeExists(row.routeId)) {
+            report.missingRoutes.add(row.routeId);
+            return "No route with this id";
+        }
+        return null;
+    }
+
+    // Inserts the batch and announces what was committed; last marks the end of the import
+    private void write(List<ImportRow> batch, Report report, boolean last) {
+        List<Integer> ids = new ArrayList<>(batch.size());
+        List<ImportRow> written = new ArrayList<>(batch.size());
+        if (!batch.isEmpty()) {
+            try {
+                ids.addAll(insertBatch(batch));
+                written.addAll(batch);
+            } catch (DataIntegrityViolationException | IncorrectResultSizeDataAccessException e) {
+                // A customer or route vanished after it was checked, or the ids could not be
+                // matched to the rows: the batch was rolled back, write it row by row
+                logger.warn("Parcel import batch failed ({}), writing {} rows one by one", e.getMessage(), batch.size());
+                for (ImportRow row : batch) {
+                    try {
+                        ids.add(insertOne(row));
+                        written.add(row);
+                    } catch (DataIntegrityViolationException rowError) {
+                        report.fail(row.line, rowError.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+        report.imported += written.size();
+
+        List<OptimizerParcel> parcels = new ArrayList<>(written.size());
+        List<Integer> customerIds = new ArrayList<>(written.size());
+        List<String> parcelStatuses = new ArrayList<>(written.size());
+        double totalPayment = 0;
+        for (int i = 0; i < written.size(); i++) {
+            ImportRow row = written.get(i);
+            parcels.add(new OptimizerParcel(ids.get(i), row.weight, row.destinationPincode, row.routeId));
+            customerIds.add(row.customerId);
+            parcelStatuses.add(row.parcelStatus);
+            totalPayment += row.totalPayment;
+        }
+        // The closing event is only needed when something was imported
+        if (!parcels.isEmpty() || (last && report.imported > 0)) {
+            eventPublisher.publishEvent(new ParcelsImportedEvent(this, parcels, customerIds, parcelStatuses,
+                totalPayment, last));
+        }
+    }
+
+    // One multi-row insert in its own transaction; the generated keys come back in row order
+    private List<Integer> insertBatch(List<ImportRow> batch) {
+        return transactionTemplate.execute(tx -> jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (ImportRow row : batch) {
+                    bind(ps, row);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Integer> ids = new ArrayList<>(batch.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getInt(1));
+                    }
+                }
+                if (ids.size() != batch.size()) {
+                    // Rolls the batch back; every written row needs its id for the event
+                    throw new IncorrectResultSizeDataAccessException("Expected " + batch.size()
+                        + " generated parcel ids, got " + ids.size(), batch.size(), ids.size());
+                }
+                return ids;
+            }
+        }));
+    }
+
+    private int insertOne(ImportRow row) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            bind(ps, row);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().intValue();
+    }
+
+    private static void bind(PreparedStatement ps, ImportRow row) throws SQLException {
+        setString(ps, 1, row.trackingNumber);
+        ps.setDouble(2, row.weight);
+        setString(ps, 3, row.senderName);
+        setString(ps, 4, row.receiverName);
+        setString(ps, 5, row.destinationAddress);
+        setString(ps, 6, row.destinationPincode);
+        setString(ps, 7, row.parcelStatus);
+        if (row.createdDate != null) {
+            ps.setDate(8, Date.valueOf(row.createdDate));
+        } else {
+            ps.setNull(8, Types.DATE);
+        }
+        ps.setDouble(9, row.totalPayment);
+        setString(ps, 10, row.description);
+        ps.setInt(11, row.customerId);
+        ps.setInt(12, row.routeId);
+    }
+
+    private static void setString(PreparedStatement ps, int index, String value) throws SQLException {
+        if (value != null) {
+            ps.setString(index, value);
+        } else {
+            ps.setNull(index, Types.VARCHAR);
+        }
+    }
+
+    private static ImportRow toRow(Map<String, String> values, long line) {
+        ImportRow row = new ImportRow();
+        row.line = line;
+        row.trackingNumber = values.get("trackingnumber");
+        row.weight = parseDouble(values.get("weight"), "weight");
+        row.senderName = values.get("sendername");
+        row.receiverName = values.get("receivername");
+        row.destinationAddress = values.get("destinationaddress");
+        row.destinationPincode = values.get("destinationpincode");
+        row.parcelStatus = values.get("parcelstatus");
+        row.createdDate = ParcelService.parseCreatedDate(values.get("createddate"));
+        row.totalPayment = parseDouble(values.get("totalpayment"), "totalPayment");
+        row.description = values.get("description");
+        row.customerId = parseId(values.get("customerid"), "customerId");
+        row.routeId = parseId(values.get("routeid"), "routeId");
+        return row;
+    }
+
+    private static double parseDouble(String value, String column) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static int parseId(String value, String column) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + column);
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    // Position of each known column in the header, -1 when absent
+    private static int[] mapHeader(List<String> header, List<String> ignoredColumns) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            if (COLUMNS.stream().anyMatch(column -> column.equalsIgnoreCase(name))) {
+                positions.put(name.toLowerCase(Locale.ROOT), i);
+            } else if (!name.isEmpty()) {
+                ignoredColumns.add(name);
+            }
+        }
+        if (!positions.containsKey("customerid") || !positions.containsKey("routeid")) {
+            throw new IllegalArgumentException("CSV header must contain customerId and routeId");
+        }
+        int[] indexes = new int[COLUMNS.size()];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            indexes[i] = positions.getOrDefault(COLUMNS.get(i).toLowerCase(Locale.ROOT), -1);
+        }
+        return indexes;
+    }
+
+    // Lower-cased column name to value; empty cells are null
+    private static Map<String, String> csvValues(List<String> cells, int[] columnIndexes) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            int index = columnIndexes[i];
+            if (index >= 0 && index < cells.size() && !cells.get(index).isEmpty()) {
+                values.put(COLUMNS.get(i).toLowerCase(Locale.ROOT), cells.get(index));
+            }
+        }
+        return values;
+    }
+
+    private static Map<String, String> jsonValues(JsonNode node) {
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        Map<String, String> values = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().isNull()) {
+                values.put(field.getKey().toLowerCase(Locale.ROOT), field.getValue().asText());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Splits one CSV line: fields may be quoted, with "" for a quote inside a
+     * quoted field. Quoted fields spanning several lines are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c != '\r') {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private static String stripBom(String text) {
+        return !text.isEmpty() && text.charAt(0) == '﻿' ? text.substring(1) : text;
+    }
+}
@@ -3,6 +3,9 @@ package com.routemasterapi.api.service;
 import com.routemasterapi.api.entity.ParcelEntity;
 import com.routemasterapi.api.entity.RouterEntity;
 import com.routemasterapi.api.entity.customerentity;
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.ParcelChangeEvent;
+import com.routemasterapi.api.model.KeysetSlice;
 import com.routemasterapi.api.model.ParcelIdRequest;
 import com.routemasterapi.api.model.ParcelRequestBody;
 import com.routemasterapi.api.repositories.CustomerRepository;
@@ -10,9 +13,13 @@ import com.routemasterapi.api.repositories.ParcelRepository;
 import com.routemasterapi.api.repositories.RouterRepository;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,12 +30,19 @@ import org.springframework.web.bind.annotation.RequestParam;
 @Service
 public class ParcelService  {
 
+	// Upper bound for keyset page sizes
+	private static final int MAX_SLICE_SIZE = 500;
+	// Legacy created date format, still accepted from clients
+	private static final DateTimeFormatter LEGACY_DATE_FORMAT = DateTimeFormatter.ofPattern("M/d/yyyy");
+
 	@Autowired
 	private ParcelRepository parcelRepository;
 	@Autowired
 	private CustomerRepository customerRepository;
 	@Autowired
 	private RouterRepository routeRepository;
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
 	
 
 	public ParcelEntity createParcel(ParcelRequestBody parcelReqBody) {
@@ -43,11 +57,13 @@ public class ParcelService  {
 		newParcel.setDestinationAddress(parcelReqBody.getDestinationAddress());
 		newParcel.setDestinationPincode(parcelReqBody.getDestinationPincode());
 		newParcel.setParcelStatus(parcelReqBody.getParcelStatus());
-		newParcel.setCreatedDate(parcelReqBody.getCreatedDate());
+		newParcel.setCreatedDate(parseCreatedDate(parcelReqBody.getCreatedDate()));
 		newParcel.setTotalPayment(parcelReqBody.getTotalPayment());
 		newParcel.setCustomer(customer);
 		newParcel.setRoute(route);
-		return parcelRepository.save(newParcel);		 
+		ParcelEntity saved = parcelRepository.save(newParcel);
+		eventPublisher.publishEvent(ParcelChangeEvent.of(this, ChangeType.CREATED, saved.getParcelId(), null, saved));
+		return saved;
 	}
 
 	public ParcelEntity updateParcel(ParcelRequestBody parcelReqBody) {
@@ -63,12 +79,19 @@ public class ParcelService  {
 		newParcel.setDestinationAddress(parcelReqBody.getDestinationAddress());
 		newParcel.setDestinationPincode(parcelReqBody.getDestinationPincode());
 		newParcel.setParcelStatus(parcelReqBody.getParcelStatus());
-		newParcel.setCreatedDate(parcelReqBody.getCreatedDate());
+		newParcel.setCreatedDate(parseCreatedDate(parcelReqBody.getCreatedDate()));
 		newParcel.setTotalPayment(parcelReqBody.getTotalPayment());
 		newParcel.setCustomer(customer);
 		newParcel.setRoute(route);
 		
-		return parcelRepository.save(newParcel);		 
+		// Stored row, so listeners can tell what actually changed; copied before saving
+		// because the merge writes into the loaded entity
+		ParcelChangeEvent.Snapshot before = parcelRepository.findById(parcelReqBody.getParcelId())
+			.map(ParcelChangeEvent.Snapshot::of).orElse(null);
+		ParcelEntity saved = parcelRepository.save(newParcel);
+		eventPublisher.publishEvent(ParcelChangeEvent.of(this, ChangeType.UPDATED, saved.getParcelId(), before,
+			ParcelChangeEvent.Snapshot.of(saved)));
+		return saved;
 	}
 
 	public Page<ParcelEntity> listallparcelsfromdb(int pageNumber, int size) {
@@ -78,7 +101,9 @@ public class ParcelService  {
  
 	public String deleteParcel(ParcelIdRequest parcelIdReq) {
 		int ParcelId= parcelIdReq.getParcelId();
+		ParcelEntity before = parcelRepository.findById(ParcelId).orElse(null);
 		parcelRepository.deleteById(ParcelId);
+		eventPublisher.publishEvent(ParcelChangeEvent.of(this, ChangeType.DELETED, ParcelId, before, null));
 		return "Record Deleted";
 	}
 	
@@ -87,6 +112,72 @@ public class ParcelService  {
 		return parcelRepository.listcustomerparcelstatusfromdb(customerId, pageable);
 	}
 	
+	/**
+	 * Keyset page of all parcels ordered by id, continuing after {@code cursor}
+	 * (null for the first page).
+	 */
+	public KeysetSlice<ParcelEntity> listparcelsafter(String cursor, int size) {
+		int limit = sliceSize(size);
+		int afterId = cursorId(cursor);
+		return toSlice(parcelRepository.listparcelsafter(afterId, limit + 1), limit);
+	}
+
+	public KeysetSlice<ParcelEntity> listcustomerparcelsafter(int customerId, String cursor, int size) {
+		int limit = sliceSize(size);
+		int afterId = cursorId(cursor);
+		return toSlice(parcelRepository.listcustomerparcelsafter(customerId, afterId, limit + 1), limit);
+	}
+
+	public long countparcels() {
+		return parcelRepository.count();
+	}
+
+	public long countcustomerparcels(int customerId) {
+		return parcelRepository.countcustomerparcels(customerId);
+	}
+
+	/**
+	 * Parses a created date sent as yyyy-MM-dd (optionally followed by a time,
+	 * as in ISO timestamps) or as the legacy MM/dd/yyyy. Null or blank stays null.
+	 */
+	static LocalDate parseCreatedDate(String value) {
+		if (value == null || value.isBlank()) {
+			return null;
+		}
+		String date = value.trim();
+		try {
+			if (date.contains("/")) {
+				return LocalDate.parse(date, LEGACY_DATE_FORMAT);
+			}
+			return LocalDate.parse(date.length() > 10 ? date.substring(0, 10) : date);
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid created date: " + value);
+		}
+	}
+
+	// One extra row is fetched to tell whether another page follows
+	private KeysetSlice<ParcelEntity> toSlice(List<ParcelEntity> rows, int limit) {
+		boolean hasNext = rows.size() > limit;
+		List<ParcelEntity> content = hasNext ? rows.subList(0, limit) : rows;
+		String nextCursor = hasNext ? KeysetSlice.encodeCursor(content.get(content.size() - 1).getParcelId()) : null;
+		return new KeysetSlice<>(content, limit, hasNext, nextCursor);
+	}
+
+	private static int sliceSize(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Page size must be positive");
+		}
+		return Math.min(size, MAX_SLICE_SIZE);
+	}
+
+	private static int cursorId(String cursor) {
+		long lastId = KeysetSlice.decodeCursor(cursor);
+		if (lastId > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+		return (int) lastId;
+	}
+	
 	public Page<ParcelEntity> listonemonthparcelsfromdb(int pageNumber, int size) {
 		Pageable pageable = PageRequest.of(pageNumber, size);
 		LocalDate oneMonthAgo = LocalDate.now().minusMonths(1);
@@ -0,0 +1,350 @@
+package com.routemasterapi.api.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.ParcelChangeEvent;
+import com.routemasterapi.api.event.TrackingChangeEvent;
+import com.routemasterapi.api.model.TrackingState;
+
+/**
+ * Latest tracking row of every parcel, so a parcel's current state is one map
+ * read instead of a scan of ayush_track_parcel.
+ *
+ * "Latest" is the row with the highest track id. The map follows
+ * TrackingChangeEvent and is mirrored to parcel_tracking_state, which seeds
+ * it at startup. The table is rebuilt from the history until a rebuild was
+ * stored completely, as recorded in parcel_tracking_state_meta. Deleting the
+ * current row falls back to the parcel's previous row.
+ *
+ * Changes that arrive before the state is loaded (or while a failed load
+ * waits for its retry) only remember the parcel ids; the load re-reads those
+ * parcels from the history. Past max-pending ids it rebuilds everything.
+ *
+ * Tracking numbers are resolved to parcel ids with one indexed lookup and
+ * remembered until the parcel changes.
+ */
+@Service
+public class ParcelTrackingStateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParcelTrackingStateService.class);
+
+    private static final String UPSERT_SQL = "INSERT INTO parcel_tracking_state "
+        + "(parcel_id, track_id, employee_id, location, status, approval_status, timestamp, notes) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE track_id = VALUES(track_id), "
+        + "employee_id = VALUES(employee_id), location = VALUES(location), status = VALUES(status), "
+        + "approval_status = VALUES(approval_status), timestamp = VALUES(timestamp), notes = VALUES(notes)";
+
+    private static final String DELETE_SQL = "DELETE FROM parcel_tracking_state WHERE parcel_id = ?";
+
+    private static final String LOAD_SQL = "SELECT parcel_id, track_id, employee_id, location, status, "
+        + "approval_status, timestamp, notes FROM parcel_tracking_state";
+
+    private static final String HISTORY_COLUMNS = "t.parcelid, t.trackid, t.employeeid, t.location, t.status, "
+        + "t.approval_status, t.timestamp, t.notes";
+
+    private static final String REBUILD_SQL = "SELECT " + HISTORY_COLUMNS + " FROM ayush_track_parcel t "
+        + "JOIN (SELECT parcelid, MAX(trackid) AS trackid FROM ayush_track_parcel GROUP BY parcelid) latest "
+        + "ON t.trackid = latest.trackid";
+
+    private static final String MARKER_SQL = "SELECT COUNT(*) FROM parcel_tracking_state_meta WHERE id = 1";
+
+    private static final String MARK_REBUILT_SQL = "INSERT INTO parcel_tracking_state_meta (id, rebuilt_at) "
+        + "VALUES (1, ?) ON DUPLICATE KEY UPDATE rebuilt_at = VALUES(rebuilt_at)";
+
+    private static final String LATEST_SQL = "SELECT " + HISTORY_COLUMNS + " FROM ayush_track_parcel t "
+        + "WHERE t.parcelid = ? ORDER BY t.trackid DESC LIMIT 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${routemaster.tracking.state.tracking-number-cache-size:100000}")
+    private int trackingNumberCacheSize;
+
+    // Parcels changed before the load that are re-read afterwards; more than this forces a rebuild
+    @Value("${routemaster.tracking.state.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${routemaster.tracking.state.load-retry-ms:30000}")
+    private long loadRetryMillis;
+
+    private final Map<Integer, TrackingState> states = new ConcurrentHashMap<>();
+    private final Map<String, Integer> parcelIdByTrackingNumber = new ConcurrentHashMap<>();
+    private final Map<Integer, String> trackingNumberByParcelId = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile boolean loaded;
+    private volatile long nextLoadAttempt;
+    // Guarded by writeLock
+    private final Set<Integer> pending = new LinkedHashSet<>();
+    private boolean pendingOverflow;
+
+    /**
+     * Latest tracking state of the parcel, or null when it has no tracking rows.
+     */
+    public TrackingState getLatest(int parcelId) {
+        if (!ensureLoaded()) {
+            return queryLatest(parcelId);
+        }
+        return states.get(parcelId);
+    }
+
+    /**
+     * Parcel id for a tracking number, or null when no parcel has it.
+     */
+    public Integer findParcelId(String trackingNumber) {
+        Integer parcelId = parcelIdByTrackingNumber.get(trackingNumber);
+        if (parcelId != null) {
+            return parcelId;
+        }
+        List<Integer> ids = jdbcTemplate.queryForList(
+            "SELECT parcelid FROM ayush_parcel WHERE tracking_number = ? LIMIT 1", Integer.class, trackingNumber);
+        if (ids.isEmpty()) {
+            return null;
+        }
+        parcelId = ids.get(0);
+        if (parcelIdByTrackingNumber.size() < trackingNumberCacheSize) {
+            parcelIdByTrackingNumber.put(trackingNumber, parcelId);
+            trackingNumberByParcelId.put(parcelId, trackingNumber);
+        }
+        return parcelId;
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        ensureLoaded();
+    }
+
+    @EventListener
+    public void onTrackingChange(TrackingChangeEvent event) {
+        if (!ensureLoaded()) {
+            List<Integer> parcelIds = new ArrayList<>();
+            event.getStates().forEach(state -> parcelIds.add(state.getParcelId()));
+            defer(parcelIds);
+            return;
+        }
+        Set<Integer> changed = new LinkedHashSet<>();
+        for (TrackingState state : event.getStates()) {
+            int parcelId = state.getParcelId();
+            if (event.getType() == ChangeType.DELETED) {
+                TrackingState current = states.get(parcelId);
+                if (current != null && current.getTrackId() == state.getTrackId()) {
+                    // The current row is gone: the parcel's previous row becomes the latest
+                    refresh(parcelId, current);
+                    changed.add(parcelId);
+                }
+            } else {
+                states.merge(parcelId, state, ParcelTrackingStateService::newer);
+                changed.add(parcelId);
+            }
+        }
+        persist(changed);
+    }
+
+    @EventListener
+    public void onParcelChange(ParcelChangeEvent event) {
+        String trackingNumber = trackingNumberByParcelId.remove(event.getParcelId());
+        if (trackingNumber != null) {
+            parcelIdByTrackingNumber.remove(trackingNumber, event.getParcelId());
+        }
+        if (event.getType() != ChangeType.DELETED) {
+            return;
+        }
+        if (!ensureLoaded()) {
+            defer(List.of(event.getParcelId()));
+        } else if (states.remove(event.getParcelId()) != null) {
+            persist(List.of(event.getParcelId()));
+        }
+    }
+
+    // True once the state is loaded; a failed load is retried after load-retry-ms, not on every call
+    private boolean ensureLoaded() {
+        if (loaded) {
+            return true;
+        }
+        if (System.currentTimeMillis() < nextLoadAttempt) {
+            return false;
+        }
+        synchronized (writeLock) {
+            if (loaded) {
+                return true;
+            }
+            long startTime = System.currentTimeMillis();
+            try {
+                boolean rebuild = pendingOverflow
+                    || jdbcTemplate.queryForObject(MARKER_SQL, Integer.class) == 0;
+                Map<Integer, TrackingState> loading = new ConcurrentHashMap<>();
+                for (TrackingState state : jdbcTemplate.query(LOAD_SQL, ParcelTrackingStateService::mapState)) {
+                    loading.put(state.getParcelId(), state);
+                }
+                if (rebuild) {
+                    // The history decides for every parcel it has rows for; stored rows
+                    // remain for parcels whose history was archived
+                    for (TrackingState state : jdbcTemplate.query(REBUILD_SQL, ParcelTrackingStateService::mapState)) {
+                        loading.put(state.getParcelId(), state);
+                    }
+                } else {
+                    // Parcels changed before the load: their stored rows may be outdated
+                    for (Integer parcelId : pending) {
+                        TrackingState latest = queryLatest(parcelId);
+                        if (latest != null) {
+                            loading.put(parcelId, latest);
+                        } else {
+                            loading.remove(parcelId);
+                        }
+                    }
+                }
+                states.clear();
+                states.putAll(loading);
+                if (rebuild) {
+                    write(new ArrayList<>(states.keySet()));
+                    jdbcTemplate.update(MARK_REBUILT_SQL, System.currentTimeMillis());
+                } else {
+                    write(pending);
+                }
+                pending.clear();
+                pendingOverflow = false;
+                loaded = true;
+                logger.info("Loaded latest tracking state of {} parcels in {} ms{}", states.size(),
+                    System.currentTimeMillis() - startTime, rebuild ? " (rebuilt from history)" : "");
+            } catch (Exception e) {
+                states.clear();
+                nextLoadAttempt = System.currentTimeMillis() + loadRetryMillis;
+                logger.error("Failed to load tracking state, retrying in {} ms", loadRetryMillis, e);
+            }
+            return loaded;
+        }
+    }
+
+    // Remembers parcels changed before the load; too many and the load rebuilds everything instead
+    private void defer(Collection<Integer> parcelIds) {
+        synchronized (writeLock) {
+            if (loaded) {
+                // Loaded meanwhile: the load did not see these changes
+                for (Integer parcelId : parcelIds) {
+                    refresh(parcelId);
+                }
+                persist(parcelIds);
+                return;
+            }
+            if (pendingOverflow) {
+                return;
+            }
+            pending.addAll(parcelIds);
+            if (pending.size() > maxPending) {
+                pending.clear();
+                pendingOverflow = true;
+            }
+        }
+    }
+
+    // Writes the current map entries of the parcels; serialized so a slower writer cannot overwrite a newer state
+    private void persist(Collection<Integer> parcelIds) {
+        if (parcelIds.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            try {
+                write(parcelIds);
+            } catch (Exception e) {
+                logger.error("Failed to write tracking state of {} parcels", parcelIds.size(), e);
+            }
+        }
+    }
+
+    // Caller holds writeLock
+    private void write(Collection<Integer> parcelIds) {
+        List<TrackingState> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Integer parcelId : parcelIds) {
+            TrackingState state = states.get(parcelId);
+            if (state != null) {
+                upserts.add(state);
+            } else {
+                deletes.add(new Object[] { parcelId });
+            }
+        }
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, upserts, 500, ParcelTrackingStateService::bind);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+        }
+    }
+
+    private void refresh(int parcelId) {
+        TrackingState current = states.get(parcelId);
+        if (current != null) {
+            refresh(parcelId, current);
+        } else {
+            TrackingState latest = queryLatest(parcelId);
+            if (latest != null) {
+                states.merge(parcelId, latest, ParcelTrackingStateService::newer);
+            }
+        }
+    }
+
+    // Replaces current with the parcel's latest stored row, unless a newer row was merged in meanwhile
+    private void refresh(int parcelId, TrackingState current) {
+        TrackingState latest = queryLatest(parcelId);
+        if (latest != null) {
+            states.replace(parcelId, current, latest);
+        } else {
+            states.remove(parcelId, current);
+        }
+    }
+
+    private TrackingState queryLatest(int parcelId) {
+        List<TrackingState> rows = jdbcTemplate.query(LATEST_SQL, ParcelTrackingStateService::mapState, parcelId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static TrackingState newer(TrackingState current, TrackingState candidate) {
+        return candidate.getTrackId() >= current.getTrackId() ? candidate : current;
+    }
+
+    private static TrackingState mapState(ResultSet rs, int rowNum) throws SQLException {
+        int employeeId = rs.getInt(3);
+        Integer employee = rs.wasNull() ? null : employeeId;
+        return new TrackingState(rs.getInt(1), rs.getInt(2), employee, rs.getString(4), rs.getString(5),
+            rs.getString(6), rs.getTimestamp(7), rs.getString(8));
+    }
+
+    private static void bind(PreparedStatement ps, TrackingState state) throws SQLException {
+        ps.setInt(1, state.getParcelId());
+        ps.setInt(2, state.getTrackId());
+        if (state.getEmployeeId() != null) {
+            ps.setInt(3, state.getEmployeeId());
+        } else {
+            ps.setNull(3, Types.INTEGER);
+        }
+        ps.setString(4, state.getLocation());
+        ps.setString(5, state.getStatus());
+        ps.setString(6, state.getApprovalStatus());
+        ps.setTimestamp(7, state.getTimestamp() != null ? new Timestamp(state.getTimestamp().getTime()) : null);
+        ps.setString(8, state.getNotes());
+    }
+}
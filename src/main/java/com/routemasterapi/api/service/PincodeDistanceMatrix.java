@@ -0,0 +1,427 @@
+package com.routemasterapi.api.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Great-circle distances between pincodes, kept in a memory-mapped file so
+ * they survive restarts and are shared by every optimization run.
+ *
+ * Pincodes get dense indices in order of first use. The file stores the
+ * lower triangle of the matrix as one record per pincode, appended as new
+ * pincodes appear:
+ * <pre>
+ * header:   magic, version, committed row count, reserved  (4 ints)
+ * row i:    pincode (int), latitude, longitude (floats), i distances in km (floats)
+ * </pre>
+ * New rows are computed in parallel, flushed, and only then counted in the
+ * header, so a crash never exposes a half-written row. On startup every row's
+ * coordinates are checked against the current {@link PincodeGeocoder}; the
+ * file is cut back to the first row whose pincode moved.
+ *
+ * Readers work on an immutable {@link Snapshot}; extending publishes a new one.
+ */
+@Service
+public class PincodeDistanceMatrix {
+
+    private static final Logger logger = LoggerFactory.getLogger(PincodeDistanceMatrix.class);
+
+    private static final int MAGIC = 0x524d444d; // "RMDM"
+    private static final int VERSION = 1;
+    private static final long HEADER_BYTES = 16;
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_BYTES = 1L << CHUNK_SHIFT;
+    // Mapped regions grow in steps of this size to avoid remapping on every extension
+    private static final long MAPPING_STEP = 64L << 20;
+    private static final long LEAF_DISTANCES = 1 << 16;
+    private static final double EARTH_DIAMETER_KM = 2 * 6371.0;
+
+    @Autowired
+    private PincodeGeocoder pincodeGeocoder;
+
+    // Opt-in: the file takes about 2 * n^2 bytes for n pincodes
+    @Value("${routemaster.optimizer.distance-matrix.enabled:false}")
+    private boolean enabled;
+
+    // Outside the working directory by default, so it survives redeploys of the app directory
+    @Value("${routemaster.optimizer.distance-matrix.file:${user.home}/.routemaster/pincode-distance-matrix.bin}")
+    private String file;
+
+    @Value("${routemaster.optimizer.distance-matrix.max-pincodes:20000}")
+    private int maxPincodes;
+
+    private FileChannel channel;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Immutable view of the first {@link #size()} pincodes of the matrix.
+     */
+    public static final class Snapshot {
+        private final int size;
+        private final int[] pincodes;
+        private final float[] latitudes;
+        private final float[] longitudes;
+        private final int[] sortedPincodes;
+        private final int[] sortedIndex;
+        private final MappedByteBuffer[] chunks;
+
+        private Snapshot(int size, int[] pincodes, float[] latitudes, float[] longitudes, MappedByteBuffer[] chunks) {
+            this.size = size;
+            this.pincodes = pincodes;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.chunks = chunks;
+
+            long[] keyed = new long[size];
+            for (int i = 0; i < size; i++) {
+                keyed[i] = ((long) pincodes[i] << 32) | i;
+            }
+            Arrays.sort(keyed);
+            this.sortedPincodes = new int[size];
+            this.sortedIndex = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedPincodes[i] = (int) (keyed[i] >>> 32);
+                sortedIndex[i] = (int) keyed[i];
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Matrix index of a parsed pincode, or -1 when it is not in the matrix.
+         */
+        public int indexOf(int pincode) {
+            int slot = Arrays.binarySearch(sortedPincodes, pincode);
+            return slot >= 0 ? sortedIndex[slot] : -1;
+        }
+
+        /**
+         * Distance in km between two matrix indices.
+         */
+        public float distance(int a, int b) {
+            if (a == b) {
+                return 0f;
+            }
+            int row = Math.max(a, b);
+            int column = Math.min(a, b);
+            long offset = rowOffset(row) + 12 + 4L * column;
+            return chunks[(int) (offset >>> CHUNK_SHIFT)].getFloat((int) (offset & (CHUNK_BYTES - 1)));
+        }
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            logger.info("Pincode distance matrix disabled");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            int rows = readCommittedRows();
+            MappedByteBuffer[] chunks = map(new MappedByteBuffer[0], rowOffset(rows));
+            int[] pincodes = new int[rows];
+            float[] latitudes = new float[rows];
+            float[] longitudes = new float[rows];
+            double[] latLon = new double[2];
+
+            int valid = 0;
+            while (valid < rows) {
+                long offset = rowOffset(valid);
+                int pincode = getInt(chunks, offset);
+                float lat = getFloat(chunks, offset + 4);
+                float lon = getFloat(chunks, offset + 8);
+                if (!pincodeGeocoder.locate(pincode, latLon) || (float) latLon[0] != lat || (float) latLon[1] != lon) {
+                    logger.info("Pincode {} moved since the distance matrix was built; dropping {} rows",
+                        pincode, rows - valid);
+                    break;
+                }
+                pincodes[valid] = pincode;
+                latitudes[valid] = lat;
+                longitudes[valid] = lon;
+                valid++;
+            }
+            if (valid < rows) {
+                writeCommittedRows(valid);
+            }
+            snapshot = new Snapshot(valid, Arrays.copyOf(pincodes, valid), Arrays.copyOf(latitudes, valid),
+                Arrays.copyOf(longitudes, valid), chunks);
+            logger.info("Opened pincode distance matrix {} with {} pincodes in {} ms", path, valid,
+                System.currentTimeMillis() - startTime);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Pincode distance matrix unavailable, distances will be computed per run: {}", e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closeQuietly();
+    }
+
+    /**
+     * Current snapshot, or null when the matrix is disabled or unavailable.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Adds every geocodable pincode not yet in the matrix, computing the new
+     * rows in parallel, and returns a snapshot covering them. Pincodes beyond
+     * the configured maximum are left out; callers fall back to computing
+     * those distances themselves.
+     *
+     * @param pincodeSets parsed pincodes ({@link PincodeGeocoder#parsePincode(String)}), -1 entries are ignored
+     * @return the extended snapshot, or null when the matrix is unavailable
+     */
+    public synchronized Snapshot extend(int[]... pincodeSets) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+
+        int total = 0;
+        for (int[] set : pincodeSets) {
+            total += set.length;
+        }
+        int[] candidates = new int[total];
+        int count = 0;
+        for (int[] set : pincodeSets) {
+            for (int pincode : set) {
+                if (pincode >= 0 && current.indexOf(pincode) < 0) {
+                    candidates[count++] = pincode;
+                }
+            }
+        }
+        if (count == 0) {
+            return current;
+        }
+        Arrays.sort(candidates, 0, count);
+
+        int size = current.size;
+        int[] pincodes = Arrays.copyOf(current.pincodes, size + count);
+        float[] latitudes = Arrays.copyOf(current.latitudes, size + count);
+        float[] longitudes = Arrays.copyOf(current.longitudes, size + count);
+        double[] latLon = new double[2];
+        int added = 0;
+        for (int i = 0; i < count && size + added < maxPincodes; i++) {
+            if ((i > 0 && candidates[i] == candidates[i - 1]) || !pincodeGeocoder.locate(candidates[i], latLon)) {
+                continue;
+            }
+            pincodes[size + added] = candidates[i];
+            latitudes[size + added] = (float) latLon[0];
+            longitudes[size + added] = (float) latLon[1];
+            added++;
+        }
+        if (added == 0) {
+            return current;
+        }
+
+        long startTime = System.currentTimeMillis();
+        int rows = size + added;
+        try {
+            MappedByteBuffer[] chunks = map(current.chunks, rowOffset(rows));
+            double[][] vectors = unitVectors(latitudes, longitudes, rows);
+            ForkJoinPool.commonPool().invoke(new RowTask(chunks, pincodes, latitudes, longitudes, vectors, size, rows));
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+            writeCommittedRows(rows);
+
+            snapshot = new Snapshot(rows, Arrays.copyOf(pincodes, rows), Arrays.copyOf(latitudes, rows),
+                Arrays.copyOf(longitudes, rows), chunks);
+            logger.info("Extended pincode distance matrix by {} to {} pincodes in {} ms", added, rows,
+                System.currentTimeMillis() - startTime);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not extend pincode distance matrix: {}", e.getMessage());
+        }
+        return snapshot;
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", current != null);
+        stats.put("file", file);
+        stats.put("pincodes", current != null ? current.size : 0);
+        stats.put("maxPincodes", maxPincodes);
+        stats.put("fileBytes", current != null ? rowOffset(current.size) : 0);
+        return stats;
+    }
+
+    // Byte offset of row i: header, then i records of 12 bytes plus j floats for j < i
+    private static long rowOffset(int row) {
+        return HEADER_BYTES + 12L * row + 2L * row * (row - 1L);
+    }
+
+    private int readCommittedRows() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate((int) HEADER_BYTES);
+        if (channel.size() < HEADER_BYTES || channel.read(header, 0) < HEADER_BYTES
+                || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            logger.info("Creating new pincode distance matrix file {}", file);
+            channel.truncate(0);
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0).flip();
+            channel.write(header, 0);
+            channel.force(true);
+            return 0;
+        }
+        int rows = header.getInt(8);
+        // Rows counted in the header but missing from the file were never completed
+        while (rows > 0 && rowOffset(rows) > channel.size()) {
+            rows--;
+        }
+        return rows;
+    }
+
+    private void writeCommittedRows(int rows) throws IOException {
+        ByteBuffer count = ByteBuffer.allocate(4);
+        count.putInt(rows).flip();
+        channel.write(count, 8);
+        channel.force(false);
+    }
+
+    /**
+     * Maps the file up to {@code end} bytes in chunks of at most 1 GB,
+     * reusing existing mappings that are already large enough.
+     */
+    private MappedByteBuffer[] map(MappedByteBuffer[] chunks, long end) throws IOException {
+        int needed = (int) ((end + CHUNK_BYTES - 1) >>> CHUNK_SHIFT);
+        MappedByteBuffer[] mapped = Arrays.copyOf(chunks, Math.max(needed, chunks.length));
+        for (int c = 0; c < needed; c++) {
+            long start = (long) c << CHUNK_SHIFT;
+            long required = Math.min(CHUNK_BYTES, end - start);
+            if (mapped[c] == null || mapped[c].capacity() < required) {
+                long size = Math.min(CHUNK_BYTES, ((required + MAPPING_STEP - 1) / MAPPING_STEP) * MAPPING_STEP);
+                mapped[c] = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+            }
+        }
+        return mapped;
+    }
+
+    private static double[][] unitVectors(float[] latitudes, float[] longitudes, int count) {
+        double[][] vectors = new double[3][count];
+        for (int i = 0; i < count; i++) {
+            double lat = Math.toRadians(latitudes[i]);
+            double lon = Math.toRadians(longitudes[i]);
+            vectors[0][i] = Math.cos(lat) * Math.cos(lon);
+            vectors[1][i] = Math.cos(lat) * Math.sin(lon);
+            vectors[2][i] = Math.sin(lat);
+        }
+        return vectors;
+    }
+
+    private static int getInt(MappedByteBuffer[] chunks, long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getInt((int) (offset & (CHUNK_BYTES - 1)));
+    }
+
+    private static float getFloat(MappedByteBuffer[] chunks, long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getFloat((int) (offset & (CHUNK_BYTES - 1)));
+    }
+
+    private void closeQuietly() {
+        snapshot = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Error closing pincode distance matrix", e);
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Writes rows [from, to): the record header and distances to every earlier
+     * pincode. Splits so every leaf computes roughly the same number of
+     * distances, since row i holds i of them.
+     */
+    private static final class RowTask extends RecursiveAction {
+        private final MappedByteBuffer[] chunks;
+        private final int[] pincodes;
+        private final float[] latitudes;
+        private final float[] longitudes;
+        private final double[][] vectors;
+        private final int from;
+        private final int to;
+
+        RowTask(MappedByteBuffer[] chunks, int[] pincodes, float[] latitudes, float[] longitudes, double[][] vectors,
+                int from, int to) {
+            this.chunks = chunks;
+            this.pincodes = pincodes;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.vectors = vectors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            long distances = ((long) to * to - (long) from * from) / 2;
+            if (distances > LEAF_DISTANCES && to - from > 1) {
+                int mid = (int) Math.sqrt(((double) from * from + (double) to * to) / 2);
+                mid = Math.max(from + 1, Math.min(to - 1, mid));
+                invokeAll(new RowTask(chunks, pincodes, latitudes, longitudes, vectors, from, mid),
+                    new RowTask(chunks, pincodes, latitudes, longitudes, vectors, mid, to));
+                return;
+            }
+
+            double[] x = vectors[0];
+            double[] y = vectors[1];
+            double[] z = vectors[2];
+
+            for (int row = from; row < to; row++) {
+                long offset = rowOffset(row);
+                putInt(offset, pincodes[row]);
+                putFloat(offset + 4, latitudes[row]);
+                putFloat(offset + 8, longitudes[row]);
+                offset += 12;
+                for (int column = 0; column < row; column++, offset += 4) {
+                    double dx = x[row] - x[column];
+                    double dy = y[row] - y[column];
+                    double dz = z[row] - z[column];
+                    double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    putFloat(offset, (float) (EARTH_DIAMETER_KM * Math.asin(Math.min(1, chord / 2))));
+                }
+            }
+        }
+
+        private void putInt(long offset, int value) {
+            chunks[(int) (offset >>> CHUNK_SHIFT)].putInt((int) (offset & (CHUNK_BYTES - 1)), value);
+        }
+
+        private void putFloat(long offset, float value) {
+            chunks[(int) (offset >>> CHUNK_SHIFT)].putFloat((int) (offset & (CHUNK_BYTES - 1)), value);
+        }
+    }
+}
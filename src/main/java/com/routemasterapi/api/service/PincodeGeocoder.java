@@ -0,0 +1,351 @@
+package com.routemasterapi.api.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Deterministic pincode -> latitude/longitude lookup used by the route optimizer.
+ *
+ * Datasets are CSV files with rows of {@code pincode,latitude,longitude}.
+ * Six digit rows are exact pincodes; rows with a 1-3 digit key are explicit
+ * prefix centroids. Exact pincodes are kept in sorted primitive arrays
+ * (binary search, ~12 bytes per pincode) and prefix centroids are derived from
+ * them, so an unknown pincode still resolves to the centroid of its sorting
+ * district (3 digits), circle (2 digits) or region (1 digit).
+ */
+@Service
+public class PincodeGeocoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PincodeGeocoder.class);
+    private static final int PINCODE_LENGTH = 6;
+
+    @Value("${routemaster.geocoding.pincode-files:classpath:geo/pincode-centroids.csv}")
+    private Resource[] pincodeFiles;
+
+    private int[] pincodes = new int[0];
+    private float[] latitudes = new float[0];
+    private float[] longitudes = new float[0];
+
+    // Prefix centroids indexed by prefix value, NaN when unknown
+    private final double[][] prefixLatitudes = { new double[10], new double[100], new double[1000] };
+    private final double[][] prefixLongitudes = { new double[10], new double[100], new double[1000] };
+
+    @PostConstruct
+    public void load() {
+        long startTime = System.currentTimeMillis();
+        Loader loader = new Loader();
+
+        for (Resource file : pincodeFiles) {
+            if (!file.exists()) {
+                logger.warn("Pincode dataset not found: {}", file.getDescription());
+                continue;
+            }
+            try (InputStream in = file.getInputStream()) {
+                loader.read(in.readAllBytes());
+            } catch (IOException e) {
+                logger.error("Error reading pincode dataset {}", file.getDescription(), e);
+            }
+        }
+
+        loader.finish();
+        logger.info("Loaded {} pincodes in {} ms", pincodes.length, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Writes the coordinates of the pincode into {@code latLon} (latitude, longitude).
+     * Falls back to the most specific known prefix centroid.
+     *
+     * @return false when neither the pincode nor any of its prefixes is known
+     */
+    public boolean locate(String pincode, double[] latLon) {
+        return locate(parsePincode(pincode), latLon);
+    }
+
+    /**
+     * Same as {@link #locate(String, double[])} for a pincode already parsed
+     * with {@link #parsePincode(String)}.
+     */
+    public boolean locate(int code, double[] latLon) {
+        if (code < 0) {
+            return false;
+        }
+
+        int slot = Arrays.binarySearch(pincodes, code);
+        if (slot >= 0) {
+            latLon[0] = latitudes[slot];
+            latLon[1] = longitudes[slot];
+            return true;
+        }
+
+        for (int digits = 3, divisor = 1000; digits >= 1; digits--, divisor *= 10) {
+            int prefix = code / divisor;
+            double lat = prefixLatitudes[digits - 1][prefix];
+            if (!Double.isNaN(lat)) {
+                latLon[0] = lat;
+                latLon[1] = prefixLongitudes[digits - 1][prefix];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return pincodes.length;
+    }
+
+    /**
+     * Parses a six digit pincode, ignoring surrounding and embedded spaces
+     * ("560 001"). Returns -1 when the value is not a pincode.
+     */
+    static int parsePincode(String pincode) {
+        if (pincode == null) {
+            return -1;
+        }
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i < pincode.length(); i++) {
+            char c = pincode.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > PINCODE_LENGTH) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            } else if (c != ' ') {
+                return -1;
+            }
+        }
+        return digits == PINCODE_LENGTH ? value : -1;
+    }
+
+    private class Loader {
+        private int count;
+        private int[] codes = new int[1 << 14];
+        private float[] lats = new float[1 << 14];
+        private float[] lons = new float[1 << 14];
+        private final double[][] explicitLat = { nanArray(10), nanArray(100), nanArray(1000) };
+        private final double[][] explicitLon = { new double[10], new double[100], new double[1000] };
+
+        void read(byte[] data) {
+            int pos = 0;
+            while (pos < data.length) {
+                int lineEnd = pos;
+                while (lineEnd < data.length && data[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                parseLine(data, pos, lineEnd);
+                pos = lineEnd + 1;
+            }
+        }
+
+        // Rows not starting with a digit are headers or comments; malformed rows are skipped
+        private void parseLine(byte[] data, int start, int end) {
+            if (start >= end || data[start] < '0' || data[start] > '9') {
+                return;
+            }
+
+            int pos = start;
+            int key = 0;
+            int keyDigits = 0;
+            while (pos < end && data[pos] != ',') {
+                byte c = data[pos++];
+                if (c >= '0' && c <= '9') {
+                    key = key * 10 + (c - '0');
+                    keyDigits++;
+                } else if (c != ' ' && c != '"') {
+                    return;
+                }
+            }
+            if (keyDigits == 0 || keyDigits > PINCODE_LENGTH) {
+                return;
+            }
+
+            int latEnd = indexOf(data, ',', pos + 1, end);
+            int lonEnd = indexOf(data, ',', latEnd + 1, end);
+            double lat = parseDecimal(data, pos + 1, latEnd);
+            double lon = parseDecimal(data, latEnd + 1, lonEnd);
+            if (Double.isNaN(lat) || Double.isNaN(lon)) {
+                return;
+            }
+
+            if (keyDigits == PINCODE_LENGTH) {
+                add(key, (float) lat, (float) lon);
+            } else if (keyDigits <= 3) {
+                explicitLat[keyDigits - 1][key] = lat;
+                explicitLon[keyDigits - 1][key] = lon;
+            }
+        }
+
+        private void add(int code, float lat, float lon) {
+            if (count == codes.length) {
+                codes = Arrays.copyOf(codes, count * 2);
+                lats = Arrays.copyOf(lats, count * 2);
+                lons = Arrays.copyOf(lons, count * 2);
+            }
+            codes[count] = code;
+            lats[count] = lat;
+            lons[count] = lon;
+            count++;
+        }
+
+        void finish() {
+            sortByCode();
+
+            // Later rows win for duplicate pincodes
+            int unique = 0;
+            for (int i = 0; i < count; i++) {
+                if (unique > 0 && codes[unique - 1] == codes[i]) {
+                    unique--;
+                }
+                codes[unique] = codes[i];
+                lats[unique] = lats[i];
+                lons[unique] = lons[i];
+                unique++;
+            }
+
+            double[][] sumLat = { new double[10], new double[100], new double[1000] };
+            double[][] sumLon = { new double[10], new double[100], new double[1000] };
+            int[][] counts = { new int[10], new int[100], new int[1000] };
+            for (int i = 0; i < unique; i++) {
+                for (int digits = 1, divisor = 100000; digits <= 3; digits++, divisor /= 10) {
+                    int prefix = codes[i] / divisor;
+                    sumLat[digits - 1][prefix] += lats[i];
+                    sumLon[digits - 1][prefix] += lons[i];
+                    counts[digits - 1][prefix]++;
+                }
+            }
+
+            for (int level = 0; level < 3; level++) {
+                for (int prefix = 0; prefix < counts[level].length; prefix++) {
+                    double lat = explicitLat[level][prefix];
+                    double lon = explicitLon[level][prefix];
+                    if (Double.isNaN(lat) && counts[level][prefix] > 0) {
+                        lat = sumLat[level][prefix] / counts[level][prefix];
+                        lon = sumLon[level][prefix] / counts[level][prefix];
+                    }
+                    prefixLatitudes[level][prefix] = lat;
+                    prefixLongitudes[level][prefix] = lon;
+                }
+            }
+
+            // Regions only covered by explicit circle centroids
+            for (int region = 0; region < 10; region++) {
+                if (!Double.isNaN(prefixLatitudes[0][region])) {
+                    continue;
+                }
+                double lat = 0;
+                double lon = 0;
+                int known = 0;
+                for (int circle = region * 10; circle < region * 10 + 10; circle++) {
+                    if (!Double.isNaN(prefixLatitudes[1][circle])) {
+                        lat += prefixLatitudes[1][circle];
+                        lon += prefixLongitudes[1][circle];
+                        known++;
+                    }
+                }
+                if (known > 0) {
+                    prefixLatitudes[0][region] = lat / known;
+                    prefixLongitudes[0][region] = lon / known;
+                }
+            }
+
+            pincodes = Arrays.copyOf(codes, unique);
+            latitudes = Arrays.copyOf(lats, unique);
+            longitudes = Arrays.copyOf(lons, unique);
+        }
+
+        private void sortByCode() {
+            boolean sorted = true;
+            for (int i = 1; i < count && sorted; i++) {
+                sorted = codes[i - 1] <= codes[i];
+            }
+            if (sorted) {
+                return;
+            }
+
+            // Stable sort by code via (code, original position) packed into a long
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = ((long) codes[i] << 32) | i;
+            }
+            Arrays.sort(order);
+            int[] sortedCodes = new int[count];
+            float[] sortedLats = new float[count];
+            float[] sortedLons = new float[count];
+            for (int i = 0; i < count; i++) {
+                int from = (int) order[i];
+                sortedCodes[i] = codes[from];
+                sortedLats[i] = lats[from];
+                sortedLons[i] = lons[from];
+            }
+            codes = sortedCodes;
+            lats = sortedLats;
+            lons = sortedLons;
+        }
+    }
+
+    private static int indexOf(byte[] data, char c, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (data[i] == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Parses a plain decimal such as "-12.9716" (optionally quoted or padded),
+     * returning NaN for anything else.
+     */
+    private static double parseDecimal(byte[] data, int start, int end) {
+        while (start < end && (data[start] == ' ' || data[start] == '"')) start++;
+        while (end > start && (data[end - 1] == ' ' || data[end - 1] == '"' || data[end - 1] == '\r')) end--;
+        if (start >= end) {
+            return Double.NaN;
+        }
+
+        boolean negative = data[start] == '-';
+        if (negative || data[start] == '+') {
+            start++;
+        }
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            byte c = data[i];
+            if (c >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                    if (fraction) scale++;
+                } else if (!fraction) {
+                    return Double.NaN;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        double value = mantissa / Math.pow(10, scale);
+        return negative ? -value : value;
+    }
+
+    private static double[] nanArray(int length) {
+        double[] array = new double[length];
+        Arrays.fill(array, Double.NaN);
+        return array;
+    }
+}
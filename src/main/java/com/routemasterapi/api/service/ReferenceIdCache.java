@@ -0,0 +1,143 @@
+package com.routemasterapi.api.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.CustomerChangeEvent;
+import com.routemasterapi.api.event.ParcelChangeEvent;
+import com.routemasterapi.api.event.ParcelsImportedEvent;
+import com.routemasterapi.api.event.RouteChangeEvent;
+import com.routemasterapi.api.model.OptimizerParcel;
+
+/**
+ * Ids of existing parcels, employees, customers and routes, so bulk writes
+ * can check their references without one SELECT per row.
+ *
+ * All sets are loaded at startup and reloaded every refresh-interval-ms;
+ * parcel, customer and route ids also follow their change events. An id that is not in a set is
+ * looked up once and added when it exists, so rows written by other paths
+ * are still accepted. A reference that disappeared since the last reload is
+ * only caught by the foreign key when the row is written.
+ */
+@Service
+public class ReferenceIdCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceIdCache.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private volatile Set<Integer> parcelIds = ConcurrentHashMap.newKeySet();
+    private volatile Set<Integer> employeeIds = ConcurrentHashMap.newKeySet();
+    private volatile Set<Integer> customerIds = ConcurrentHashMap.newKeySet();
+    private volatile Set<Integer> routeIds = ConcurrentHashMap.newKeySet();
+
+    public boolean parcelExists(int parcelId) {
+        return contains(parcelIds, parcelId, "SELECT COUNT(*) FROM ayush_parcel WHERE parcelid = ?");
+    }
+
+    public boolean employeeExists(int employeeId) {
+        return contains(employeeIds, employeeId, "SELECT COUNT(*) FROM ayush_employee WHERE emp_id = ?");
+    }
+
+    public boolean customerExists(int customerId) {
+        return contains(customerIds, customerId, "SELECT COUNT(*) FROM ayush_customer WHERE CustomerID = ?");
+    }
+
+    public boolean routeExists(int routeId) {
+        return contains(routeIds, routeId, "SELECT COUNT(*) FROM ayush_router WHERE routeId = ?");
+    }
+
+    public int parcelCount() {
+        return parcelIds.size();
+    }
+
+    public int employeeCount() {
+        return employeeIds.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @Scheduled(initialDelayString = "${routemaster.reference-ids.refresh-interval-ms:600000}",
+        fixedDelayString = "${routemaster.reference-ids.refresh-interval-ms:600000}")
+    public void reload() {
+        long startTime = System.currentTimeMillis();
+        try {
+            parcelIds = load("SELECT parcelid FROM ayush_parcel");
+            employeeIds = load("SELECT emp_id FROM ayush_employee");
+            customerIds = load("SELECT CustomerID FROM ayush_customer");
+            routeIds = load("SELECT routeId FROM ayush_router");
+            logger.info("Loaded {} parcel, {} employee, {} customer and {} route ids in {} ms", parcelIds.size(),
+                employeeIds.size(), customerIds.size(), routeIds.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            logger.error("Failed to load reference ids", e);
+        }
+    }
+
+    @EventListener
+    public void onParcelChange(ParcelChangeEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            parcelIds.remove(event.getParcelId());
+        } else {
+            parcelIds.add(event.getParcelId());
+        }
+    }
+
+    @EventListener
+    public void onParcelsImported(ParcelsImportedEvent event) {
+        for (OptimizerParcel parcel : event.getParcels()) {
+            parcelIds.add(parcel.getParcelId());
+        }
+    }
+
+    @EventListener
+    public void onCustomerChange(CustomerChangeEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            customerIds.remove(event.getCustomerId());
+        } else {
+            customerIds.add(event.getCustomerId());
+        }
+    }
+
+    @EventListener
+    public void onRouteChange(RouteChangeEvent event) {
+        if (event.getType() == ChangeType.DELETED) {
+            routeIds.remove(event.getRouteId());
+        } else {
+            routeIds.add(event.getRouteId());
+        }
+    }
+
+    private boolean contains(Set<Integer> ids, int id, String existsSql) {
+        if (ids.contains(id)) {
+            return true;
+        }
+        Integer count = jdbcTemplate.queryForObject(existsSql, Integer.class, id);
+        if (count != null && count > 0) {
+            ids.add(id);
+            return true;
+        }
+        return false;
+    }
+
+    private Set<Integer> load(String sql) {
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        jdbcTemplate.query(sql, rs -> {
+            ids.add(rs.getInt(1));
+        });
+        return ids;
+    }
+}
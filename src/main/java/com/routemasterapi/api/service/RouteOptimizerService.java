@@ -1,13 +1,15 @@
 package com.routemasterapi.api.service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.routemasterapi.api.entity.ParcelEntity;
 import com.routemasterapi.api.entity.RouterEntity;
+import com.routemasterapi.api.model.OptimizerParcel;
 import com.routemasterapi.api.repositories.ParcelRepository;
 import com.routemasterapi.api.repositories.RouterRepository;
 
@@ -17,8 +19,8 @@ public class RouteOptimizerService {
     private static final Logger logger = LoggerFactory.getLogger(RouteOptimizerService.class);
     private static final double DEFAULT_CAPACITY = 100.0;
     private static final int EARTH_RADIUS_KM = 6371;
-    private static final double DEPOT_LAT = 40.7128;
-    private static final double DEPOT_LON = -74.0060;
+    static final double DEPOT_LAT = 40.7128;
+    static final double DEPOT_LON = -74.0060;
     
     @Autowired
     private ParcelRepository parcelRepository;
@@ -26,6 +28,30 @@ public class RouteOptimizerService {
     @Autowired
     private RouterRepository routerRepository;
     
+    @Autowired
+    private PincodeGeocoder pincodeGeocoder;
+    
+    @Autowired
+    private PincodeDistanceMatrix pincodeDistanceMatrix;
+    
+    @Value("${routemaster.optimizer.fetch-size:" + Integer.MIN_VALUE + "}")
+    private int parcelFetchSize;
+
+    @Value("${routemaster.optimizer.clustering.max-iterations:25}")
+    private int clusteringMaxIterations;
+
+    @Value("${routemaster.optimizer.clustering.time-budget-ms:10000}")
+    private long clusteringTimeBudgetMs;
+
+    @Value("${routemaster.optimizer.clustering.convergence-threshold:0.001}")
+    private double clusteringConvergenceThreshold;
+
+    @Value("${routemaster.optimizer.clustering.seed:42}")
+    private long clusteringSeed;
+
+    @Value("${routemaster.optimizer.sequencing.time-budget-ms:100}")
+    private long sequencingTimeBudgetMs;
+
     static class Location {
         private final double latitude;
         private final double longitude;
@@ -39,89 +65,103 @@ public class RouteOptimizerService {
             if (other == null) {
                 return Double.MAX_VALUE;
             }
-            
-            double dLat = Math.toRadians(other.latitude - this.latitude);
-            double dLon = Math.toRadians(other.longitude - this.longitude);
-            double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                      Math.cos(Math.toRadians(this.latitude)) * Math.cos(Math.toRadians(other.latitude)) *
-                      Math.sin(dLon / 2) * Math.sin(dLon / 2);
-            double c = 2 * Math.asin(Math.sqrt(a));
-            return EARTH_RADIUS_KM * c;
+            return haversine(this.latitude, this.longitude, other.latitude, other.longitude);
         }
     }
     
-    static class RouteInfo {
-        private final int routeId;
-        private final String routeName;
-        private final Location location;
-        private final double capacity;
-        private double currentLoad;
-        private final List<ParcelEntity> assignedParcels;
-        private double totalDistance;
-        
-        RouteInfo(int id, String name, Location loc, double cap) {
-            this.routeId = id;
-            this.routeName = name != null ? name : "Route-" + id;
-            this.location = loc != null ? loc : new Location(DEPOT_LAT, DEPOT_LON);
-            this.capacity = cap > 0 ? cap : DEFAULT_CAPACITY;
-            this.currentLoad = 0;
-            this.assignedParcels = new ArrayList<>();
-            this.totalDistance = 0;
-        }
-        
-        boolean canAccommodate(double weight) {
-            return weight > 0 && (currentLoad + weight) <= capacity;
-        }
-        
-        void addParcel(ParcelEntity parcel, double distance) {
-            if (parcel != null && canAccommodate(parcel.getWeight())) {
-                assignedParcels.add(parcel);
-                currentLoad += parcel.getWeight();
-                totalDistance += distance;
-            }
-        }
-        
-        double getUtilizationPercentage() {
-            return capacity > 0 ? (currentLoad / capacity) * 100 : 0;
-        }
+    static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                  Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                  Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.asin(Math.sqrt(a));
+        return EARTH_RADIUS_KM * c;
     }
     
     public static class OptimizationResult {
-        public Map<String, List<ParcelEntity>> routeAssignments;
+        public Map<String, List<OptimizerParcel>> routeAssignments;
         public Map<String, Double> routeLoads;
         public Map<String, Double> routeUtilization;
         public Map<String, Double> routeDistances;
+        public Map<String, List<Integer>> routeStopSequences;
+        public Map<String, Double> routeTourLengths;
         public double totalDistance;
+        public double totalTourLength;
         public double efficiency;
         public int assignedParcels;
         public int unassignedParcels;
         public int totalParcels;
         public String status;
         public long executionTimeMs;
-        
+        public int iterations;
+        public boolean converged;
+        public Map<String, Long> phaseTimingsMs;
+
         public OptimizationResult() {
             this.routeAssignments = new HashMap<>();
             this.routeLoads = new HashMap<>();
             this.routeUtilization = new HashMap<>();
             this.routeDistances = new HashMap<>();
+            this.routeStopSequences = new HashMap<>();
+            this.routeTourLengths = new HashMap<>();
             this.totalDistance = 0;
+            this.totalTourLength = 0;
             this.efficiency = 0;
             this.assignedParcels = 0;
             this.unassignedParcels = 0;
             this.totalParcels = 0;
             this.status = "Pending";
             this.executionTimeMs = 0;
+            this.iterations = 0;
+            this.converged = false;
+            this.phaseTimingsMs = new LinkedHashMap<>();
+        }
+
+        void recordPhase(String phase, long startMs) {
+            phaseTimingsMs.merge(phase, System.currentTimeMillis() - startMs, Long::sum);
         }
     }
     
     public OptimizationResult optimizeRoutesUsingFloodFill() {
+        return optimizeRoutesUsingFloodFill(new OptimizationProgress());
+    }
+    
+    /**
+     * The configuration that affects results of the algorithm, for cache keys.
+     */
+    String parameterKey(OptimizationAlgorithm algorithm) {
+        String common = "seq=" + sequencingTimeBudgetMs;
+        if (algorithm == OptimizationAlgorithm.CLUSTERING) {
+            return common + ",iter=" + clusteringMaxIterations + ",budget=" + clusteringTimeBudgetMs
+                + ",threshold=" + clusteringConvergenceThreshold + ",seed=" + clusteringSeed;
+        }
+        return common;
+    }
+    
+    public OptimizationResult optimize(OptimizationAlgorithm algorithm, OptimizationProgress progress) {
+        switch (algorithm) {
+            case CLUSTERING:
+                return optimizeWithClustering(progress);
+            case FLOOD_FILL:
+            default:
+                return optimizeRoutesUsingFloodFill(progress);
+        }
+    }
+    
+    /**
+     * Flood fill assignment, reporting progress per parcel. Throws
+     * CancellationException as soon as the progress is cancelled.
+     */
+    public OptimizationResult optimizeRoutesUsingFloodFill(OptimizationProgress progress) {
         long startTime = System.currentTimeMillis();
         OptimizationResult result = new OptimizationResult();
         
         try {
             logger.info("=== Starting Flood Fill Route Optimization ===");
             
-            List<ParcelEntity> allParcels = validateAndFetchParcels();
+            progress.startPhase("Loading", 0);
+            List<OptimizerParcel> allParcels = validateAndFetchParcels();
             List<RouterEntity> allRoutes = validateAndFetchRoutes();
             
             result.totalParcels = allParcels.size();
@@ -134,53 +174,46 @@ public class RouteOptimizerService {
             }
             
             logger.info("Found {} parcels and {} routes", allParcels.size(), allRoutes.size());
-            
-            Map<Integer, RouteInfo> routeMap = initializeRoutes(allRoutes);
-            
-            List<ParcelEntity> sortedParcels = allParcels.stream()
-                .sorted(Comparator.comparingDouble(ParcelEntity::getWeight).reversed())
-                .collect(Collectors.toList());
-            
-            logger.info("Sorted {} parcels by weight", sortedParcels.size());
-            
-            for (ParcelEntity parcel : sortedParcels) {
-                if (parcel == null || parcel.getWeight() <= 0) {
-                    result.unassignedParcels++;
-                    continue;
-                }
-                
-                if (floodFillAssignment(parcel, routeMap)) {
-                    result.assignedParcels++;
-                } else {
-                    result.unassignedParcels++;
-                    logger.warn("Could not assign parcel ID: {}", parcel.getParcelId());
-                }
-            }
-            
-            for (RouteInfo route : routeMap.values()) {
-                if (!route.assignedParcels.isEmpty()) {
-                    result.routeAssignments.put(route.routeName, new ArrayList<>(route.assignedParcels));
-                    result.routeLoads.put(route.routeName, route.currentLoad);
-                    result.routeUtilization.put(route.routeName, route.getUtilizationPercentage());
-                    result.routeDistances.put(route.routeName, route.totalDistance);
-                    result.totalDistance += route.totalDistance;
-                }
+
+            OptimizationWorkingSet workingSet = buildWorkingSet(allParcels, allRoutes);
+            result.recordPhase("loading", startTime);
+
+            long phaseStart = System.currentTimeMillis();
+            int[] order = workingSet.parcelsByWeightDescending();
+
+            logger.info("Sorted {} parcels by weight", order.length);
+
+            result.assignedParcels = floodFill(workingSet, order, progress);
+            result.unassignedParcels = order.length - result.assignedParcels;
+            result.iterations = 1;
+            result.converged = true;
+            result.recordPhase("assignment", phaseStart);
+
+            if (result.unassignedParcels > 0) {
+                logger.warn("Could not assign {} parcels", result.unassignedParcels);
             }
-            
-            double totalCapacity = routeMap.values().stream()
-                .mapToDouble(r -> r.capacity)
-                .sum();
-            double totalLoad = routeMap.values().stream()
-                .mapToDouble(r -> r.currentLoad)
-                .sum();
+
+            phaseStart = System.currentTimeMillis();
+            mapRoutes(workingSet, order, result);
+            result.recordPhase("result", phaseStart);
+
+            phaseStart = System.currentTimeMillis();
+            sequenceRoutes(workingSet, result, progress);
+            result.recordPhase("sequencing", phaseStart);
+
+            double totalCapacity = workingSet.totalCapacity();
+            double totalLoad = workingSet.totalLoad();
             
             result.efficiency = totalCapacity > 0 ? (totalLoad / totalCapacity) * 100 : 0;
             result.executionTimeMs = System.currentTimeMillis() - startTime;
             result.status = String.format("✅ Successfully optimized. Assigned: %d/%d parcels | Efficiency: %.2f%%", 
                 result.assignedParcels, result.totalParcels, result.efficiency);
             
+            progress.finish();
             logger.info("Optimization complete");
             
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             result.status = "❌ Error: " + e.getMessage();
             result.executionTimeMs = System.currentTimeMillis() - startTime;
@@ -190,49 +223,76 @@ public class RouteOptimizerService {
         return result;
     }
     
-    private boolean floodFillAssignment(ParcelEntity parcel, Map<Integer, RouteInfo> routeMap) {
-        Location parcelLocation = extractLocationFromAddress(parcel.getDestinationAddress());
-        
-        if (parcelLocation == null) {
-            return false;
+    /**
+     * Loads the current parcels and routes and flood fills them, without
+     * building a result. Used by IncrementalRouteOptimizer to rebuild its
+     * state; returns null when there are no routes.
+     */
+    OptimizationWorkingSet loadFloodFilledWorkingSet() {
+        List<OptimizerParcel> allParcels = validateAndFetchParcels();
+        List<RouterEntity> allRoutes = validateAndFetchRoutes();
+        if (allRoutes.isEmpty()) {
+            return null;
         }
-        
-        RouteInfo bestRoute = null;
-        double minDistance = Double.MAX_VALUE;
-        
-        for (RouteInfo route : routeMap.values()) {
-            if (route.canAccommodate(parcel.getWeight())) {
-                double distance = route.location.distanceTo(parcelLocation);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    bestRoute = route;
-                }
+        OptimizationWorkingSet workingSet = buildWorkingSet(allParcels, allRoutes);
+        floodFill(workingSet, workingSet.parcelsByWeightDescending(), new OptimizationProgress());
+        return workingSet;
+    }
+    
+    /**
+     * Assigns parcels in {@code order} (heaviest first) to the nearest route
+     * with room. Returns the number of parcels assigned.
+     */
+    private int floodFill(OptimizationWorkingSet workingSet, int[] order, OptimizationProgress progress) {
+        if (order.length == 0) {
+            return 0;
+        }
+        double lightestWeight = workingSet.weights[order[order.length - 1]];
+        RouteSpatialIndex routeIndex = new RouteSpatialIndex(workingSet.routeLatitudes,
+            workingSet.routeLongitudes, workingSet.remainingCapacities(), lightestWeight);
+
+        progress.startPhase("Assigning", order.length);
+        int assigned = 0;
+        for (int parcel : order) {
+            progress.advance();
+            if (floodFillAssignment(workingSet, parcel, routeIndex)) {
+                assigned++;
             }
         }
-        
-        if (bestRoute != null) {
-            bestRoute.addParcel(parcel, minDistance);
-            return true;
+        return assigned;
+    }
+    
+    private boolean floodFillAssignment(OptimizationWorkingSet workingSet, int parcel, RouteSpatialIndex routeIndex) {
+        double weight = workingSet.weights[parcel];
+        if (weight <= 0) {
+            return false;
         }
         
-        for (RouteInfo route : routeMap.values()) {
-            if (route.canAccommodate(parcel.getWeight())) {
-                route.addParcel(parcel, 0);
-                return true;
-            }
+        double lat = workingSet.parcelLatitudes[parcel];
+        double lon = workingSet.parcelLongitudes[parcel];
+        int best = routeIndex.nearest(lat, lon, weight);
+        if (best < 0) {
+            return false;
         }
         
-        return false;
+        workingSet.assign(parcel, best, workingSet.depotDistance(best, parcel));
+        routeIndex.update(best, workingSet.remainingCapacity(best));
+        return true;
     }
     
     public OptimizationResult optimizeWithClustering() {
+        return optimizeWithClustering(new OptimizationProgress());
+    }
+    
+    public OptimizationResult optimizeWithClustering(OptimizationProgress progress) {
         long startTime = System.currentTimeMillis();
         OptimizationResult result = new OptimizationResult();
         
         try {
             logger.info("=== Starting Clustering Optimization ===");
             
-            List<ParcelEntity> allParcels = validateAndFetchParcels();
+            progress.startPhase("Loading", 0);
+            List<OptimizerParcel> allParcels = validateAndFetchParcels();
             List<RouterEntity> allRoutes = validateAndFetchRoutes();
             
             result.totalParcels = allParcels.size();
@@ -243,32 +303,44 @@ public class RouteOptimizerService {
                 return result;
             }
             
-            Map<String, List<ParcelEntity>> clusters = clusterParcelsByPincode(allParcels);
-            logger.info("Created {} clusters", clusters.size());
-            
-            for (String pincode : clusters.keySet()) {
-                List<ParcelEntity> pincodeParcels = clusters.get(pincode);
-                RouterEntity optimalRoute = findOptimalRoute(allRoutes, pincodeParcels);
-                
-                if (optimalRoute != null) {
-                    result.routeAssignments.put(optimalRoute.getName(), new ArrayList<>(pincodeParcels));
-                    double totalWeight = 0;
-                    for (ParcelEntity p : pincodeParcels) {
-                        totalWeight += p.getWeight();
-                    }
-                    result.routeLoads.put(optimalRoute.getName(), totalWeight);
-                    result.assignedParcels += pincodeParcels.size();
+            OptimizationWorkingSet workingSet = buildWorkingSet(allParcels, allRoutes);
+            result.recordPhase("loading", startTime);
+
+            // One capacity-bounded cluster per route, k-means++ seeded
+            CapacitatedClusteringEngine engine = new CapacitatedClusteringEngine(ForkJoinPool.commonPool(),
+                clusteringMaxIterations, clusteringTimeBudgetMs, clusteringConvergenceThreshold, clusteringSeed);
+            CapacitatedClusteringEngine.Outcome outcome = engine.run(workingSet, progress);
+            result.iterations = outcome.iterations;
+            result.converged = outcome.converged;
+            result.phaseTimingsMs.putAll(outcome.phaseTimingsMs);
+
+            for (int parcel = 0; parcel < workingSet.parcelCount; parcel++) {
+                if (workingSet.assignedRoute[parcel] != OptimizationWorkingSet.UNASSIGNED) {
+                    result.assignedParcels++;
                 } else {
-                    result.unassignedParcels += pincodeParcels.size();
+                    result.unassignedParcels++;
                 }
             }
-            
-            result.efficiency = result.totalParcels > 0 ? 
+            logger.info("Clustered {} parcels into {} routes in {} iterations (converged: {})",
+                result.assignedParcels, workingSet.routeCount, outcome.iterations, outcome.converged);
+
+            long phaseStart = System.currentTimeMillis();
+            mapRoutes(workingSet, null, result);
+            result.recordPhase("result", phaseStart);
+
+            phaseStart = System.currentTimeMillis();
+            sequenceRoutes(workingSet, result, progress);
+            result.recordPhase("sequencing", phaseStart);
+
+            result.efficiency = result.totalParcels > 0 ?
                 ((double) result.assignedParcels / result.totalParcels) * 100 : 0;
             result.executionTimeMs = System.currentTimeMillis() - startTime;
-            result.status = String.format("✅ Clustering optimization complete. Assigned: %d/%d", 
-                result.assignedParcels, result.totalParcels);
+            result.status = String.format("✅ Clustering optimization complete. Assigned: %d/%d in %d iterations",
+                result.assignedParcels, result.totalParcels, result.iterations);
+            progress.finish();
             
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             result.status = "❌ Error: " + e.getMessage();
             result.executionTimeMs = System.currentTimeMillis() - startTime;
@@ -280,16 +352,8 @@ public class RouteOptimizerService {
     
     public Map<String, Object> getOptimizationStats() {
         try {
-            long totalParcels = 0;
-            long totalRoutes = 0;
-            
-            for (ParcelEntity p : parcelRepository.findAll()) {
-                if (p != null) totalParcels++;
-            }
-            
-            for (RouterEntity r : routerRepository.findAll()) {
-                if (r != null) totalRoutes++;
-            }
+            long totalParcels = parcelRepository.count();
+            long totalRoutes = routerRepository.count();
             
             double avgParcelsPerRoute = totalRoutes > 0 ? (double) totalParcels / totalRoutes : 0;
             
@@ -311,14 +375,10 @@ public class RouteOptimizerService {
         }
     }
     
-    private List<ParcelEntity> validateAndFetchParcels() {
-        List<ParcelEntity> parcels = new ArrayList<>();
+    private List<OptimizerParcel> validateAndFetchParcels() {
+        List<OptimizerParcel> parcels = new ArrayList<>();
         try {
-            for (ParcelEntity p : parcelRepository.findAll()) {
-                if (p != null && p.getWeight() > 0) {
-                    parcels.add(p);
-                }
-            }
+            parcelRepository.streamOptimizerParcels(parcelFetchSize, parcels::add);
         } catch (Exception e) {
             logger.error("Error fetching parcels", e);
         }
@@ -339,74 +399,70 @@ public class RouteOptimizerService {
         return routes;
     }
     
-    private Map<Integer, RouteInfo> initializeRoutes(List<RouterEntity> allRoutes) {
-        Map<Integer, RouteInfo> routeMap = new HashMap<>();
-        
-        for (RouterEntity route : allRoutes) {
-            if (route != null) {
-                Location routeLoc = new Location(
-                    DEPOT_LAT + (Math.random() * 0.1 - 0.05), 
-                    DEPOT_LON + (Math.random() * 0.1 - 0.05)
-                );
-                
-                double capacity = DEFAULT_CAPACITY;
-                Double distance = route.getTotalDistance();
-                if (distance != null && distance > 0) {
-                    capacity = distance;
-               
-                
-                }
-                
-                RouteInfo info = new RouteInfo(
-                    route.getRouteId(), 
-                    route.getName(), 
-                    routeLoc, 
-                    capacity
-                );
-                routeMap.put(route.getRouteId(), info);
-            }
-        }
-        
-        return routeMap;
+    private OptimizationWorkingSet buildWorkingSet(List<OptimizerParcel> parcels, List<RouterEntity> routes) {
+        OptimizationWorkingSet workingSet = OptimizationWorkingSet.of(parcels, routes, pincodeGeocoder,
+            DEPOT_LAT, DEPOT_LON, DEFAULT_CAPACITY);
+        workingSet.attachDistanceMatrix(
+            pincodeDistanceMatrix.extend(workingSet.parcelPincodes, workingSet.routePincodes));
+        return workingSet;
     }
     
-    private Location extractLocationFromAddress(String address) {
-        if (address == null || address.isEmpty()) {
-            return new Location(DEPOT_LAT, DEPOT_LON);
+    /**
+     * Copies per-route assignments of the working set into the result. Parcels
+     * are listed in {@code order} (load order when null).
+     */
+    private void mapRoutes(OptimizationWorkingSet workingSet, int[] order, OptimizationResult result) {
+        List<List<OptimizerParcel>> routeParcels = new ArrayList<>(workingSet.routeCount);
+        for (int route = 0; route < workingSet.routeCount; route++) {
+            routeParcels.add(new ArrayList<>(workingSet.routeParcelCounts[route]));
         }
-        return new Location(
-            DEPOT_LAT + Math.random() * 0.3 - 0.15, 
-            DEPOT_LON + Math.random() * 0.3 - 0.15
-        );
-    }
-    
-    private Map<String, List<ParcelEntity>> clusterParcelsByPincode(List<ParcelEntity> parcels) {
-        Map<String, List<ParcelEntity>> clusters = new HashMap<>();
         
-        for (ParcelEntity parcel : parcels) {
-            if (parcel != null && parcel.getDestinationPincode() != null) {
-                String pincode = parcel.getDestinationPincode();
-                if (!clusters.containsKey(pincode)) {
-                    clusters.put(pincode, new ArrayList<>());
-                }
-                clusters.get(pincode).add(parcel);
+        for (int i = 0; i < workingSet.parcelCount; i++) {
+            int parcel = order != null ? order[i] : i;
+            int route = workingSet.assignedRoute[parcel];
+            if (route != OptimizationWorkingSet.UNASSIGNED) {
+                routeParcels.get(route).add(workingSet.parcels[parcel]);
             }
         }
         
-        return clusters;
-    }
-    
-    private RouterEntity findOptimalRoute(List<RouterEntity> routes, List<ParcelEntity> parcels) {
-        if (routes == null || routes.isEmpty() || parcels == null || parcels.isEmpty()) {
-            return null;
+        for (int route = 0; route < workingSet.routeCount; route++) {
+            if (workingSet.routeParcelCounts[route] == 0) {
+                continue;
+            }
+            String name = workingSet.routeNames[route];
+            double capacity = workingSet.capacities[route];
+            result.routeAssignments.put(name, routeParcels.get(route));
+            result.routeLoads.put(name, workingSet.loads[route]);
+            result.routeUtilization.put(name, capacity > 0 ? (workingSet.loads[route] / capacity) * 100 : 0);
+            result.routeDistances.put(name, workingSet.distances[route]);
+            result.totalDistance += workingSet.distances[route];
         }
-        
-        for (RouterEntity route : routes) {
-            if (route != null) {
-                return route;
+    }
+
+    /**
+     * Orders each route's parcels into a depot-to-depot tour. routeDistances
+     * stays the sum of depot-to-parcel distances; routeTourLengths is the
+     * length of the sequenced tour.
+     */
+    private void sequenceRoutes(OptimizationWorkingSet workingSet, OptimizationResult result,
+            OptimizationProgress progress) {
+        progress.startPhase("Sequencing", 0);
+        RouteSequencer sequencer = new RouteSequencer(ForkJoinPool.commonPool(), sequencingTimeBudgetMs);
+        RouteSequencer.RouteTours tours = sequencer.sequenceAll(workingSet, progress);
+
+        for (int route = 0; route < workingSet.routeCount; route++) {
+            int[] parcels = tours.parcelOrder[route];
+            if (parcels.length == 0) {
+                continue;
+            }
+            List<Integer> stopSequence = new ArrayList<>(parcels.length);
+            for (int parcel : parcels) {
+                stopSequence.add(workingSet.parcelIds[parcel]);
             }
+            String name = workingSet.routeNames[route];
+            result.routeStopSequences.put(name, stopSequence);
+            result.routeTourLengths.put(name, tours.tourLengths[route]);
+            result.totalTourLength += tours.tourLengths[route];
         }
-        
-        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,419 @@
+package com.routemasterapi.api.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Orders the stops of each route into a closed tour that starts and ends at
+ * the route depot.
+ *
+ * A nearest-neighbour tour is improved with 2-opt (reverse a section) and
+ * Or-opt (move a run of up to three stops elsewhere, optionally reversed)
+ * until no move helps or the per-route time budget is spent. Parcels sharing
+ * a location form one stop.
+ *
+ * Routes of up to {@link #MATRIX_LIMIT} stops precompute a float distance
+ * matrix and search all move pairs; larger routes compute distances on the
+ * fly and only consider moves within {@link #MATRIX_LIMIT} tour positions.
+ * The route matrix is filled from the shared {@link PincodeDistanceMatrix}
+ * where stops have a matrix index.
+ */
+final class RouteSequencer {
+
+    static final int MATRIX_LIMIT = 2000;
+
+    private static final int MAX_SEGMENT = 3;
+    private static final double EPSILON = 1e-7;
+    private static final double EARTH_DIAMETER_KM = 2 * 6371.0;
+
+    private final ForkJoinPool pool;
+    private final long timeBudgetNanos;
+
+    static final class Tour {
+        // Stop indices in visiting order, depot excluded
+        final int[] order;
+        // Closed tour length in km
+        final double length;
+
+        Tour(int[] order, double length) {
+            this.order = order;
+            this.length = length;
+        }
+    }
+
+    static final class RouteTours {
+        // Per route: parcel indices of the working set in delivery order
+        final int[][] parcelOrder;
+        final double[] tourLengths;
+
+        RouteTours(int routeCount) {
+            this.parcelOrder = new int[routeCount][];
+            this.tourLengths = new double[routeCount];
+        }
+    }
+
+    RouteSequencer(ForkJoinPool pool, long timeBudgetMs) {
+        this.pool = pool;
+        this.timeBudgetNanos = timeBudgetMs * 1_000_000;
+    }
+
+    /**
+     * Sequences every route of the working set in parallel.
+     */
+    RouteTours sequenceAll(OptimizationWorkingSet ws, OptimizationProgress progress) {
+        int[][] routeParcels = new int[ws.routeCount][];
+        int[] filled = new int[ws.routeCount];
+        for (int r = 0; r < ws.routeCount; r++) {
+            routeParcels[r] = new int[ws.routeParcelCounts[r]];
+        }
+        for (int p = 0; p < ws.parcelCount; p++) {
+            int r = ws.assignedRoute[p];
+            if (r != OptimizationWorkingSet.UNASSIGNED) {
+                routeParcels[r][filled[r]++] = p;
+            }
+        }
+
+        RouteTours tours = new RouteTours(ws.routeCount);
+        pool.invoke(new SequenceTask(ws, routeParcels, tours, progress, 0, ws.routeCount));
+        return tours;
+    }
+
+    private void sequenceRoute(OptimizationWorkingSet ws, int route, int[] parcels, RouteTours tours) {
+        if (parcels.length == 0) {
+            tours.parcelOrder[route] = parcels;
+            return;
+        }
+
+        // Group parcels by location; the geocoder yields float precision, so exact keys are safe
+        Map<Long, Integer> stopIndex = new HashMap<>();
+        int[] stopOf = new int[parcels.length];
+        double[] stopLat = new double[parcels.length];
+        double[] stopLon = new double[parcels.length];
+        int[] stopMatrixIndex = new int[parcels.length];
+        int stops = 0;
+        for (int i = 0; i < parcels.length; i++) {
+            double lat = ws.parcelLatitudes[parcels[i]];
+            double lon = ws.parcelLongitudes[parcels[i]];
+            long key = ((long) Float.floatToIntBits((float) lat) << 32) | (Float.floatToIntBits((float) lon) & 0xffffffffL);
+            Integer stop = stopIndex.get(key);
+            if (stop == null) {
+                stop = stops++;
+                stopIndex.put(key, stop);
+                stopLat[stop] = lat;
+                stopLon[stop] = lon;
+                stopMatrixIndex[stop] = ws.parcelMatrixIndex[parcels[i]];
+            }
+            stopOf[i] = stop;
+        }
+
+        Tour tour = sequence(ws.routeLatitudes[route], ws.routeLongitudes[route],
+            Arrays.copyOf(stopLat, stops), Arrays.copyOf(stopLon, stops),
+            ws.distanceMatrix(), ws.routeMatrixIndex[route], Arrays.copyOf(stopMatrixIndex, stops));
+
+        // Counting sort of parcels by stop, keeping assignment order within a stop
+        int[] stopStart = new int[stops + 1];
+        for (int stop : stopOf) {
+            stopStart[stop + 1]++;
+        }
+        for (int s = 0; s < stops; s++) {
+            stopStart[s + 1] += stopStart[s];
+        }
+        int[] byStop = new int[parcels.length];
+        int[] next = Arrays.copyOf(stopStart, stops);
+        for (int i = 0; i < parcels.length; i++) {
+            byStop[next[stopOf[i]]++] = parcels[i];
+        }
+
+        int[] ordered = new int[parcels.length];
+        int out = 0;
+        for (int stop : tour.order) {
+            for (int i = stopStart[stop]; i < stopStart[stop + 1]; i++) {
+                ordered[out++] = byStop[i];
+            }
+        }
+        tours.parcelOrder[route] = ordered;
+        tours.tourLengths[route] = tour.length;
+    }
+
+    /**
+     * Sequences one route: the closed tour from the depot through every stop.
+     */
+    Tour sequence(double depotLat, double depotLon, double[] latitudes, double[] longitudes) {
+        return sequence(depotLat, depotLon, latitudes, longitudes, null, -1, null);
+    }
+
+    /**
+     * Sequences one route, reading distances from {@code matrix} for the
+     * depot and stops with a matrix index (-1 for none).
+     */
+    Tour sequence(double depotLat, double depotLon, double[] latitudes, double[] longitudes,
+            PincodeDistanceMatrix.Snapshot matrix, int depotIndex, int[] stopIndex) {
+        int stops = latitudes.length;
+        if (stops == 0) {
+            return new Tour(new int[0], 0);
+        }
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        Distances distances = new Distances(depotLat, depotLon, latitudes, longitudes, matrix, depotIndex, stopIndex);
+
+        int[] tour = nearestNeighbourTour(depotLat, depotLon, latitudes, longitudes);
+        int[] scratch = new int[tour.length];
+        int window = Math.min(tour.length, MATRIX_LIMIT);
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(tour, distances, window, deadline);
+            improved |= orOpt(tour, distances, window, deadline, scratch);
+        }
+
+        int[] order = new int[stops];
+        double length = 0;
+        double lat = depotLat;
+        double lon = depotLon;
+        for (int i = 0; i < stops; i++) {
+            int stop = tour[i + 1] - 1;
+            order[i] = stop;
+            length += RouteOptimizerService.haversine(lat, lon, latitudes[stop], longitudes[stop]);
+            lat = latitudes[stop];
+            lon = longitudes[stop];
+        }
+        length += RouteOptimizerService.haversine(lat, lon, depotLat, depotLon);
+        return new Tour(order, length);
+    }
+
+    // Node 0 is the depot, node s + 1 is stop s
+    private static int[] nearestNeighbourTour(double depotLat, double depotLon, double[] latitudes, double[] longitudes) {
+        int stops = latitudes.length;
+        double[] unvisited = new double[stops];
+        Arrays.fill(unvisited, 1);
+        RouteSpatialIndex index = new RouteSpatialIndex(latitudes, longitudes, unvisited, 1);
+
+        int[] tour = new int[stops + 1];
+        double lat = depotLat;
+        double lon = depotLon;
+        for (int i = 1; i <= stops; i++) {
+            int stop = index.nearest(lat, lon, 1);
+            index.update(stop, 0);
+            tour[i] = stop + 1;
+            lat = latitudes[stop];
+            lon = longitudes[stop];
+        }
+        return tour;
+    }
+
+    /**
+     * One first-improvement 2-opt pass: replaces edges (a,b) and (c,d) with
+     * (a,c) and (b,d) by reversing the section between them.
+     */
+    private static boolean twoOpt(int[] tour, Distances distances, int window, long deadline) {
+        int n = tour.length;
+        boolean improved = false;
+        for (int i = 0; i < n - 2; i++) {
+            if ((i & 63) == 0 && System.nanoTime() > deadline) {
+                return improved;
+            }
+            int a = tour[i];
+            int b = tour[i + 1];
+            double ab = distances.between(a, b);
+            int last = Math.min(n - 1, i + window);
+            for (int j = i + 2; j <= last; j++) {
+                int c = tour[j];
+                int d = tour[j + 1 == n ? 0 : j + 1];
+                if (d == a) {
+                    continue;
+                }
+                double delta = distances.between(a, c) + distances.between(b, d) - ab - distances.between(c, d);
+                if (delta < -EPSILON) {
+                    reverse(tour, i + 1, j);
+                    b = tour[i + 1];
+                    ab = distances.between(a, b);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * One Or-opt pass: moves runs of 1 to {@link #MAX_SEGMENT} stops to the
+     * best edge within the window, in either direction.
+     */
+    private static boolean orOpt(int[] tour, Distances distances, int window, long deadline, int[] scratch) {
+        int n = tour.length;
+        boolean improved = false;
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            for (int i = 1; i + length <= n; i++) {
+                if ((i & 63) == 0 && System.nanoTime() > deadline) {
+                    return improved;
+                }
+                int end = i + length - 1;
+                int prev = tour[i - 1];
+                int first = tour[i];
+                int last = tour[end];
+                int next = tour[end + 1 == n ? 0 : end + 1];
+                double removalGain = distances.between(prev, first) + distances.between(last, next)
+                    - distances.between(prev, next);
+                if (removalGain <= EPSILON) {
+                    continue;
+                }
+
+                int bestEdge = -1;
+                boolean bestReversed = false;
+                double bestDelta = -EPSILON;
+                int from = Math.max(0, i - window);
+                int to = Math.min(n - 1, end + window);
+                for (int j = from; j <= to; j++) {
+                    if (j >= i - 1 && j <= end) {
+                        continue;
+                    }
+                    int a = tour[j];
+                    int b = tour[j + 1 == n ? 0 : j + 1];
+                    double ab = distances.between(a, b);
+                    double forward = distances.between(a, first) + distances.between(last, b) - ab - removalGain;
+                    double reversed = distances.between(a, last) + distances.between(first, b) - ab - removalGain;
+                    if (forward < bestDelta) {
+                        bestDelta = forward;
+                        bestEdge = j;
+                        bestReversed = false;
+                    }
+                    if (reversed < bestDelta) {
+                        bestDelta = reversed;
+                        bestEdge = j;
+                        bestReversed = true;
+                    }
+                }
+
+                if (bestEdge >= 0) {
+                    moveSegment(tour, i, length, bestEdge, bestReversed, scratch);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Moves tour[start..start+length) to just after the node currently at position edge
+    private static void moveSegment(int[] tour, int start, int length, int edge, boolean reversed, int[] scratch) {
+        int n = tour.length;
+        int out = 0;
+        for (int k = 0; k < n; k++) {
+            if (k >= start && k < start + length) {
+                continue;
+            }
+            scratch[out++] = tour[k];
+            if (k == edge) {
+                for (int s = 0; s < length; s++) {
+                    scratch[out++] = reversed ? tour[start + length - 1 - s] : tour[start + s];
+                }
+            }
+        }
+        System.arraycopy(scratch, 0, tour, 0, n);
+    }
+
+    private static void reverse(int[] tour, int from, int to) {
+        while (from < to) {
+            int swap = tour[from];
+            tour[from++] = tour[to];
+            tour[to--] = swap;
+        }
+    }
+
+    /**
+     * Great-circle distances between the depot (node 0) and the stops, from a
+     * float matrix for small routes and from unit vectors otherwise.
+     */
+    private static final class Distances {
+        private final int nodes;
+        private final double[] x;
+        private final double[] y;
+        private final double[] z;
+        private final float[] matrix;
+
+        Distances(double depotLat, double depotLon, double[] latitudes, double[] longitudes,
+                PincodeDistanceMatrix.Snapshot pincodeMatrix, int depotIndex, int[] stopIndex) {
+            nodes = latitudes.length + 1;
+            x = new double[nodes];
+            y = new double[nodes];
+            z = new double[nodes];
+            setNode(0, depotLat, depotLon);
+            for (int s = 0; s < latitudes.length; s++) {
+                setNode(s + 1, latitudes[s], longitudes[s]);
+            }
+
+            if (latitudes.length <= MATRIX_LIMIT) {
+                int[] pincodeIndex = new int[nodes];
+                Arrays.fill(pincodeIndex, -1);
+                if (pincodeMatrix != null) {
+                    pincodeIndex[0] = depotIndex;
+                    System.arraycopy(stopIndex, 0, pincodeIndex, 1, latitudes.length);
+                }
+                matrix = new float[nodes * nodes];
+                for (int a = 0; a < nodes; a++) {
+                    for (int b = a + 1; b < nodes; b++) {
+                        float d = pincodeIndex[a] >= 0 && pincodeIndex[b] >= 0
+                            ? pincodeMatrix.distance(pincodeIndex[a], pincodeIndex[b])
+                            : (float) arc(a, b);
+                        matrix[a * nodes + b] = d;
+                        matrix[b * nodes + a] = d;
+                    }
+                }
+            } else {
+                matrix = null;
+            }
+        }
+
+        private void setNode(int node, double lat, double lon) {
+            double phi = Math.toRadians(lat);
+            double lambda = Math.toRadians(lon);
+            x[node] = Math.cos(phi) * Math.cos(lambda);
+            y[node] = Math.cos(phi) * Math.sin(lambda);
+            z[node] = Math.sin(phi);
+        }
+
+        double between(int a, int b) {
+            return matrix != null ? matrix[a * nodes + b] : arc(a, b);
+        }
+
+        private double arc(int a, int b) {
+            double dx = x[a] - x[b];
+            double dy = y[a] - y[b];
+            double dz = z[a] - z[b];
+            double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            return EARTH_DIAMETER_KM * Math.asin(Math.min(1, chord / 2));
+        }
+    }
+
+    private final class SequenceTask extends RecursiveAction {
+        private final OptimizationWorkingSet ws;
+        private final int[][] routeParcels;
+        private final RouteTours tours;
+        private final OptimizationProgress progress;
+        private final int from;
+        private final int to;
+
+        SequenceTask(OptimizationWorkingSet ws, int[][] routeParcels, RouteTours tours,
+                OptimizationProgress progress, int from, int to) {
+            this.ws = ws;
+            this.routeParcels = routeParcels;
+            this.tours = tours;
+            this.progress = progress;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SequenceTask(ws, routeParcels, tours, progress, from, mid),
+                    new SequenceTask(ws, routeParcels, tours, progress, mid, to));
+                return;
+            }
+            for (int route = from; route < to; route++) {
+                progress.checkCancelled();
+                sequenceRoute(ws, route, routeParcels[route], tours);
+            }
+        }
+    }
+}
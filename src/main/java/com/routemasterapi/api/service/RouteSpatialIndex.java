@@ -0,0 +1,235 @@
+package com.routemasterapi.api.service;
+
+/**
+ * Static k-d tree over route depots answering "nearest route whose remaining
+ * capacity is at least w".
+ *
+ * Depots are projected onto the unit sphere so that the straight-line (chord)
+ * distance orders routes exactly like the haversine distance; only the chosen
+ * route needs a real haversine afterwards. Every node keeps the largest
+ * remaining capacity in its subtree, so branches that cannot take the parcel
+ * are skipped, and routes whose capacity drops below the smallest usable
+ * weight are retired from the candidate set.
+ *
+ * Not thread-safe: one instance belongs to one optimization run.
+ */
+final class RouteSpatialIndex {
+
+    private static final double RETIRED = Double.NEGATIVE_INFINITY;
+
+    private final int size;
+    private final double minUsableCapacity;
+
+    // All arrays below are indexed by tree position, except positionOf
+    private final int[] routeAt;
+    private final int[] positionOf;
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+    private final byte[] splitAxis;
+    private final double[] remaining;
+    private final double[] subtreeMax;
+
+    // Scratch state of the query in progress
+    private double qx;
+    private double qy;
+    private double qz;
+    private double qWeight;
+    private int best;
+    private double bestDistance;
+
+    /**
+     * @param latitudes depot latitudes, indexed by caller route index
+     * @param longitudes depot longitudes, indexed by caller route index
+     * @param remainingCapacity initial remaining capacity per route
+     * @param minUsableCapacity routes with less room than this are retired
+     */
+    RouteSpatialIndex(double[] latitudes, double[] longitudes, double[] remainingCapacity, double minUsableCapacity) {
+        this.size = latitudes.length;
+        this.minUsableCapacity = minUsableCapacity;
+        this.routeAt = new int[size];
+        this.positionOf = new int[size];
+        this.x = new double[size];
+        this.y = new double[size];
+        this.z = new double[size];
+        this.splitAxis = new byte[size];
+        this.remaining = new double[size];
+        this.subtreeMax = new double[size];
+
+        double[][] coords = new double[3][size];
+        for (int i = 0; i < size; i++) {
+            routeAt[i] = i;
+            double lat = Math.toRadians(latitudes[i]);
+            double lon = Math.toRadians(longitudes[i]);
+            coords[0][i] = Math.cos(lat) * Math.cos(lon);
+            coords[1][i] = Math.cos(lat) * Math.sin(lon);
+            coords[2][i] = Math.sin(lat);
+        }
+
+        build(coords, 0, size);
+
+        for (int pos = 0; pos < size; pos++) {
+            int route = routeAt[pos];
+            positionOf[route] = pos;
+            x[pos] = coords[0][route];
+            y[pos] = coords[1][route];
+            z[pos] = coords[2][route];
+            remaining[pos] = usable(remainingCapacity[route]);
+        }
+        refreshAll(0, size);
+    }
+
+    /**
+     * Returns the caller index of the nearest route that can still take
+     * {@code weight}, or -1 when no route has enough room.
+     */
+    int nearest(double latitude, double longitude, double weight) {
+        if (size == 0 || subtreeMax[size >>> 1] < weight) {
+            return -1;
+        }
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        qx = Math.cos(lat) * Math.cos(lon);
+        qy = Math.cos(lat) * Math.sin(lon);
+        qz = Math.sin(lat);
+        qWeight = weight;
+        best = -1;
+        bestDistance = Double.POSITIVE_INFINITY;
+        search(0, size);
+        return best >= 0 ? routeAt[best] : -1;
+    }
+
+    /**
+     * Records the new remaining capacity of a route after a parcel was
+     * assigned to (or removed from) it.
+     */
+    void update(int route, double remainingCapacity) {
+        int pos = positionOf[route];
+        remaining[pos] = usable(remainingCapacity);
+        refreshPath(0, size, pos);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private double usable(double capacity) {
+        return capacity > 0 && capacity >= minUsableCapacity ? capacity : RETIRED;
+    }
+
+    private void search(int lo, int hi) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (subtreeMax[mid] < qWeight) {
+            return;
+        }
+
+        double dx = qx - x[mid];
+        double dy = qy - y[mid];
+        double dz = qz - z[mid];
+        if (remaining[mid] >= qWeight) {
+            double d = dx * dx + dy * dy + dz * dz;
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = mid;
+            }
+        }
+
+        double diff = splitAxis[mid] == 0 ? dx : splitAxis[mid] == 1 ? dy : dz;
+        if (diff < 0) {
+            search(lo, mid);
+            if (diff * diff < bestDistance) {
+                search(mid + 1, hi);
+            }
+        } else {
+            search(mid + 1, hi);
+            if (diff * diff < bestDistance) {
+                search(lo, mid);
+            }
+        }
+    }
+
+    private void build(double[][] coords, int lo, int hi) {
+        if (hi - lo <= 0) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int axis = widestAxis(coords, lo, hi);
+        select(coords[axis], lo, hi - 1, mid);
+        splitAxis[mid] = (byte) axis;
+        build(coords, lo, mid);
+        build(coords, mid + 1, hi);
+    }
+
+    private int widestAxis(double[][] coords, int lo, int hi) {
+        int axis = 0;
+        double widest = -1;
+        for (int a = 0; a < 3; a++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double v = coords[a][routeAt[i]];
+                if (v < min) min = v;
+                if (v > max) max = v;
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                axis = a;
+            }
+        }
+        return axis;
+    }
+
+    // Quickselect on routeAt[lo..hi] so that position k holds the median along the axis
+    private void select(double[] key, int lo, int hi, int k) {
+        while (lo < hi) {
+            double pivot = key[routeAt[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (key[routeAt[i]] < pivot) i++;
+                while (key[routeAt[j]] > pivot) j--;
+                if (i <= j) {
+                    int tmp = routeAt[i];
+                    routeAt[i] = routeAt[j];
+                    routeAt[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double refreshAll(int lo, int hi) {
+        if (lo >= hi) {
+            return RETIRED;
+        }
+        int mid = (lo + hi) >>> 1;
+        double max = Math.max(remaining[mid], Math.max(refreshAll(lo, mid), refreshAll(mid + 1, hi)));
+        subtreeMax[mid] = max;
+        return max;
+    }
+
+    private void refreshPath(int lo, int hi, int pos) {
+        int mid = (lo + hi) >>> 1;
+        if (pos < mid) {
+            refreshPath(lo, mid, pos);
+        } else if (pos > mid) {
+            refreshPath(mid + 1, hi, pos);
+        }
+        subtreeMax[mid] = Math.max(remaining[mid], Math.max(maxOf(lo, mid), maxOf(mid + 1, hi)));
+    }
+
+    private double maxOf(int lo, int hi) {
+        return lo < hi ? subtreeMax[(lo + hi) >>> 1] : RETIRED;
+    }
+}
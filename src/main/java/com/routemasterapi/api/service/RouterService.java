@@ -1,12 +1,15 @@
 package com.routemasterapi.api.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import com.routemasterapi.api.entity.RouterEntity;
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.RouteChangeEvent;
 import com.routemasterapi.api.model.RouterIdRequest;
 import com.routemasterapi.api.model.RouterRequestBody;
 import com.routemasterapi.api.repositories.RouterRepository;
@@ -15,6 +18,8 @@ import com.routemasterapi.api.repositories.RouterRepository;
 public class RouterService {
 	@Autowired
 	private RouterRepository Routerrepository;
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
 
 	
 
@@ -25,7 +30,9 @@ public class RouterService {
 		newRouter.setName(RouterReqBody.getName());
 		newRouter.setDescription(RouterReqBody.getDescription());
 		newRouter.setTotalDistance(RouterReqBody.getTotalDistance());
-		return Routerrepository.save(newRouter);		 
+		RouterEntity saved = Routerrepository.save(newRouter);
+		eventPublisher.publishEvent(new RouteChangeEvent(this, ChangeType.CREATED, saved.getRouteId()));
+		return saved;
 	}
 
 	public RouterEntity updateRouter(RouterRequestBody RouterReqBody) {
@@ -35,7 +42,9 @@ public class RouterService {
 		newRouter.setDescription(RouterReqBody.getDescription());
 		newRouter.setTotalDistance(RouterReqBody.getTotalDistance());
 		newRouter.setRouteId(RouterReqBody.getRouteId());
-		return Routerrepository.save(newRouter);		 
+		RouterEntity saved = Routerrepository.save(newRouter);
+		eventPublisher.publishEvent(new RouteChangeEvent(this, ChangeType.UPDATED, saved.getRouteId()));
+		return saved;
 	}
 
 	public Page<RouterEntity> listAllrouterfromdb(int pageNumber, int size) {
@@ -46,6 +55,7 @@ public class RouterService {
 	public String deleteRouter(RouterIdRequest RouterIdReq) {
 		int routeId= RouterIdReq.getRouteId();
 		Routerrepository.deleteById(routeId);
+		eventPublisher.publishEvent(new RouteChangeEvent(this, ChangeType.DELETED, routeId));
 		return "Record Deleted";
 	}
 
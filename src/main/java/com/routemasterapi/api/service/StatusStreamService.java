@@ -0,0 +1,450 @@
+package com.routemasterapi.api.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.ParcelChangeEvent;
+import com.routemasterapi.api.event.ParcelsImportedEvent;
+import com.routemasterapi.api.event.TrackingChangeEvent;
+import com.routemasterapi.api.model.TrackingState;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes parcel status changes and new tracking rows to SSE subscribers, each
+ * filtered by parcel ids and/or a customer id.
+ *
+ * Publishers never write to a connection: an event is serialized once and
+ * offered to the buffer of every matching subscriber, and a small sender pool
+ * drains each buffer (one drain at a time per subscriber). A buffer holds at
+ * most buffer-size events and keeps only the newest event per parcel and kind;
+ * when it is full of distinct parcels the oldest event is dropped and the
+ * subscriber gets a "resync" event telling it to reload.
+ *
+ * Customer filters need the owner of a tracked parcel, which is looked up in
+ * one query per batch and remembered; only parcel status changes that really
+ * change the status are sent.
+ */
+@Service
+public class StatusStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatusStreamService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${routemaster.stream.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${routemaster.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${routemaster.stream.sender-threads:4}")
+    private int senderThreads;
+
+    // Clients reconnect after this; 0 means no timeout
+    @Value("${routemaster.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${routemaster.stream.customer-cache-size:100000}")
+    private int customerCacheSize;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, Set<Subscriber>> byParcel = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Subscriber>> byCustomer = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> customerByParcel = new ConcurrentHashMap<>();
+    private final AtomicLong nextEventId = new AtomicLong();
+    private ThreadPoolExecutor sender;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejectedSubscribers = new AtomicLong();
+
+    private static final class StreamEvent {
+        final String key;
+        final long id;
+        final String name;
+        final String json;
+
+        StreamEvent(String key, long id, String name, String json) {
+            this.key = key;
+            this.id = id;
+            this.name = name;
+            this.json = json;
+        }
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final Set<Integer> parcelIds;
+        final Integer customerId;
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        // Guarded by this
+        private final LinkedHashMap<String, StreamEvent> buffer = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean heartbeat;
+
+        Subscriber(SseEmitter emitter, Set<Integer> parcelIds, Integer customerId) {
+            this.emitter = emitter;
+            this.parcelIds = parcelIds;
+            this.customerId = customerId;
+        }
+
+        void offer(StreamEvent event) {
+            synchronized (this) {
+                if (buffer.remove(event.key) != null) {
+                    coalesced.incrementAndGet();
+                } else if (buffer.size() >= bufferSize) {
+                    Iterator<StreamEvent> oldest = buffer.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    overflowed = true;
+                    dropped.incrementAndGet();
+                }
+                buffer.put(event.key, event);
+            }
+            scheduleDrain();
+        }
+
+        void ping() {
+            synchronized (this) {
+                heartbeat = true;
+            }
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (closed || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Picked up again by the next event or heartbeat
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    List<StreamEvent> events;
+                    boolean resync;
+                    boolean ping;
+                    synchronized (this) {
+                        if (buffer.isEmpty() && !overflowed && !heartbeat) {
+                            break;
+                        }
+                        events = new ArrayList<>(buffer.values());
+                        buffer.clear();
+                        resync = overflowed;
+                        ping = heartbeat && events.isEmpty() && !resync;
+                        overflowed = false;
+                        heartbeat = false;
+                    }
+                    if (resync) {
+                        emitter.send(SseEmitter.event().name("resync").data("{}"));
+                    }
+                    for (StreamEvent event : events) {
+                        emitter.send(SseEmitter.event().id(Long.toString(event.id)).name(event.name).data(event.json));
+                        delivered.incrementAndGet();
+                    }
+                    if (ping) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                unsubscribe(this);
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            boolean pending;
+            synchronized (this) {
+                pending = !buffer.isEmpty() || overflowed;
+            }
+            if (pending) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(maxSubscribers, 1)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "status-stream");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+        }
+        sender.shutdownNow();
+    }
+
+    /**
+     * Opens a stream of the changes of the given parcels and of the parcels
+     * of the given customer.
+     *
+     * @throws RejectedExecutionException when max-subscribers streams are open
+     */
+    public SseEmitter subscribe(Collection<Integer> parcelIds, Integer customerId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(parcelIds), customerId);
+        synchronized (subscribers) {
+            if (subscribers.size() >= maxSubscribers) {
+                rejectedSubscribers.incrementAndGet();
+                throw new RejectedExecutionException("Too many open status streams");
+            }
+            subscribers.add(subscriber);
+        }
+        for (Integer parcelId : subscriber.parcelIds) {
+            byParcel.computeIfAbsent(parcelId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        if (customerId != null) {
+            byCustomer.computeIfAbsent(customerId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        // Commits the response so the client sees the stream is open
+        subscriber.ping();
+        return emitter;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("maxSubscribers", maxSubscribers);
+        stats.put("bufferSize", bufferSize);
+        stats.put("published", published.get());
+        stats.put("delivered", delivered.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("dropped", dropped.get());
+        stats.put("rejectedSubscribers", rejectedSubscribers.get());
+        stats.put("senderQueue", sender.getQueue().size());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${routemaster.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.ping();
+        }
+    }
+
+    @EventListener
+    public void onTrackingChange(TrackingChangeEvent event) {
+        if (subscribers.isEmpty() || event.getType() == ChangeType.DELETED) {
+            return;
+        }
+        Map<Integer, Integer> customers = Collections.emptyMap();
+        if (!byCustomer.isEmpty()) {
+            List<Integer> parcelIds = new ArrayList<>(event.getStates().size());
+            for (TrackingState state : event.getStates()) {
+                parcelIds.add(state.getParcelId());
+            }
+            customers = customersOf(parcelIds);
+        }
+        for (TrackingState state : event.getStates()) {
+            Integer customerId = customers.get(state.getParcelId());
+            List<Subscriber> recipients = recipients(state.getParcelId(), customerId);
+            if (recipients.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("parcelId", state.getParcelId());
+            payload.put("customerId", customerId);
+            payload.put("change", event.getType().name());
+            payload.put("tracking", state);
+            fanOut("tracking:" + state.getParcelId(), "tracking", payload, recipients);
+        }
+    }
+
+    @EventListener
+    public void onParcelChange(ParcelChangeEvent event) {
+        Integer customerId = event.getCustomerId();
+        if (event.getType() == ChangeType.DELETED) {
+            customerByParcel.remove(event.getParcelId());
+        } else if (customerId != null) {
+            customerByParcel.put(event.getParcelId(), customerId);
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        if (event.getType() == ChangeType.UPDATED && Objects.equals(event.getBeforeStatus(), event.getAfterStatus())) {
+            return;
+        }
+        List<Subscriber> recipients = recipients(event.getParcelId(), customerId);
+        if (recipients.isEmpty()) {
+            return;
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("parcelId", event.getParcelId());
+        payload.put("customerId", customerId);
+        payload.put("change", event.getType().name());
+        payload.put("parcelStatus", event.getAfterStatus());
+        payload.put("previousStatus", event.getBeforeStatus());
+        fanOut("parcel:" + event.getParcelId(), "parcel", payload, recipients);
+    }
+
+    // Each imported parcel is sent like a single create
+    @EventListener
+    public void onParcelsImported(ParcelsImportedEvent event) {
+        List<Integer> customerIds = event.getCustomerIds();
+        for (int i = 0; i < event.getParcels().size(); i++) {
+            int parcelId = event.getParcels().get(i).getParcelId();
+            Integer customerId = customerIds.get(i);
+            if (customerId != null && customerByParcel.size() < customerCacheSize) {
+                customerByParcel.put(parcelId, customerId);
+            }
+            if (subscribers.isEmpty()) {
+                continue;
+            }
+            List<Subscriber> recipients = recipients(parcelId, customerId);
+            if (recipients.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("parcelId", parcelId);
+            payload.put("customerId", customerId);
+            payload.put("change", ChangeType.CREATED.name());
+            payload.put("parcelStatus", event.getParcelStatuses().get(i));
+            payload.put("previousStatus", null);
+            fanOut("parcel:" + parcelId, "parcel", payload, recipients);
+        }
+    }
+
+    private void fanOut(String key, String name, Map<String, Object> payload, List<Subscriber> recipients) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to serialize {} event for {}", name, key, e);
+            return;
+        }
+        published.incrementAndGet();
+        StreamEvent streamEvent = new StreamEvent(key, nextEventId.incrementAndGet(), name, json);
+        for (Subscriber subscriber : recipients) {
+            subscriber.offer(streamEvent);
+        }
+    }
+
+    // Subscribers of the parcel or of its customer, each once
+    private List<Subscriber> recipients(int parcelId, Integer customerId) {
+        Set<Subscriber> ofParcel = byParcel.get(parcelId);
+        Set<Subscriber> ofCustomer = customerId != null ? byCustomer.get(customerId) : null;
+        if (ofParcel == null && ofCustomer == null) {
+            return Collections.emptyList();
+        }
+        List<Subscriber> recipients = new ArrayList<>();
+        if (ofParcel != null) {
+            recipients.addAll(ofParcel);
+        }
+        if (ofCustomer != null) {
+            for (Subscriber subscriber : ofCustomer) {
+                if (!subscriber.parcelIds.contains(parcelId)) {
+                    recipients.add(subscriber);
+                }
+            }
+        }
+        return recipients;
+    }
+
+    private Map<Integer, Integer> customersOf(List<Integer> parcelIds) {
+        Map<Integer, Integer> customers = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer parcelId : parcelIds) {
+            Integer customerId = customerByParcel.get(parcelId);
+            if (customerId != null) {
+                customers.put(parcelId, customerId);
+            } else if (!customers.containsKey(parcelId)) {
+                customers.put(parcelId, null);
+                missing.add(parcelId);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += 500) {
+            List<Integer> chunk = missing.subList(from, Math.min(from + 500, missing.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            try {
+                jdbcTemplate.query("SELECT parcelid, customerid FROM ayush_parcel WHERE customerid IS NOT NULL AND parcelid IN ("
+                    + placeholders + ")", rs -> {
+                        int parcelId = rs.getInt(1);
+                        int customerId = rs.getInt(2);
+                        customers.put(parcelId, customerId);
+                        if (customerByParcel.size() < customerCacheSize) {
+                            customerByParcel.put(parcelId, customerId);
+                        }
+                    }, chunk.toArray());
+            } catch (Exception e) {
+                logger.error("Failed to look up the customers of {} parcels", chunk.size(), e);
+            }
+        }
+        return customers;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (Integer parcelId : subscriber.parcelIds) {
+            byParcel.computeIfPresent(parcelId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        if (subscriber.customerId != null) {
+            byCustomer.computeIfPresent(subscriber.customerId, (id, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.routemasterapi.api.service;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -9,8 +16,11 @@ import org.springframework.stereotype.Service;
 import com.routemasterapi.api.entity.EmployeeEntity;
 import com.routemasterapi.api.entity.ParcelEntity;
 import com.routemasterapi.api.entity.TrackParcelEntity;
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.TrackingChangeEvent;
 import com.routemasterapi.api.model.TrackParcelIdRequest;
 import com.routemasterapi.api.model.TrackParcelRequestBody;
+import com.routemasterapi.api.model.TrackingState;
 import com.routemasterapi.api.repositories.EmployeeRepositories;
 import com.routemasterapi.api.repositories.ParcelRepository;
 import com.routemasterapi.api.repositories.TrackParcelRepository;
@@ -27,6 +37,12 @@ public class TrackParcelService {
     @Autowired
     private EmployeeRepositories employeeRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TrackingArchiveService trackingArchiveService;
+
     // ✅ CREATE - Create tracking entry
     public TrackParcelEntity createParcel(TrackParcelRequestBody trackParcelReqBody) {
         // Validate parcel exists
@@ -45,8 +61,11 @@ public class TrackParcelService {
         newTrackParcel.setStatus(trackParcelReqBody.getStatus());
         newTrackParcel.setApprovalStatus(trackParcelReqBody.getApprovalStatus());
         newTrackParcel.setNotes(trackParcelReqBody.getNotes());
+        newTrackParcel.setTimestamp(new Date());
         
-        return trackParcelRepository.save(newTrackParcel);
+        TrackParcelEntity saved = trackParcelRepository.save(newTrackParcel);
+        publish(ChangeType.CREATED, TrackingState.from(saved));
+        return saved;
     }
 
     // ✅ UPDATE - Update tracking entry
@@ -69,21 +88,74 @@ public class TrackParcelService {
         updatedTrackParcel.setApprovalStatus(trackParcelReqBody.getApprovalStatus());
         updatedTrackParcel.setNotes(trackParcelReqBody.getNotes());
         
-        return trackParcelRepository.save(updatedTrackParcel);
+        // Copied before saving: the merge writes into the loaded entity
+        TrackingState before = trackParcelRepository.findById(trackParcelReqBody.getTrackId())
+            .map(TrackingState::from).orElse(null);
+        TrackParcelEntity saved = trackParcelRepository.save(updatedTrackParcel);
+        if (before != null && before.getParcelId() != parcel.getParcelId()) {
+            // Moved to another parcel: it may have been the old parcel's latest row
+            publish(ChangeType.DELETED, before);
+        }
+        publish(ChangeType.UPDATED, TrackingState.from(saved));
+        return saved;
     }
 
-    // ✅ READ - Get all tracking records
+    // ✅ READ - Get tracking records of the hot window (older ones are only read for a range)
     public Page<TrackParcelEntity> listAllparcelfromdb(int pageNumber, int size) {
         Pageable pageable = PageRequest.of(pageNumber, size);
-        return trackParcelRepository.listalltrackparcelsfromdb(pageable);
+        return trackParcelRepository.listhottrackparcelsfromdb(trackingArchiveService.hotSince(), pageable);
+    }
+
+    // ✅ READ - Get tracking records from the from date to the to date (both inclusive) that are not archived
+    public Page<TrackParcelEntity> listparcelsbetween(LocalDate from, LocalDate to, int pageNumber, int size) {
+        Pageable pageable = PageRequest.of(pageNumber, size);
+        return trackParcelRepository.listtrackparcelsbetween(startOf(from), endOf(to), pageable);
+    }
+
+    // ✅ READ - History of one parcel, oldest first; archived entries only when a date range is given
+    public List<TrackingState> listparcelhistory(int parcelId, LocalDate from, LocalDate to) {
+        boolean ranged = from != null || to != null;
+        Date start = startOf(from);
+        Date end = endOf(to);
+        List<TrackingState> history = new ArrayList<>();
+        for (TrackParcelEntity track : trackParcelRepository.listparceltrackparcels(parcelId)) {
+            Date timestamp = track.getTimestamp();
+            if (!ranged || (timestamp != null && !timestamp.before(start) && timestamp.before(end))) {
+                history.add(TrackingState.from(track));
+            }
+        }
+        if (ranged) {
+            history.addAll(trackingArchiveService.readArchived(parcelId, start, end));
+            history.sort(Comparator.comparingInt(TrackingState::getTrackId));
+        }
+        return history;
     }
 
     // ✅ DELETE - Delete tracking entry
     public String deleteparcel(TrackParcelIdRequest trackIdReq) {
         int trackId = trackIdReq.getTrackId();
+        TrackingState before = trackParcelRepository.findById(trackId).map(TrackingState::from).orElse(null);
         trackParcelRepository.deleteById(trackId);
+        if (before != null) {
+            publish(ChangeType.DELETED, before);
+        }
         return "Record Deleted";
     }
+
+    // Open ends of a date range reach back to the epoch and up to tomorrow
+    private static Date startOf(LocalDate from) {
+        LocalDate day = from != null ? from : LocalDate.EPOCH;
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Date endOf(LocalDate to) {
+        LocalDate day = to != null ? to : LocalDate.now();
+        return Date.from(day.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private void publish(ChangeType type, TrackingState state) {
+        eventPublisher.publishEvent(new TrackingChangeEvent(this, type, List.of(state)));
+    }
 }
 
 
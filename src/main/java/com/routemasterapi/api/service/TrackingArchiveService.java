@@ -0,0 +1,296 @@
+package com.routemasterapi.api.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.routemasterapi.api.model.TrackingState;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Lifecycle of the tracking history: ayush_track_parcel holds the hot window
+ * (the last hot-days days), and delivered parcels whose latest tracking entry
+ * is older than that are moved to ayush_track_parcel_archive, one gzip-compressed
+ * row per parcel. Listings only read the hot window unless a range is asked for.
+ *
+ * MySQL cannot partition ayush_track_parcel by timestamp while it has foreign
+ * keys, so the hot table is kept small by moving rows out instead.
+ *
+ * Candidates come from parcel_tracking_state (latest entry per parcel), so a
+ * run does not scan the history. Each chunk deletes exactly the rows it read
+ * and writes their archives in one transaction; when another writer removed
+ * some of them first the chunk is rolled back and the run stops. The latest
+ * tracking state of an archived parcel stays in parcel_tracking_state.
+ */
+@Service
+public class TrackingArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingArchiveService.class);
+
+    private static final String CANDIDATES_SQL = "SELECT s.parcel_id FROM parcel_tracking_state s "
+        + "JOIN ayush_parcel p ON p.parcelid = s.parcel_id "
+        + "WHERE p.parcel_status = 'DELIVERED' AND s.timestamp < ? "
+        + "AND EXISTS (SELECT 1 FROM ayush_track_parcel t WHERE t.parcelid = s.parcel_id) LIMIT ?";
+
+    private static final String ROWS_SQL = "SELECT parcelid, trackid, employeeid, location, status, approval_status, "
+        + "timestamp, notes FROM ayush_track_parcel WHERE parcelid IN (%s) ORDER BY parcelid, trackid";
+
+    private static final String DELETE_SQL = "DELETE FROM ayush_track_parcel WHERE trackid IN (%s)";
+
+    private static final String INSERT_SQL = "INSERT INTO ayush_track_parcel_archive "
+        + "(parcel_id, first_track_id, last_track_id, event_count, first_timestamp, last_timestamp, archived_at, events) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ARCHIVED_SQL = "SELECT events FROM ayush_track_parcel_archive WHERE parcel_id = ? "
+        + "AND (last_timestamp IS NULL OR last_timestamp >= ?) AND (first_timestamp IS NULL OR first_timestamp < ?) "
+        + "ORDER BY first_track_id";
+
+    private static final TypeReference<List<TrackingState>> STATE_LIST = new TypeReference<>() { };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${routemaster.tracking.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${routemaster.tracking.history.hot-days:90}")
+    private int hotDays;
+
+    // Parcels per transaction
+    @Value("${routemaster.tracking.archive.batch-parcels:200}")
+    private int batchParcels;
+
+    @Value("${routemaster.tracking.archive.max-parcels-per-run:20000}")
+    private int maxParcelsPerRun;
+
+    private TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong archivedParcels = new AtomicLong();
+    private final AtomicLong archivedRows = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private volatile long lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile int lastRunParcels;
+    private volatile String lastError;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Start of the hot window: entries older than this are only read for an explicit range.
+     */
+    public Date hotSince() {
+        return new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(hotDays));
+    }
+
+    /**
+     * Archived entries of the parcel with a timestamp in [from, to), oldest first.
+     */
+    public List<TrackingState> readArchived(int parcelId, Date from, Date to) {
+        List<byte[]> archives = jdbcTemplate.query(ARCHIVED_SQL, (rs, rowNum) -> rs.getBytes(1),
+            parcelId, new Timestamp(from.getTime()), new Timestamp(to.getTime()));
+        List<TrackingState> states = new ArrayList<>();
+        for (byte[] archive : archives) {
+            for (TrackingState state : decompress(archive)) {
+                Date timestamp = state.getTimestamp();
+                if (timestamp != null && !timestamp.before(from) && timestamp.before(to)) {
+                    states.add(state);
+                }
+            }
+        }
+        return states;
+    }
+
+    @Scheduled(initialDelayString = "${routemaster.tracking.archive.interval-ms:3600000}",
+        fixedDelayString = "${routemaster.tracking.archive.interval-ms:3600000}")
+    public void archive() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        int parcels = 0;
+        int rows = 0;
+        try {
+            Timestamp cutoff = new Timestamp(hotSince().getTime());
+            while (parcels < maxParcelsPerRun) {
+                List<Integer> parcelIds = jdbcTemplate.queryForList(CANDIDATES_SQL, Integer.class, cutoff,
+                    Math.min(batchParcels, maxParcelsPerRun - parcels));
+                if (parcelIds.isEmpty()) {
+                    break;
+                }
+                // { rows, raw bytes, compressed bytes } of the committed chunk
+                long[] moved = transactionTemplate.execute(tx -> archiveParcels(parcelIds));
+                archivedParcels.addAndGet(parcelIds.size());
+                archivedRows.addAndGet(moved[0]);
+                rawBytes.addAndGet(moved[1]);
+                compressedBytes.addAndGet(moved[2]);
+                rows += (int) moved[0];
+                parcels += parcelIds.size();
+            }
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            logger.error("Tracking archive run stopped after {} parcels", parcels, e);
+        } finally {
+            lastRunAt = startTime;
+            lastRunMillis = System.currentTimeMillis() - startTime;
+            lastRunParcels = parcels;
+            running.set(false);
+        }
+        if (parcels > 0) {
+            logger.info("Archived {} tracking entries of {} delivered parcels in {} ms", rows, parcels, lastRunMillis);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        long raw = rawBytes.get();
+        status.put("enabled", enabled);
+        status.put("hotDays", hotDays);
+        status.put("hotSince", hotSince());
+        status.put("running", running.get());
+        status.put("archivedParcels", archivedParcels.get());
+        status.put("archivedRows", archivedRows.get());
+        status.put("rawBytes", raw);
+        status.put("compressedBytes", compressedBytes.get());
+        status.put("compressionRatio", raw > 0 ? (double) compressedBytes.get() / raw : null);
+        status.put("lastRunAt", lastRunAt > 0 ? new Date(lastRunAt) : null);
+        status.put("lastRunMillis", lastRunMillis);
+        status.put("lastRunParcels", lastRunParcels);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    // Runs inside the chunk's transaction
+    private long[] archiveParcels(List<Integer> parcelIds) {
+        Map<Integer, List<TrackingState>> histories = new LinkedHashMap<>();
+        jdbcTemplate.query(String.format(ROWS_SQL, placeholders(parcelIds.size())), rs -> {
+            TrackingState state = mapState(rs);
+            histories.computeIfAbsent(state.getParcelId(), id -> new ArrayList<>()).add(state);
+        }, parcelIds.toArray());
+
+        List<Integer> trackIds = new ArrayList<>();
+        histories.values().forEach(history -> history.forEach(state -> trackIds.add(state.getTrackId())));
+        int deleted = 0;
+        for (int from = 0; from < trackIds.size(); from += 500) {
+            List<Integer> chunk = trackIds.subList(from, Math.min(from + 500, trackIds.size()));
+            deleted += jdbcTemplate.update(String.format(DELETE_SQL, placeholders(chunk.size())), chunk.toArray());
+        }
+        if (deleted != trackIds.size()) {
+            throw new IllegalStateException("Tracking rows of " + parcelIds.size()
+                + " parcels changed while archiving them (" + deleted + " of " + trackIds.size() + " deleted)");
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> archives = new ArrayList<>(histories.size());
+        long raw = 0;
+        long compressed = 0;
+        for (List<TrackingState> history : histories.values()) {
+            byte[] json = serialize(history);
+            byte[] events = compress(json);
+            raw += json.length;
+            compressed += events.length;
+            TrackingState first = history.get(0);
+            TrackingState last = history.get(history.size() - 1);
+            archives.add(new Object[] { first.getParcelId(), first.getTrackId(), last.getTrackId(), history.size(),
+                firstTimestamp(history), lastTimestamp(history), now, events });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, archives);
+        return new long[] { trackIds.size(), raw, compressed };
+    }
+
+    private byte[] serialize(List<TrackingState> history) {
+        try {
+            return objectMapper.writeValueAsBytes(history);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private List<TrackingState> decompress(byte[] events) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(events))) {
+            return objectMapper.readValue(gzip, STATE_LIST);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Timestamp firstTimestamp(List<TrackingState> history) {
+        Date first = null;
+        for (TrackingState state : history) {
+            if (state.getTimestamp() != null && (first == null || state.getTimestamp().before(first))) {
+                first = state.getTimestamp();
+            }
+        }
+        return first != null ? new Timestamp(first.getTime()) : null;
+    }
+
+    private static Timestamp lastTimestamp(List<TrackingState> history) {
+        Date last = null;
+        for (TrackingState state : history) {
+            if (state.getTimestamp() != null && (last == null || state.getTimestamp().after(last))) {
+                last = state.getTimestamp();
+            }
+        }
+        return last != null ? new Timestamp(last.getTime()) : null;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
+    private static TrackingState mapState(ResultSet rs) throws SQLException {
+        int employeeId = rs.getInt(3);
+        Integer employee = rs.wasNull() ? null : employeeId;
+        return new TrackingState(rs.getInt(1), rs.getInt(2), employee, rs.getString(4), rs.getString(5),
+            rs.getString(6), rs.getTimestamp(7), rs.getString(8));
+    }
+}
@@ -0,0 +1,459 @@
+package com.routemasterapi.api.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.routemasterapi.api.event.ChangeType;
+import com.routemasterapi.api.event.TrackingChangeEvent;
+import com.routemasterapi.api.model.TrackParcelRequestBody;
+import com.routemasterapi.api.model.TrackingState;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bulk path for tracking scans: events are validated against ReferenceIdCache,
+ * numbered and queued, and one writer thread inserts them in JDBC batches of
+ * up to batch-size rows, one transaction per batch.
+ *
+ * Sequence numbers are assigned in queue order and the writer commits in that
+ * order, so "durable sequence N" means every accepted event up to N has been
+ * committed (or permanently failed, e.g. its parcel was deleted meanwhile).
+ * Callers either wait for their last sequence to become durable or take the
+ * sequences and poll {@link #getStatus()}.
+ *
+ * The queue is bounded by queue-capacity events; a request that does not fit
+ * is rejected as a whole. A batch that fails on a constraint is retried row by
+ * row to isolate the bad rows; any other failure (database down) is retried
+ * after retry-backoff-ms while the queue fills up. Events still queued when
+ * the shutdown drain times out are lost, which is why only durable sequences
+ * are acknowledged.
+ *
+ * The rows of each batch are published as one TrackingChangeEvent before the
+ * batch counts as durable.
+ */
+@Service
+public class TrackingIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingIngestionService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO ayush_track_parcel "
+        + "(parcelid, employeeid, location, status, approval_status, timestamp, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReferenceIdCache referenceIdCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${routemaster.tracking.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${routemaster.tracking.ingest.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${routemaster.tracking.ingest.max-request-events:10000}")
+    private int maxRequestEvents;
+
+    // How long the writer waits for a batch to fill before writing what it has
+    @Value("${routemaster.tracking.ingest.linger-ms:20}")
+    private long lingerMs;
+
+    @Value("${routemaster.tracking.ingest.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    // How long a bulk request waits for its events to become durable before answering 202
+    @Value("${routemaster.tracking.ingest.ack-timeout-ms:10000}")
+    private long ackTimeoutMs;
+
+    @Value("${routemaster.tracking.ingest.shutdown-drain-ms:10000}")
+    private long shutdownDrainMs;
+
+    private final LinkedBlockingQueue<TrackingEvent> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object enqueueLock = new Object();
+    private long nextSequence = 1;
+
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile long durableSequence;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejectedInvalid = new AtomicLong();
+    private final AtomicLong rejectedFull = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private volatile long lastBatchSize;
+    private volatile long lastBatchMillis;
+
+    private static final class TrackingEvent {
+        final long sequence;
+        final int parcelId;
+        final int employeeId;
+        final String location;
+        final String status;
+        final String approvalStatus;
+        final String notes;
+        final Timestamp timestamp;
+        final Receipt receipt;
+
+        TrackingEvent(long sequence, TrackParcelRequestBody body, Timestamp timestamp, Receipt receipt) {
+            this.sequence = sequence;
+            this.parcelId = body.getParcelId();
+            this.employeeId = body.getEmpId();
+            this.location = body.getLocation();
+            this.status = body.getStatus();
+            this.approvalStatus = body.getApprovalStatus();
+            this.notes = body.getNotes();
+            this.timestamp = timestamp;
+            this.receipt = receipt;
+        }
+
+        TrackingState toState(int trackId) {
+            return new TrackingState(parcelId, trackId, employeeId, location, status, approvalStatus, timestamp, notes);
+        }
+    }
+
+    /**
+     * Outcome of one submission. {@link #getDurable()} completes with the
+     * number of accepted events that failed to write once all of them were
+     * processed.
+     */
+    public static final class Receipt {
+        private final List<Map<String, Object>> rejected = new ArrayList<>();
+        private final CompletableFuture<Integer> durable = new CompletableFuture<>();
+        private final AtomicInteger remaining = new AtomicInteger();
+        private final AtomicInteger failedEvents = new AtomicInteger();
+        private int acceptedEvents;
+        private long firstSequence = -1;
+        private long lastSequence = -1;
+
+        public int getAccepted() {
+            return acceptedEvents;
+        }
+
+        public List<Map<String, Object>> getRejected() {
+            return rejected;
+        }
+
+        public long getFirstSequence() {
+            return firstSequence;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        public CompletableFuture<Integer> getDurable() {
+            return durable;
+        }
+
+        void processed(boolean ok) {
+            if (!ok) {
+                failedEvents.incrementAndGet();
+            }
+            if (remaining.decrementAndGet() == 0) {
+                durable.complete(failedEvents.get());
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        writer = new Thread(this::runWriter, "tracking-ingest");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Stops accepting and gives the writer up to shutdown-drain-ms to write what is queued
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(shutdownDrainMs);
+        writer.interrupt();
+    }
+
+    /**
+     * Validates and queues the events. Invalid events are reported in the
+     * receipt and skipped; the others are queued together.
+     *
+     * @throws IllegalArgumentException when the request has more than max-request-events events
+     * @throws RejectedExecutionException when the valid events do not fit in the queue
+     */
+    public Receipt submit(List<TrackParcelRequestBody> events) {
+        if (events.size() > maxRequestEvents) {
+            throw new IllegalArgumentException("At most " + maxRequestEvents + " events per request");
+        }
+        Receipt receipt = new Receipt();
+        List<TrackParcelRequestBody> valid = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            String error = validate(events.get(i));
+            if (error != null) {
+                Map<String, Object> rejection = new LinkedHashMap<>();
+                rejection.put("index", i);
+                rejection.put("error", error);
+                receipt.rejected.add(rejection);
+            } else {
+                valid.add(events.get(i));
+            }
+        }
+        rejectedInvalid.addAndGet(receipt.rejected.size());
+        if (valid.isEmpty()) {
+            receipt.durable.complete(0);
+            return receipt;
+        }
+
+        if (!running) {
+            throw new RejectedExecutionException("Tracking ingestion is shutting down");
+        }
+        if (pending.addAndGet(valid.size()) > queueCapacity) {
+            pending.addAndGet(-valid.size());
+            rejectedFull.addAndGet(valid.size());
+            throw new RejectedExecutionException("Tracking ingestion queue is full");
+        }
+        receipt.acceptedEvents = valid.size();
+        receipt.remaining.set(valid.size());
+        Timestamp receivedAt = new Timestamp(System.currentTimeMillis());
+        synchronized (enqueueLock) {
+            receipt.firstSequence = nextSequence;
+            for (TrackParcelRequestBody body : valid) {
+                queue.add(new TrackingEvent(nextSequence++, body, receivedAt, receipt));
+            }
+            receipt.lastSequence = nextSequence - 1;
+        }
+        accepted.addAndGet(valid.size());
+        return receipt;
+    }
+
+    public long getAckTimeoutMs() {
+        return ackTimeoutMs;
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        synchronized (enqueueLock) {
+            status.put("lastSequence", nextSequence - 1);
+        }
+        status.put("durableSequence", durableSequence);
+        status.put("queued", pending.get());
+        status.put("queueCapacity", queueCapacity);
+        status.put("accepted", accepted.get());
+        status.put("rejectedInvalid", rejectedInvalid.get());
+        status.put("rejectedQueueFull", rejectedFull.get());
+        status.put("written", written.get());
+        status.put("failed", failed.get());
+        status.put("batches", batches.get());
+        status.put("retries", retries.get());
+        status.put("lastBatchSize", lastBatchSize);
+        status.put("lastBatchMillis", lastBatchMillis);
+        return status;
+    }
+
+    private String validate(TrackParcelRequestBody body) {
+        if (body == null) {
+            return "Missing event";
+        }
+        if (!referenceIdCache.parcelExists(body.getParcelId())) {
+            return "No parcel with this id";
+        }
+        if (!referenceIdCache.employeeExists(body.getEmpId())) {
+            return "No employee with this id";
+        }
+        return null;
+    }
+
+    private void runWriter() {
+        List<TrackingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TrackingEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                queue.drainTo(batch, batchSize - batch.size());
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    TrackingEvent next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        logger.info("Tracking ingestion stopped at durable sequence {} with {} events queued",
+            durableSequence, pending.get());
+    }
+
+    // Returns once every event of the batch was committed or failed permanently
+    private void write(List<TrackingEvent> batch) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        // Index of the first row not processed yet; survives retries so no row is written twice
+        int[] next = { 0 };
+        boolean[] ok = new boolean[batch.size()];
+        List<TrackingState> states = new ArrayList<>(batch.size());
+        boolean batched = true;
+        while (next[0] < batch.size()) {
+            try {
+                if (batched) {
+                    try {
+                        states.addAll(insertBatch(batch));
+                        Arrays.fill(ok, true);
+                        next[0] = batch.size();
+                    } catch (DataIntegrityViolationException e) {
+                        // Some reference vanished after validation: find the bad rows
+                        logger.warn("Tracking batch rejected by a constraint, writing {} rows one by one", batch.size());
+                        batched = false;
+                    }
+                }
+                if (!batched) {
+                    insertOneByOne(batch, next, ok, states);
+                }
+            } catch (RuntimeException e) {
+                retries.incrementAndGet();
+                logger.error("Tracking batch write failed, retrying in {} ms", retryBackoffMs, e);
+                Thread.sleep(retryBackoffMs);
+            }
+        }
+        publish(states);
+        for (int i = 0; i < batch.size(); i++) {
+            processed(batch.get(i), ok[i]);
+        }
+        batches.incrementAndGet();
+        lastBatchSize = batch.size();
+        lastBatchMillis = System.currentTimeMillis() - startTime;
+    }
+
+    // One multi-row insert; the generated keys come back in row order
+    private List<TrackingState> insertBatch(List<TrackingEvent> batch) {
+        return transactionTemplate.execute(tx -> jdbcTemplate.execute((ConnectionCallback<List<TrackingState>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (TrackingEvent event : batch) {
+                    bind(ps, event);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<TrackingState> states = new ArrayList<>(batch.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (int i = 0; i < batch.size() && keys.next(); i++) {
+                        states.add(batch.get(i).toState(keys.getInt(1)));
+                    }
+                }
+                return states;
+            }
+        }));
+    }
+
+    // Writes the rows from next[0] on, advancing next[0] past each processed row
+    private void insertOneByOne(List<TrackingEvent> batch, int[] next, boolean[] ok, List<TrackingState> states) {
+        while (next[0] < batch.size()) {
+            TrackingEvent event = batch.get(next[0]);
+            try {
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                    bind(ps, event);
+                    return ps;
+                }, keyHolder);
+                ok[next[0]] = true;
+                if (keyHolder.getKey() != null) {
+                    states.add(event.toState(keyHolder.getKey().intValue()));
+                }
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Dropped tracking event {} for parcel {}: {}", event.sequence, event.parcelId,
+                    e.getMostSpecificCause().getMessage());
+            }
+            next[0]++;
+        }
+    }
+
+    // Listener failures must not stop the writer: the rows are committed either way
+    private void publish(List<TrackingState> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new TrackingChangeEvent(this, ChangeType.CREATED, states));
+        } catch (RuntimeException e) {
+            logger.error("Failed to publish {} tracking changes", states.size(), e);
+        }
+    }
+
+    private void processed(TrackingEvent event, boolean ok) {
+        (ok ? written : failed).incrementAndGet();
+        pending.decrementAndGet();
+        durableSequence = event.sequence;
+        event.receipt.processed(ok);
+    }
+
+    private static void bind(PreparedStatement ps, TrackingEvent event) throws SQLException {
+        ps.setInt(1, event.parcelId);
+        ps.setInt(2, event.employeeId);
+        setString(ps, 3, event.location);
+        setString(ps, 4, event.status);
+        setString(ps, 5, event.approvalStatus);
+        ps.setTimestamp(6, event.timestamp);
+        setString(ps, 7, event.notes);
+    }
+
+    private static void setString(PreparedStatement ps, int index, String value) throws SQLException {
+        if (value != null) {
+            ps.setString(index, value);
+        } else {
+            ps.setNull(index, Types.VARCHAR);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+-- Idempotent schema migrations, run after Hibernate's ddl-auto update
+-- (spring.jpa.defer-datasource-initialization=true). MySQL has no IF outside
+-- stored programs, so each guarded step picks its statement from
+-- information_schema and runs it as a prepared statement ('DO 0' = no-op).
+
+-- ---------------------------------------------------------------------------
+-- ayush_parcel.created_date: VARCHAR -> DATE
+-- Values written as yyyy-MM-dd (frontend) or MM/dd/yyyy (legacy) are
+-- converted; anything else becomes NULL and stays readable in
+-- created_date_legacy.
+-- ---------------------------------------------------------------------------
+SET @created_date_type = (SELECT DATA_TYPE FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_parcel' AND COLUMN_NAME = 'created_date');
+SET @migrate_created_date = @created_date_type IN ('varchar', 'char', 'tinytext', 'text', 'mediumtext', 'longtext');
+SET @has_created_date_new = (SELECT COUNT(*) FROM information_schema.COLUMNS
+    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_parcel' AND COLUMN_NAME = 'created_date_new') > 0;
+
+SET @sql = IF(@migrate_created_date AND NOT @has_created_date_new,
+    'ALTER TABLE ayush_parcel ADD COLUMN created_date_new DATE NULL', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- IGNORE: values that match the pattern but are not real dates (2024-02-30) become NULL instead of
+-- failing; a trailing time (2024-01-15T10:00) is dropped
+SET @sql = IF(@migrate_created_date,
+    'UPDATE IGNORE ayush_parcel SET created_date_new = CASE
+        WHEN TRIM(created_date) REGEXP ''^[0-9]{4}-[0-9]{1,2}-[0-9]{1,2}'' THEN STR_TO_DATE(TRIM(created_date), ''%Y-%m-%d'')
+        WHEN TRIM(created_date) REGEXP ''^[0-9]{1,2}/[0-9]{1,2}/[0-9]{4}$'' THEN STR_TO_DATE(TRIM(created_date), ''%m/%d/%Y'')
+        ELSE NULL END', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Indexes on the old column must not follow it to created_date_legacy
+SET @sql = IF(@migrate_created_date AND (SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_parcel' AND INDEX_NAME = 'idx_parcel_status_created_date') > 0,
+    'ALTER TABLE ayush_parcel DROP INDEX idx_parcel_status_created_date', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = IF(@migrate_created_date AND (SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_parcel' AND INDEX_NAME = 'idx_parcel_created_date') > 0,
+    'ALTER TABLE ayush_parcel DROP INDEX idx_parcel_created_date', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = IF(@migrate_created_date,
+    'ALTER TABLE ayush_parcel RENAME COLUMN created_date TO created_date_legacy, RENAME COLUMN created_date_new TO created_date',
+    'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- (parcel_status, created_date) serves the delayed-parcels filter; created_date alone the last-month listing
+SET @sql = IF(@created_date_type IS NOT NULL AND (SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_parcel' AND INDEX_NAME = 'idx_parcel_status_created_date') = 0,
+    'CREATE INDEX idx_parcel_status_created_date ON ayush_parcel (parcel_status, created_date)', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = IF(@created_date_type IS NOT NULL AND (SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_parcel' AND INDEX_NAME = 'idx_parcel_created_date') = 0,
+    'CREATE INDEX idx_parcel_created_date ON ayush_parcel (created_date)', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ---------------------------------------------------------------------------
+-- ayush_parcel.tracking_number: lookup of the latest tracking state by
+-- tracking number
+-- ---------------------------------------------------------------------------
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_parcel' AND COLUMN_NAME = 'tracking_number') > 0
+    AND (SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_parcel' AND INDEX_NAME = 'idx_parcel_tracking_number') = 0,
+    'CREATE INDEX idx_parcel_tracking_number ON ayush_parcel (tracking_number)', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ---------------------------------------------------------------------------
+-- Tracking history lifecycle: the hot window listing filters
+-- ayush_track_parcel by timestamp, archived histories are read by parcel
+-- ---------------------------------------------------------------------------
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_track_parcel' AND INDEX_NAME = 'idx_track_parcel_timestamp') = 0,
+    'CREATE INDEX idx_track_parcel_timestamp ON ayush_track_parcel (timestamp)', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @sql = IF((SELECT COUNT(*) FROM information_schema.TABLES
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_track_parcel_archive') > 0
+    AND (SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'ayush_track_parcel_archive' AND INDEX_NAME = 'idx_track_archive_parcel') = 0,
+    'CREATE INDEX idx_track_archive_parcel ON ayush_track_parcel_archive (parcel_id, first_track_id)', 'DO 0');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;